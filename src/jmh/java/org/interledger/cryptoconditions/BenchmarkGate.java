@@ -0,0 +1,337 @@
+package org.interledger.cryptoconditions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark baseline capture and regression gate.
+ *
+ * <pre>
+ * BenchmarkGate capture jmh-result.json baseline.json
+ * BenchmarkGate compare baseline.json jmh-result.json [timeTolerance [allocTolerance]] [--allow-missing]
+ * </pre>
+ *
+ * capture turns a JMH JSON result into the versioned baseline format kept in
+ * src/jmh/baseline.json: per benchmark and parameters, the score with its
+ * 99.9% confidence interval and the normalised allocation rate (B/op, needs
+ * -prof gc).
+ *
+ * compare flags a regression only when the confidence intervals are
+ * separated by more than the tolerance: for time per operation, when the
+ * lower bound of the new run is above the upper bound of the baseline by
+ * more than timeTolerance (default 0.10); for throughput the opposite. An
+ * allocation regression is a new rate above the baseline by more than
+ * allocTolerance (default 0.10) and ALLOC_SLACK bytes. Benchmarks measured
+ * with a single iteration have no interval, their score is used as is.
+ *
+ * A baseline benchmark missing from the run fails the gate too, so an empty
+ * or partial run can't pass unnoticed, unless --allow-missing is given.
+ *
+ * Exits with status 1 and prints a report when something regressed or,
+ * without --allow-missing, was not run.
+ */
+public final class BenchmarkGate {
+
+    static final int FORMAT_VERSION = 1;
+
+    /** Allocation differences below this many bytes per op are noise */
+    static final double ALLOC_SLACK = 32.0;
+
+    private static final String[] ALLOC_METRICS = {"gc.alloc.rate.norm", "\u00b7gc.alloc.rate.norm"};
+    private static final String PACKAGE_PREFIX = "org.interledger.cryptoconditions.";
+    private static final String ALLOW_MISSING = "--allow-missing";
+
+    private BenchmarkGate() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean allowMissing = false;
+        List<String> positional = new ArrayList<String>();
+        for (String arg : args) {
+            if (ALLOW_MISSING.equals(arg)) {
+                allowMissing = true;
+            } else {
+                positional.add(arg);
+            }
+        }
+        args = positional.toArray(new String[positional.size()]);
+        if (args.length >= 3 && "capture".equals(args[0])) {
+            List<Entry> entries = readJmhResult(new File(args[1]));
+            writeFile(new File(args[2]), Json.write(toBaseline(entries)));
+            System.out.println("Captured " + entries.size() + " benchmarks into " + args[2]);
+        } else if (args.length >= 3 && "compare".equals(args[0])) {
+            double timeTolerance = args.length > 3 ? Double.parseDouble(args[3]) : 0.10;
+            double allocTolerance = args.length > 4 ? Double.parseDouble(args[4]) : 0.10;
+            List<Entry> baseline = readBaseline(new File(args[1]));
+            List<Entry> current = readJmhResult(new File(args[2]));
+            StringBuilder report = new StringBuilder();
+            int failures = compare(baseline, current, timeTolerance, allocTolerance, allowMissing, report);
+            System.out.print(report);
+            if (failures > 0) {
+                System.exit(1);
+            }
+        } else {
+            System.err.println("Usage: BenchmarkGate capture <jmh-result.json> <baseline.json>");
+            System.err.println("       BenchmarkGate compare <baseline.json> <jmh-result.json> "
+                    + "[timeTolerance [allocTolerance]] [" + ALLOW_MISSING + "]");
+            System.exit(2);
+        }
+    }
+
+    /*
+     * One benchmark + parameters combination.
+     */
+    static final class Entry {
+        String benchmark;
+        Map<String, Object> params = new LinkedHashMap<String, Object>();
+        String mode;
+        String unit;
+        double score;
+        double scoreLow;
+        double scoreHigh;
+        double alloc = Double.NaN;
+        double allocLow = Double.NaN;
+        double allocHigh = Double.NaN;
+
+        String key() {
+            return benchmark + (params.isEmpty() ? "" : params.toString());
+        }
+
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+    }
+
+    /**
+     * @return the number of regressions, plus the baseline benchmarks missing
+     *         from current unless allowMissing
+     */
+    static int compare(List<Entry> baseline, List<Entry> current, double timeTolerance,
+            double allocTolerance, boolean allowMissing, StringBuilder report) {
+        Map<String, Entry> byKey = new LinkedHashMap<String, Entry>();
+        for (Entry entry : current) {
+            byKey.put(entry.key(), entry);
+        }
+        int regressions = 0;
+        int improvements = 0;
+        int missing = 0;
+        List<String> lines = new ArrayList<String>();
+        for (Entry base : baseline) {
+            Entry now = byKey.remove(base.key());
+            if (now == null) {
+                missing++;
+                lines.add((allowMissing ? "not run    " : "NOT RUN    ") + describe(base));
+                continue;
+            }
+            if (!base.unit.equals(now.unit) || !base.mode.equals(now.mode)) {
+                lines.add(String.format("SKIPPED    %s: mode/unit changed from %s %s to %s %s",
+                        base.key(), base.mode, base.unit, now.mode, now.unit));
+                continue;
+            }
+            String verdict = "ok        ";
+            double slower = base.higherIsBetter()
+                    ? (base.scoreLow - now.scoreHigh) / base.scoreLow
+                    : (now.scoreLow - base.scoreHigh) / base.scoreHigh;
+            double faster = base.higherIsBetter()
+                    ? (now.scoreLow - base.scoreHigh) / base.scoreHigh
+                    : (base.scoreLow - now.scoreHigh) / base.scoreLow;
+            boolean timeRegressed = slower > timeTolerance;
+            boolean allocRegressed = !Double.isNaN(base.alloc) && !Double.isNaN(now.alloc)
+                    && now.allocLow - base.allocHigh > Math.max(ALLOC_SLACK, base.alloc * allocTolerance);
+            if (timeRegressed || allocRegressed) {
+                verdict = "REGRESSED ";
+                regressions++;
+            } else if (faster > timeTolerance) {
+                verdict = "improved  ";
+                improvements++;
+            }
+            StringBuilder line = new StringBuilder(verdict).append(' ').append(describe(base));
+            line.append(String.format(" %s %s -> %s (%+.1f%%)", timeRegressed ? "TIME" : "time",
+                    interval(base.score, base.scoreLow, base.scoreHigh, base.unit),
+                    interval(now.score, now.scoreLow, now.scoreHigh, now.unit),
+                    100.0 * (now.score - base.score) / base.score));
+            if (!Double.isNaN(base.alloc) && !Double.isNaN(now.alloc)) {
+                line.append(String.format(", %s %.0f -> %.0f B/op", allocRegressed ? "ALLOC" : "alloc",
+                        base.alloc, now.alloc));
+            }
+            lines.add(line.toString());
+        }
+
+        report.append(String.format("Benchmark regression report: time tolerance %.0f%%, allocation tolerance %.0f%%%n",
+                100 * timeTolerance, 100 * allocTolerance));
+        // Regressions first, they are what the reader is looking for
+        for (String line : lines) {
+            if (line.startsWith("REGRESSED") || line.startsWith("NOT RUN")) {
+                report.append(line).append('\n');
+            }
+        }
+        for (String line : lines) {
+            if (!line.startsWith("REGRESSED") && !line.startsWith("NOT RUN")) {
+                report.append(line).append('\n');
+            }
+        }
+        for (Entry extra : byKey.values()) {
+            report.append("new        ").append(describe(extra)).append(" (not in baseline)\n");
+        }
+        report.append(String.format("%d regressed, %d improved, %d not run, %d new%n",
+                regressions, improvements, missing, byKey.size()));
+        return allowMissing ? regressions : regressions + missing;
+    }
+
+    private static String describe(Entry entry) {
+        StringBuilder sb = new StringBuilder(entry.benchmark);
+        if (!entry.params.isEmpty()) {
+            sb.append(' ').append(entry.params);
+        }
+        return sb.toString();
+    }
+
+    private static String interval(double score, double low, double high, String unit) {
+        if (low == score && high == score) {
+            return String.format("%.3f %s", score, unit);
+        }
+        return String.format("%.3f [%.3f, %.3f] %s", score, low, high, unit);
+    }
+
+    static List<Entry> readJmhResult(File file) throws IOException {
+        List<Entry> result = new ArrayList<Entry>();
+        for (Object item : (List<?>) Json.parse(readFile(file))) {
+            Map<?, ?> run = (Map<?, ?>) item;
+            Entry entry = new Entry();
+            entry.benchmark = shortName((String) run.get("benchmark"));
+            entry.mode = (String) run.get("mode");
+            Map<?, ?> params = (Map<?, ?>) run.get("params");
+            if (params != null) {
+                for (Map.Entry<?, ?> param : params.entrySet()) {
+                    entry.params.put(String.valueOf(param.getKey()), param.getValue());
+                }
+            }
+            Map<?, ?> primary = (Map<?, ?>) run.get("primaryMetric");
+            entry.unit = (String) primary.get("scoreUnit");
+            entry.score = Json.toDouble(primary.get("score"));
+            double[] confidence = confidence(primary, entry.score);
+            entry.scoreLow = confidence[0];
+            entry.scoreHigh = confidence[1];
+            Map<?, ?> secondary = (Map<?, ?>) run.get("secondaryMetrics");
+            if (secondary != null) {
+                for (String name : ALLOC_METRICS) {
+                    Map<?, ?> alloc = (Map<?, ?>) secondary.get(name);
+                    if (alloc != null) {
+                        entry.alloc = Json.toDouble(alloc.get("score"));
+                        double[] allocConfidence = confidence(alloc, entry.alloc);
+                        entry.allocLow = allocConfidence[0];
+                        entry.allocHigh = allocConfidence[1];
+                    }
+                }
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /*
+     * JMH reports NaN bounds when there are too few iterations for an
+     * interval: fall back to the score itself.
+     */
+    private static double[] confidence(Map<?, ?> metric, double score) {
+        List<?> bounds = (List<?>) metric.get("scoreConfidence");
+        double low = bounds == null ? Double.NaN : Json.toDouble(bounds.get(0));
+        double high = bounds == null ? Double.NaN : Json.toDouble(bounds.get(1));
+        if (Double.isNaN(low) || Double.isNaN(high)) {
+            return new double[]{score, score};
+        }
+        return new double[]{Math.max(0.0, low), high};
+    }
+
+    private static String shortName(String benchmark) {
+        return benchmark.startsWith(PACKAGE_PREFIX) ? benchmark.substring(PACKAGE_PREFIX.length()) : benchmark;
+    }
+
+    static Map<String, Object> toBaseline(List<Entry> entries) {
+        List<Object> benchmarks = new ArrayList<Object>();
+        for (Entry entry : entries) {
+            Map<String, Object> item = new LinkedHashMap<String, Object>();
+            item.put("benchmark", entry.benchmark);
+            item.put("params", entry.params);
+            item.put("mode", entry.mode);
+            item.put("unit", entry.unit);
+            item.put("score", entry.score);
+            item.put("scoreLow", entry.scoreLow);
+            item.put("scoreHigh", entry.scoreHigh);
+            if (!Double.isNaN(entry.alloc)) {
+                item.put("allocBytesPerOp", entry.alloc);
+                item.put("allocLow", entry.allocLow);
+                item.put("allocHigh", entry.allocHigh);
+            }
+            benchmarks.add(item);
+        }
+        Map<String, Object> baseline = new LinkedHashMap<String, Object>();
+        baseline.put("formatVersion", FORMAT_VERSION);
+        baseline.put("javaVersion", System.getProperty("java.version"));
+        baseline.put("javaVm", System.getProperty("java.vm.name"));
+        baseline.put("osArch", System.getProperty("os.arch"));
+        baseline.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        baseline.put("benchmarks", benchmarks);
+        return baseline;
+    }
+
+    static List<Entry> readBaseline(File file) throws IOException {
+        Map<?, ?> baseline = (Map<?, ?>) Json.parse(readFile(file));
+        int version = (int) Json.toDouble(baseline.get("formatVersion"));
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported baseline format version " + version + " in " + file);
+        }
+        List<Entry> result = new ArrayList<Entry>();
+        for (Object item : (List<?>) baseline.get("benchmarks")) {
+            Map<?, ?> b = (Map<?, ?>) item;
+            Entry entry = new Entry();
+            entry.benchmark = (String) b.get("benchmark");
+            for (Map.Entry<?, ?> param : ((Map<?, ?>) b.get("params")).entrySet()) {
+                entry.params.put(String.valueOf(param.getKey()), param.getValue());
+            }
+            entry.mode = (String) b.get("mode");
+            entry.unit = (String) b.get("unit");
+            entry.score = Json.toDouble(b.get("score"));
+            entry.scoreLow = Json.toDouble(b.get("scoreLow"));
+            entry.scoreHigh = Json.toDouble(b.get("scoreHigh"));
+            entry.alloc = Json.toDouble(b.get("allocBytesPerOp"));
+            entry.allocLow = Json.toDouble(b.get("allocLow"));
+            entry.allocHigh = Json.toDouble(b.get("allocHigh"));
+            result.add(entry);
+        }
+        return result;
+    }
+
+    private static String readFile(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), "UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void writeFile(File file, String content) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+}
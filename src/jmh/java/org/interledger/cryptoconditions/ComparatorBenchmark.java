@@ -0,0 +1,88 @@
+package org.interledger.cryptoconditions;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.interledger.cryptoconditions.util.ByteArrayComparator;
+
+/**
+ * Unsigned lexicographic comparison of byte arrays that differ in their
+ * last byte, and sorting of 1000 random keys of that length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComparatorBenchmark {
+
+    /* Fingerprint, encoded condition, encoded subfulfillment. */
+    @Param({"32", "40", "256"})
+    public int length;
+
+    private byte[] left;
+    private byte[] right;
+    private byte[][] arrays;
+    private ByteArrayComparator.Key[] keys;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        left = new byte[length];
+        random.nextBytes(left);
+        right = left.clone();
+        right[length - 1] ^= 1;
+        arrays = new byte[1000][length];
+        keys = new ByteArrayComparator.Key[arrays.length];
+        for (int i = 0; i < arrays.length; i++) {
+            random.nextBytes(arrays[i]);
+            keys[i] = new ByteArrayComparator.Key(arrays[i]);
+        }
+    }
+
+    /* The loop threshold canonicalization used before. */
+    @Benchmark
+    public int compareByteLoop() {
+        for (int i = 0; i < length; i++) {
+            int a = left[i] & 0xff;
+            int b = right[i] & 0xff;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return 0;
+    }
+
+    @Benchmark
+    public int compare() {
+        return ByteArrayComparator.INSTANCE.compare(left, right);
+    }
+
+    @Benchmark
+    public byte[][] sortArrays() {
+        byte[][] copy = arrays.clone();
+        Arrays.sort(copy, ByteArrayComparator.INSTANCE);
+        return copy;
+    }
+
+    @Benchmark
+    public ByteArrayComparator.Key[] sortKeys() {
+        ByteArrayComparator.Key[] copy = keys.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,74 @@
+package org.interledger.cryptoconditions;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+/**
+ * Ed25519 signing throughput: one-shot BuildFromSecrets against a reused
+ * Ed25519Signer. Run with -t to measure several threads sharing the signer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Ed25519SignBenchmark {
+
+    static final int BATCH_SIZE = 64;
+
+    static {
+        Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+    }
+
+    private KeyPayload seed;
+    private Ed25519Signer signer;
+    private MessagePayload message;
+    private MessagePayload[] batch;
+
+    @Setup
+    public void setUp() {
+        seed = new KeyPayload(new byte[32]);
+        signer = new Ed25519Signer(seed);
+        message = new MessagePayload(BenchmarkFixtures.MESSAGE);
+        batch = new MessagePayload[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch[i] = message;
+        }
+    }
+
+    @Benchmark
+    public Fulfillment buildFromSecrets() {
+        return Ed25519Fulfillment.BuildFromSecrets(seed, message);
+    }
+
+    @Benchmark
+    public Fulfillment signerSign() {
+        return signer.sign(message);
+    }
+
+    @Benchmark
+    public byte[] signerSignSerialized() {
+        return signer.signSerialized(message);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public byte[][] signerSignBatch() {
+        return signer.signBatch(batch);
+    }
+}
@@ -0,0 +1,59 @@
+package org.interledger.cryptoconditions;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+/**
+ * Condition generation and validation of a single fulfillment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FulfillmentBenchmark {
+
+    @Param({"PREIMAGE_SHA256", "PREFIX_SHA256", "RSA_SHA256", "ED25519"})
+    public String type;
+
+    private FulfillmentBase fulfillment;
+    private MessagePayload message;
+
+    @Setup
+    public void setUp() {
+        fulfillment = (FulfillmentBase) BenchmarkFixtures.fulfillment(ConditionType.valueOf(type));
+        message = new MessagePayload(BenchmarkFixtures.MESSAGE);
+        if (!fulfillment.validate(message)) {
+            throw new IllegalStateException(type + " fixture does not validate");
+        }
+    }
+
+    /*
+     * getCondition caches its result, call generateCondition directly. For
+     * PREFIX_SHA256 the sub-condition stays cached: see TreeBenchmark for
+     * whole trees.
+     */
+    @Benchmark
+    public Condition generateCondition() {
+        return fulfillment.generateCondition();
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return fulfillment.validate(message);
+    }
+}
@@ -0,0 +1,90 @@
+package org.interledger.cryptoconditions;
+
+import java.security.SecureRandom;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PREIMAGE-SHA-256 hashlocks, one fulfillment and condition at a time
+ * against PreimageSha256Batch. Scores are per hashlock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashlockBenchmark {
+
+    static final int COUNT = 10000;
+
+    private PreimageSha256Batch batch;
+    private byte[][] preimages;
+    private Condition[] conditions;
+
+    @Setup
+    public void setUp() {
+        batch = PreimageSha256Batch.generate(COUNT);
+        preimages = new byte[COUNT][];
+        conditions = new Condition[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            preimages[i] = batch.getPreimage(i);
+            conditions[i] = batch.getCondition(i);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public Condition[] generateOneByOne() {
+        Condition[] result = new Condition[COUNT];
+        SecureRandom random = new SecureRandom();
+        for (int i = 0; i < COUNT; i++) {
+            byte[] preimage = new byte[PreimageSha256Batch.DEFAULT_PREIMAGE_LENGTH];
+            random.nextBytes(preimage);
+            result[i] = PreimageSha256Fulfillment.BuildFromSecrets(preimage).getCondition();
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public PreimageSha256Batch generateBatch() {
+        return PreimageSha256Batch.generate(COUNT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int verifyOneByOne() {
+        int verified = 0;
+        for (int i = 0; i < COUNT; i++) {
+            if (FulfillmentVerifier.fulfills(conditions[i], PreimageSha256Fulfillment.BuildFromSecrets(preimages[i]))) {
+                verified++;
+            }
+        }
+        return verified;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public BitSet verifyBatchFlat() {
+        return PreimageSha256Batch.verify(batch.getPreimages(), batch.getPreimageLength(), batch.getFingerprints());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public BitSet verifyBatchConditions() {
+        return PreimageSha256Batch.verify(preimages, conditions);
+    }
+}
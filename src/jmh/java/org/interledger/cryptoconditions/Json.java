@@ -0,0 +1,288 @@
+package org.interledger.cryptoconditions;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Minimal JSON reader/writer for JMH result files and benchmark baselines,
+ * to keep the benchmark source set free of extra dependencies.
+ *
+ * Objects are read as LinkedHashMap, arrays as ArrayList, numbers as Double.
+ * The NaN literal JMH may emit is accepted.
+ */
+final class Json {
+
+    private final String text;
+    private int pos;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    static Object parse(String text) {
+        Json parser = new Json(text);
+        Object result = parser.readValue();
+        parser.skipWhitespace();
+        if (parser.pos != text.length()) {
+            throw parser.error("trailing characters");
+        }
+        return result;
+    }
+
+    /**
+     * @return value as a double, NaN for null or the strings JMH writes for
+     *         non-finite numbers
+     */
+    static double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private Object readValue() {
+        skipWhitespace();
+        if (pos >= text.length()) {
+            throw error("unexpected end of input");
+        }
+        char c = text.charAt(pos);
+        switch (c) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                expect("true");
+                return Boolean.TRUE;
+            case 'f':
+                expect("false");
+                return Boolean.FALSE;
+            case 'n':
+                expect("null");
+                return null;
+            case 'N':
+                expect("NaN");
+                return Double.NaN;
+            default:
+                return readNumber();
+        }
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> result = new LinkedHashMap<String, Object>();
+        pos++;
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return result;
+        }
+        while (true) {
+            skipWhitespace();
+            String key = readString();
+            skipWhitespace();
+            if (peek() != ':') {
+                throw error("expected ':'");
+            }
+            pos++;
+            result.put(key, readValue());
+            skipWhitespace();
+            char c = peek();
+            pos++;
+            if (c == '}') {
+                return result;
+            }
+            if (c != ',') {
+                throw error("expected ',' or '}'");
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> result = new ArrayList<Object>();
+        pos++;
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return result;
+        }
+        while (true) {
+            result.add(readValue());
+            skipWhitespace();
+            char c = peek();
+            pos++;
+            if (c == ']') {
+                return result;
+            }
+            if (c != ',') {
+                throw error("expected ',' or ']'");
+            }
+        }
+    }
+
+    private String readString() {
+        if (peek() != '"') {
+            throw error("expected string");
+        }
+        pos++;
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            if (pos >= text.length()) {
+                throw error("unterminated string");
+            }
+            char c = text.charAt(pos++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char e = text.charAt(pos++);
+            switch (e) {
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    pos += 4;
+                    break;
+                default:
+                    sb.append(e);
+            }
+        }
+    }
+
+    private Double readNumber() {
+        int start = pos;
+        while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+            pos++;
+        }
+        if (start == pos) {
+            throw error("unexpected character '" + text.charAt(pos) + "'");
+        }
+        return Double.valueOf(text.substring(start, pos));
+    }
+
+    private void expect(String literal) {
+        if (!text.startsWith(literal, pos)) {
+            throw error("expected " + literal);
+        }
+        pos += literal.length();
+    }
+
+    private char peek() {
+        if (pos >= text.length()) {
+            throw error("unexpected end of input");
+        }
+        return text.charAt(pos);
+    }
+
+    private void skipWhitespace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid JSON at offset " + pos + ": " + message);
+    }
+
+    /**
+     * Write value (Map, List, String, Number, Boolean or null) indented by
+     * two spaces per level. Non-finite numbers are written as null.
+     */
+    static String write(Object value) {
+        StringBuilder sb = new StringBuilder();
+        write(sb, value, 0);
+        sb.append('\n');
+        return sb.toString();
+    }
+
+    private static void write(StringBuilder sb, Object value, int indent) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof String) {
+            writeString(sb, (String) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            sb.append(Double.isNaN(d) || Double.isInfinite(d) ? "null" : String.valueOf(d));
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else if (value instanceof Map) {
+            sb.append('{');
+            Iterator<? extends Map.Entry<?, ?>> it = ((Map<?, ?>) value).entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<?, ?> entry = it.next();
+                newline(sb, indent + 1);
+                writeString(sb, String.valueOf(entry.getKey()));
+                sb.append(": ");
+                write(sb, entry.getValue(), indent + 1);
+                if (it.hasNext()) {
+                    sb.append(',');
+                }
+            }
+            newline(sb, indent);
+            sb.append('}');
+        } else if (value instanceof List) {
+            sb.append('[');
+            Iterator<?> it = ((List<?>) value).iterator();
+            while (it.hasNext()) {
+                newline(sb, indent + 1);
+                write(sb, it.next(), indent + 1);
+                if (it.hasNext()) {
+                    sb.append(',');
+                }
+            }
+            newline(sb, indent);
+            sb.append(']');
+        } else {
+            throw new IllegalArgumentException("Can't write " + value.getClass());
+        }
+    }
+
+    private static void newline(StringBuilder sb, int indent) {
+        sb.append('\n');
+        for (int i = 0; i < indent; i++) {
+            sb.append("  ");
+        }
+    }
+
+    private static void writeString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
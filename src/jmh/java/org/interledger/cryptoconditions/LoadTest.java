@@ -0,0 +1,308 @@
+package org.interledger.cryptoconditions;
+
+import java.io.ByteArrayInputStream;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.interledger.cryptoconditions.encoding.FulfillmentInputStream;
+import org.interledger.cryptoconditions.metrics.LatencyHistogram;
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+/**
+ * Synthetic open-loop load test of decode, condition match and validate.
+ *
+ * <pre>
+ * LoadTest [--threads N] [--rate OPS_PER_SECOND] [--duration SECONDS]
+ *          [--warmup SECONDS] [--corpus N] [--seed N]
+ *          [--mix PREIMAGE_SHA256=30,PREFIX_SHA256=20,ED25519=30,RSA_SHA256/2048=15,RSA_SHA256/4096=5]
+ * </pre>
+ *
+ * Every operation decodes an OER encoded fulfillment, matches it against its
+ * condition and validates it against its message, i.e.
+ * FulfillmentVerifier.verify on a freshly decoded fulfillment.
+ *
+ * Each thread issues operations on a fixed schedule (rate / threads per
+ * second) whether or not the previous one completed in time, and latency is
+ * measured from the scheduled start. Time spent queued behind a slow
+ * operation is therefore counted instead of hidden (no coordinated
+ * omission). Operations still not started one duration past the end are
+ * reported as missed.
+ *
+ * RSA_SHA256 takes the modulus size in bits after a '/' (default 2048).
+ * THRESHOLD_SHA256 is rejected until ThresholdSHA256Fulfillment can be
+ * constructed.
+ */
+public final class LoadTest {
+
+    static {
+        Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+    }
+
+    private static final String DEFAULT_MIX =
+            "PREIMAGE_SHA256=30,PREFIX_SHA256=20,ED25519=30,RSA_SHA256/2048=15,RSA_SHA256/4096=5";
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private double rate = 1000;
+    private int durationSeconds = 30;
+    private int warmupSeconds = 5;
+    private int corpus = 16;
+    private long seed = 42;
+    private String mix = DEFAULT_MIX;
+
+    private final List<Workload> workloads = new ArrayList<Workload>();
+    private int[] cumulativeWeights;
+    private final AtomicLong missed = new AtomicLong();
+
+    /*
+     * One entry of the mix: a corpus of pre-built records and the statistics
+     * of their operations.
+     */
+    static final class Workload {
+        final String label;
+        final int weight;
+        final Condition[] conditions;
+        final byte[][] fulfillments;
+        final MessagePayload[] messages;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong failures = new AtomicLong();
+
+        Workload(String label, int weight, int size) {
+            this.label = label;
+            this.weight = weight;
+            this.conditions = new Condition[size];
+            this.fulfillments = new byte[size][];
+            this.messages = new MessagePayload[size];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTest test = new LoadTest();
+        test.parseArguments(args);
+        test.buildWorkloads();
+        test.run();
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[++i];
+            if ("--threads".equals(name)) {
+                threads = Integer.parseInt(value);
+            } else if ("--rate".equals(name)) {
+                rate = Double.parseDouble(value);
+            } else if ("--duration".equals(name)) {
+                durationSeconds = Integer.parseInt(value);
+            } else if ("--warmup".equals(name)) {
+                warmupSeconds = Integer.parseInt(value);
+            } else if ("--corpus".equals(name)) {
+                corpus = Integer.parseInt(value);
+            } else if ("--seed".equals(name)) {
+                seed = Long.parseLong(value);
+            } else if ("--mix".equals(name)) {
+                mix = value;
+            } else {
+                throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        if (threads < 1 || rate <= 0 || durationSeconds < 1 || warmupSeconds < 0 || corpus < 1) {
+            throw new IllegalArgumentException("threads, rate, duration and corpus must be positive");
+        }
+    }
+
+    private void buildWorkloads() throws Exception {
+        Random random = new Random(seed);
+        for (String item : mix.split(",")) {
+            String[] pair = item.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Mix entries are TYPE=WEIGHT, got '" + item + "'");
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight <= 0) {
+                continue;
+            }
+            String[] typeAndSize = pair[0].trim().split("/");
+            ConditionType type = ConditionType.valueOf(typeAndSize[0]);
+            int bits = typeAndSize.length > 1 ? Integer.parseInt(typeAndSize[1]) : 2048;
+            System.out.println("Generating " + corpus + " x " + pair[0].trim() + " ...");
+            workloads.add(generate(pair[0].trim(), type, bits, weight, random));
+        }
+        if (workloads.isEmpty()) {
+            throw new IllegalArgumentException("Empty mix");
+        }
+        cumulativeWeights = new int[workloads.size()];
+        int total = 0;
+        for (int i = 0; i < workloads.size(); i++) {
+            total += workloads.get(i).weight;
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    private Workload generate(String label, ConditionType type, int bits, int weight, Random random)
+            throws Exception {
+        Workload workload = new Workload(label, weight, corpus);
+        String rsaKey = type == ConditionType.RSA_SHA256 ? BenchmarkFixtures.rsaPrivateKey(bits, random) : null;
+        for (int i = 0; i < corpus; i++) {
+            byte[] message = randomBytes(random, BenchmarkFixtures.MESSAGE_LENGTH);
+            Fulfillment fulfillment;
+            switch (type) {
+                case PREIMAGE_SHA256:
+                    fulfillment = PreimageSha256Fulfillment.BuildFromSecrets(
+                            randomBytes(random, BenchmarkFixtures.PREIMAGE_LENGTH));
+                    break;
+                case PREFIX_SHA256:
+                    fulfillment = PrefixSha256Fulfillment.BuildFromParams(
+                            randomBytes(random, BenchmarkFixtures.PREFIX_LENGTH),
+                            PreimageSha256Fulfillment.BuildFromSecrets(
+                                    randomBytes(random, BenchmarkFixtures.PREIMAGE_LENGTH)));
+                    break;
+                case ED25519:
+                    fulfillment = Ed25519Fulfillment.BuildFromSecrets(
+                            new KeyPayload(randomBytes(random, 32)), new MessagePayload(message));
+                    break;
+                case RSA_SHA256:
+                    fulfillment = RsaSha256Fulfillment.BuildFromSecrets(rsaKey, message, new SecureRandom());
+                    break;
+                default:
+                    throw new IllegalArgumentException(type + " fulfillments can't be constructed yet, "
+                            + "remove it from the mix");
+            }
+            workload.conditions[i] = fulfillment.getCondition();
+            workload.fulfillments[i] = fulfillment.serializeBinary();
+            workload.messages[i] = MessagePayload.wrap(message);
+        }
+        return workload;
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] result = new byte[length];
+        random.nextBytes(result);
+        return result;
+    }
+
+    private void run() throws InterruptedException {
+        System.out.println(String.format("Open-loop load: %.0f ops/s on %d threads, warmup %d s, duration %d s",
+                rate, threads, warmupSeconds, durationSeconds));
+        if (warmupSeconds > 0) {
+            runPhase(warmupSeconds, false);
+        }
+        missed.set(0);
+        long started = System.nanoTime();
+        runPhase(durationSeconds, true);
+        report((System.nanoTime() - started) / 1e9);
+    }
+
+    private void runPhase(int seconds, final boolean record) throws InterruptedException {
+        final long intervalNanos = (long) (1e9 * threads / rate);
+        final long start = System.nanoTime();
+        final long end = start + seconds * 1000000000L;
+        final long deadline = end + seconds * 1000000000L;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int index = t;
+            Thread worker = new Thread("load-test-" + t) {
+                @Override
+                public void run() {
+                    try {
+                        work(new Random(seed + index), start + intervalNanos * index / threads,
+                                intervalNanos, end, deadline, record);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            };
+            worker.setDaemon(true);
+            worker.start();
+        }
+        done.await();
+    }
+
+    private void work(Random random, long next, long intervalNanos, long end, long deadline, boolean record) {
+        while (next < end) {
+            long now = System.nanoTime();
+            if (now > deadline) {
+                missed.addAndGet((end - next + intervalNanos - 1) / intervalNanos);
+                return;
+            }
+            while (now < next) {
+                LockSupport.parkNanos(next - now);
+                now = System.nanoTime();
+            }
+            Workload workload = pick(random);
+            int i = random.nextInt(workload.conditions.length);
+            boolean ok;
+            try {
+                ok = FulfillmentVerifier.verify(workload.conditions[i], decode(workload.fulfillments[i]),
+                        workload.messages[i]);
+            } catch (Exception e) {
+                ok = false;
+            }
+            if (record) {
+                // From the scheduled start, not from when we got to it
+                workload.latency.record(System.nanoTime() - next);
+                if (!ok) {
+                    workload.failures.incrementAndGet();
+                }
+            }
+            next += intervalNanos;
+        }
+    }
+
+    private Workload pick(Random random) {
+        int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (r < cumulativeWeights[i]) {
+                return workloads.get(i);
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static Fulfillment decode(byte[] encoded) throws Exception {
+        FulfillmentInputStream stream = new FulfillmentInputStream(new ByteArrayInputStream(encoded));
+        try {
+            return stream.readFulfillment();
+        } finally {
+            stream.close();
+        }
+    }
+
+    private void report(double elapsedSeconds) {
+        long totalFailures = 0;
+        System.out.println();
+        System.out.println(String.format("%-20s %10s %10s %9s %10s %10s %10s %10s",
+                "type", "ops", "ops/s", "failures", "p50 us", "p99 us", "p99.9 us", "max us"));
+        for (Workload workload : workloads) {
+            printRow(workload.label, workload.latency, workload.failures.get(), elapsedSeconds);
+            totalFailures += workload.failures.get();
+        }
+        long totalOps = 0;
+        long maxNanos = 0;
+        for (Workload workload : workloads) {
+            totalOps += workload.latency.getCount();
+            maxNanos = Math.max(maxNanos, workload.latency.getMax());
+        }
+        System.out.println(String.format("%-20s %10d %10.0f %9d %43s %10.1f",
+                "TOTAL", totalOps, totalOps / elapsedSeconds, totalFailures, "", maxNanos / 1e3));
+        System.out.println(String.format("Target %.0f ops/s, achieved %.0f ops/s, %d operations missed",
+                rate, totalOps / elapsedSeconds, missed.get()));
+        if (missed.get() > 0) {
+            System.out.println("WARN: the target rate was not sustained, latencies include queueing delay.");
+        }
+    }
+
+    private static void printRow(String label, LatencyHistogram h, long failures, double elapsedSeconds) {
+        System.out.println(String.format("%-20s %10d %10.0f %9d %10.1f %10.1f %10.1f %10.1f",
+                label, h.getCount(), h.getCount() / elapsedSeconds, failures,
+                h.getValueAtPercentile(50.0) / 1e3, h.getValueAtPercentile(99.0) / 1e3,
+                h.getValueAtPercentile(99.9) / 1e3, h.getMax() / 1e3));
+    }
+}
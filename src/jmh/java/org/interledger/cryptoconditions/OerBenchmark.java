@@ -0,0 +1,78 @@
+package org.interledger.cryptoconditions;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.interledger.cryptoconditions.encoding.ConditionInputStream;
+
+/**
+ * OER binary encoding and decoding of conditions and fulfillments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OerBenchmark {
+
+    @Param({"PREIMAGE_SHA256", "PREFIX_SHA256", "RSA_SHA256", "ED25519"})
+    public String type;
+
+    private Condition condition;
+    private byte[] conditionBinary;
+    private byte[] fulfillmentBinary;
+
+    @Setup
+    public void setUp() {
+        Fulfillment fulfillment = BenchmarkFixtures.fulfillment(ConditionType.valueOf(type));
+        fulfillmentBinary = fulfillment.serializeBinary();
+        condition = fulfillment.getCondition();
+        conditionBinary = condition.serializeBinary();
+    }
+
+    @Benchmark
+    public Condition decodeCondition() throws Exception {
+        ConditionInputStream stream = new ConditionInputStream(new ByteArrayInputStream(conditionBinary));
+        try {
+            return stream.readCondition();
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Benchmark
+    public Fulfillment decodeFulfillment() throws Exception {
+        return BenchmarkFixtures.decode(fulfillmentBinary);
+    }
+
+    /*
+     * serializeBinary is memoised, encode a fresh instance.
+     */
+    @Benchmark
+    public byte[] encodeCondition() {
+        return new ConditionImpl(condition.getType(), condition.getFeatureBitmask(), condition.getFingerprint(),
+                condition.getMaxFulfillmentLength()).serializeBinary();
+    }
+
+    /*
+     * A decoded fulfillment is not encoded yet: decode + first encode.
+     * Subtract decodeFulfillment for the encoding cost.
+     */
+    @Benchmark
+    public byte[] decodeAndEncodeFulfillment() throws Exception {
+        return BenchmarkFixtures.decode(fulfillmentBinary).serializeBinary();
+    }
+}
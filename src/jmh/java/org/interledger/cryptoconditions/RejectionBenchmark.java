@@ -0,0 +1,141 @@
+package org.interledger.cryptoconditions;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.interledger.cryptoconditions.encoding.DecodeResult;
+import org.interledger.cryptoconditions.encoding.FulfillmentDecoder;
+
+/**
+ * Rejection of malformed input with exceptions against the tryDecode and
+ * tryParse entry points. Scores are per rejected input.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RejectionBenchmark {
+
+    static final int COUNT = 4;
+
+    private final String[] fulfillmentUris = new String[COUNT];
+    private final String[] conditionUris = new String[COUNT];
+    private final byte[][] encoded = new byte[COUNT][];
+    private final FulfillmentDecoder decoder = new FulfillmentDecoder();
+    private final DecodeResult<Fulfillment> fulfillmentResult = new DecodeResult<Fulfillment>();
+    private final DecodeResult<Condition> conditionResult = new DecodeResult<Condition>();
+
+    @Setup
+    public void setUp() {
+        Fulfillment valid = BenchmarkFixtures.fulfillment(ConditionType.PREFIX_SHA256);
+        String uri = valid.toURI();
+        String condition = valid.getCondition().toURI();
+        byte[] binary = valid.serializeBinary();
+
+        fulfillmentUris[0] = "cf:9:AAAA";
+        fulfillmentUris[1] = uri.substring(0, uri.length() - 4);
+        fulfillmentUris[2] = uri + "!";
+        fulfillmentUris[3] = "xx:" + uri;
+        conditionUris[0] = "cc:9:3:AAAA:1";
+        conditionUris[1] = condition.substring(0, condition.lastIndexOf(':'));
+        conditionUris[2] = condition + "x";
+        conditionUris[3] = "cc:1:ffffffffff:AAAA:1";
+        encoded[0] = new byte[]{0, 9, 0};
+        encoded[1] = new byte[binary.length - 1];
+        System.arraycopy(binary, 0, encoded[1], 0, encoded[1].length);
+        encoded[2] = binary.clone();
+        encoded[2][3] = (byte) 0x80; // prefix length indicator
+        encoded[3] = new byte[]{0, 1, 2, 0, 0};
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int fulfillmentUriWithExceptions() {
+        int rejected = 0;
+        for (String uri : fulfillmentUris) {
+            try {
+                FulfillmentFactory.getFulfillmentFromURI(uri);
+            } catch (RuntimeException e) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int fulfillmentUriTryParse() {
+        int rejected = 0;
+        for (String uri : fulfillmentUris) {
+            if (!FulfillmentFactory.tryParseFulfillmentURI(uri, fulfillmentResult)) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int conditionUriWithExceptions() {
+        int rejected = 0;
+        for (String uri : conditionUris) {
+            try {
+                new ConditionImpl(uri);
+            } catch (RuntimeException e) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int conditionUriTryParse() {
+        int rejected = 0;
+        for (String uri : conditionUris) {
+            if (!ConditionImpl.tryParse(uri, conditionResult)) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int binaryWithExceptions() {
+        int rejected = 0;
+        for (byte[] bytes : encoded) {
+            try {
+                decoder.decode(bytes);
+            } catch (Exception e) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int binaryTryDecode() {
+        int rejected = 0;
+        for (byte[] bytes : encoded) {
+            if (!decoder.tryDecode(bytes, fulfillmentResult)) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+}
@@ -0,0 +1,69 @@
+package org.interledger.cryptoconditions;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+/**
+ * RSA-SHA-256 signing per modulus size: one-shot BuildFromSecrets against a
+ * reused RsaSha256Signer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RsaSignBenchmark {
+
+    static final int BATCH_SIZE = 16;
+
+    @Param({"2048", "3072", "4096"})
+    public int bits;
+
+    private String pem;
+    private RsaSha256Signer signer;
+    private MessagePayload message;
+    private MessagePayload[] batch;
+
+    @Setup
+    public void setUp() throws Exception {
+        pem = BenchmarkFixtures.rsaPrivateKey(bits, new Random(bits));
+        signer = RsaSha256Signer.fromPEM(pem);
+        message = new MessagePayload(BenchmarkFixtures.MESSAGE);
+        batch = new MessagePayload[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch[i] = message;
+        }
+    }
+
+    @Benchmark
+    public Fulfillment buildFromSecrets() {
+        return RsaSha256Fulfillment.BuildFromSecrets(pem, BenchmarkFixtures.MESSAGE, null);
+    }
+
+    @Benchmark
+    public Fulfillment signerSign() {
+        return signer.sign(message);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public byte[][] signerSignBatch() {
+        return signer.signBatch(batch);
+    }
+}
@@ -0,0 +1,90 @@
+package org.interledger.cryptoconditions;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+/**
+ * Nested Prefix fulfillments of increasing depth around a leaf.
+ *
+ * Threshold width can't be benchmarked until ThresholdSHA256Fulfillment can
+ * be constructed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int depth;
+
+    @Param({"PREIMAGE_SHA256", "ED25519"})
+    public String leaf;
+
+    private byte[] binary;
+    private String uri;
+    private Fulfillment fulfillment;
+    private Condition condition;
+    private MessagePayload message;
+
+    @Setup
+    public void setUp() {
+        fulfillment = BenchmarkFixtures.prefixChain(depth, ConditionType.valueOf(leaf));
+        binary = fulfillment.serializeBinary();
+        uri = fulfillment.toURI();
+        condition = fulfillment.getCondition();
+        message = new MessagePayload(BenchmarkFixtures.MESSAGE);
+        if (!fulfillment.validate(message) || !VerificationProgram.verify(condition, fulfillment, message)) {
+            throw new IllegalStateException("prefix chain does not validate");
+        }
+    }
+
+    @Benchmark
+    public Fulfillment decode() throws Exception {
+        return BenchmarkFixtures.decode(binary);
+    }
+
+    @Benchmark
+    public Fulfillment parseURI() {
+        return FulfillmentFactory.getFulfillmentFromURI(uri);
+    }
+
+    /*
+     * Conditions are cached per node: decode a fresh tree so every level
+     * generates its condition. Subtract decode for the generation cost.
+     */
+    @Benchmark
+    public Condition decodeAndGenerateCondition() throws Exception {
+        return BenchmarkFixtures.decode(binary).getCondition();
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return fulfillment.validate(message);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return FulfillmentVerifier.verify(condition, fulfillment, message);
+    }
+
+    @Benchmark
+    public boolean verifyCompiled() {
+        return VerificationProgram.verify(condition, fulfillment, message);
+    }
+}
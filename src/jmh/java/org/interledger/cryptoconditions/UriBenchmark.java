@@ -0,0 +1,80 @@
+package org.interledger.cryptoconditions;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * URI parsing and emitting of conditions and fulfillments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UriBenchmark {
+
+    @Param({"PREIMAGE_SHA256", "PREFIX_SHA256", "RSA_SHA256", "ED25519"})
+    public String type;
+
+    private Condition condition;
+    private String conditionUri;
+    private Fulfillment fulfillment;
+    private String fulfillmentUri;
+
+    @Setup
+    public void setUp() {
+        fulfillment = BenchmarkFixtures.fulfillment(ConditionType.valueOf(type));
+        fulfillmentUri = fulfillment.toURI();
+        condition = fulfillment.getCondition();
+        conditionUri = condition.toURI();
+    }
+
+    @Benchmark
+    public Condition parseCondition() {
+        return new ConditionImpl(conditionUri);
+    }
+
+    @Benchmark
+    public Fulfillment parseFulfillment() {
+        return FulfillmentFactory.getFulfillmentFromURI(fulfillmentUri);
+    }
+
+    /*
+     * toURI is memoised, emit from a fresh instance to measure the encoding.
+     */
+    @Benchmark
+    public String conditionToURI() {
+        return new ConditionImpl(condition.getType(), condition.getFeatureBitmask(), condition.getFingerprint(),
+                condition.getMaxFulfillmentLength()).toURI();
+    }
+
+    /*
+     * The encoding toURI memoises. Rebuilding a fulfillment would mostly
+     * measure key parsing (RSA, Ed25519), so this runs the emit step alone.
+     */
+    @Benchmark
+    public String fulfillmentToURI() {
+        return FulfillmentBase.encodeURI(fulfillment.getType(), fulfillment.getPayload());
+    }
+
+    /*
+     * Memoised after the first call: this is the cost callers see on an
+     * already encoded fulfillment.
+     */
+    @Benchmark
+    public String fulfillmentToURICached() {
+        return fulfillment.toURI();
+    }
+}
@@ -0,0 +1,119 @@
+package org.interledger.cryptoconditions;
+
+/**
+ * Decide whether a fulfillment is worth validating from its
+ * {@link CostEstimate}, before any cryptographic work is done.
+ *
+ * Fulfillments over the reject budget are rejected, those over the
+ * deprioritize budget can be queued behind cheaper ones. Estimating from the
+ * encoding ({@link #decide(byte[], int)}) avoids decoding keys of
+ * fulfillments that end up rejected; encodings that can't be estimated are
+ * rejected.
+ *
+ * Instances are thread-safe as long as their budgets are not modified.
+ */
+public class AdmissionFilter {
+
+    public enum Decision {
+        ACCEPT, DEPRIORITIZE, REJECT
+    }
+
+    /**
+     * Limits on a cost estimate, all unlimited by default.
+     */
+    public static class Budget {
+        private int maxDepth = Integer.MAX_VALUE;
+        private int maxEd25519Verifies = Integer.MAX_VALUE;
+        private int maxRsaVerifies = Integer.MAX_VALUE;
+        private int maxRsaModulusBits = Integer.MAX_VALUE;
+        private long maxBytesHashed = Long.MAX_VALUE;
+
+        public void setMaxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+        }
+
+        public void setMaxEd25519Verifies(int maxEd25519Verifies) {
+            this.maxEd25519Verifies = maxEd25519Verifies;
+        }
+
+        public void setMaxRsaVerifies(int maxRsaVerifies) {
+            this.maxRsaVerifies = maxRsaVerifies;
+        }
+
+        public void setMaxRsaModulusBits(int maxRsaModulusBits) {
+            this.maxRsaModulusBits = maxRsaModulusBits;
+        }
+
+        public void setMaxBytesHashed(long maxBytesHashed) {
+            this.maxBytesHashed = maxBytesHashed;
+        }
+
+        /**
+         * @return the first limit the estimate exceeds, null if it is within
+         *         budget
+         */
+        public String exceededBy(CostEstimate estimate) {
+            if (estimate.getDepth() > maxDepth) {
+                return "depth " + estimate.getDepth() + " > " + maxDepth;
+            }
+            if (estimate.getEd25519Verifies() > maxEd25519Verifies) {
+                return "Ed25519 verifies " + estimate.getEd25519Verifies() + " > " + maxEd25519Verifies;
+            }
+            if (estimate.getRsaVerifies() > maxRsaVerifies) {
+                return "RSA verifies " + estimate.getRsaVerifies() + " > " + maxRsaVerifies;
+            }
+            if (estimate.getMaxRsaModulusBits() > maxRsaModulusBits) {
+                return "RSA modulus bits " + estimate.getMaxRsaModulusBits() + " > " + maxRsaModulusBits;
+            }
+            if (estimate.getBytesHashed() > maxBytesHashed) {
+                return "bytes hashed " + estimate.getBytesHashed() + " > " + maxBytesHashed;
+            }
+            return null;
+        }
+    }
+
+    private final Budget reject;
+    private final Budget deprioritize;
+
+    /**
+     * @param reject limits above which fulfillments are rejected
+     * @param deprioritize limits above which fulfillments are deprioritized,
+     *            null to never deprioritize
+     */
+    public AdmissionFilter(Budget reject, Budget deprioritize) {
+        if (reject == null) {
+            throw new IllegalArgumentException("reject budget cannot be null.");
+        }
+        this.reject = reject;
+        this.deprioritize = deprioritize != null ? deprioritize : new Budget();
+    }
+
+    public Decision decide(CostEstimate estimate) {
+        if (reject.exceededBy(estimate) != null) {
+            return Decision.REJECT;
+        }
+        if (deprioritize.exceededBy(estimate) != null) {
+            return Decision.DEPRIORITIZE;
+        }
+        return Decision.ACCEPT;
+    }
+
+    public Decision decide(Fulfillment fulfillment, int messageLength) {
+        try {
+            return decide(CostEstimate.of(fulfillment, messageLength));
+        } catch (IllegalArgumentException e) {
+            return Decision.REJECT;
+        }
+    }
+
+    /**
+     * Decide from a binary encoded fulfillment without decoding it.
+     */
+    public Decision decide(byte[] encoded, int messageLength) {
+        try {
+            return decide(CostEstimate.ofBinary(encoded, messageLength));
+        } catch (IllegalArgumentException e) {
+            return Decision.REJECT;
+        }
+    }
+}
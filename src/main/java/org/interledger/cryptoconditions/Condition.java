@@ -1,5 +1,6 @@
 package org.interledger.cryptoconditions;
 
+import java.nio.ByteBuffer;
 import java.util.EnumSet;
 
 /**
@@ -19,7 +20,7 @@ public interface Condition {
     /*
      * TODO: We would like all different Condition implementations to have the next two constructors:
      * 
-     *   ConditionImpl(ConditionType type, EnumSet<FeatureSuite> features, 
+     *   ConditionImpl(ConditionType type, int features, 
      *             byte[] fingerprint, int maxFulfillmentLength)
      * 
      *   ConditionImpl(String URI)
@@ -44,12 +45,22 @@ public interface Condition {
     ConditionType getType();
 
     /**
-     * The set of feature suites an implementation must support in order to be
+     * The feature suites an implementation must support in order to be
      * able to successfully parse the fulfillment to this condition.
      *
      * This is the boolean OR of the featureBitmask values of the top-level
      * condition type and all subcondition types, recursively.
      *
+     * @see FeatureSuite#isSupported(int, int)
+     *
+     * @return bitmask of the features required to parse and validate this
+     * condition and its fulfillment
+     */
+    int getFeatureBitmask();
+
+    /**
+     * Convenience view of getFeatureBitmask() as a newly allocated set.
+     *
      * @return the set of features required to parse and validate this condition
      * and its fulfillment
      */
@@ -95,6 +106,16 @@ public interface Condition {
      */
     byte[] serializeBinary ();
 
+    /**
+     * Read-only view of the binary encoding returned by serializeBinary().
+     *
+     * Implementations may return a view of a cached encoding so hot callers
+     * (indexes, threshold serialization) avoid re-encoding or copying.
+     *
+     * @return read-only buffer positioned at the start of the encoding
+     */
+    ByteBuffer toByteBuffer();
+
     String toURI();
 
 }
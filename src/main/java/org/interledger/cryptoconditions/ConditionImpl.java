@@ -1,19 +1,32 @@
 package org.interledger.cryptoconditions;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.EnumSet;
 
 import org.interledger.cryptoconditions.encoding.Base64Url;
 import org.interledger.cryptoconditions.encoding.ConditionOutputStream;
+import org.interledger.cryptoconditions.encoding.DecodeError;
+import org.interledger.cryptoconditions.encoding.DecodeResult;
+import org.interledger.cryptoconditions.metrics.Metrics;
+import org.interledger.cryptoconditions.metrics.Operation;
 
 public final class ConditionImpl implements Condition {
 
     // Condition Interface related members 
     private final ConditionType type;
-    private final EnumSet<FeatureSuite> features;
+    private final int features;
     private final byte[] fingerprint;
     private final int maxFulfillmentLength;
 
+    /*
+     * Lazily computed encodings. The instance is immutable so racing threads
+     * compute identical values and whichever write wins is fine. volatile
+     * guarantees the array content is visible once the reference is.
+     */
+    private volatile byte[] encoded;
+    private volatile String uri;
+
     // URISerializable Interface related members
     private static final String CONDITION_REGEX = "^cc:([1-9a-f][0-9a-f]{0,3}|0):[1-9a-f][0-9a-f]{0,15}:[a-zA-Z0-9_-]{0,86}:([1-9][0-9]{0,17}|0)$";
     private static final java.util.regex.Pattern p = java.util.regex.Pattern.compile(CONDITION_REGEX);
@@ -25,14 +38,22 @@ public final class ConditionImpl implements Condition {
 
     public ConditionImpl(ConditionType type, EnumSet<FeatureSuite> features, byte[] fingerprint,
             int maxFulfillmentLength) {
+        this(type, featureSetToBitMask(features), fingerprint, maxFulfillmentLength);
+    }
+
+    /**
+     * @param features bitmask of FeatureSuite values
+     */
+    public ConditionImpl(ConditionType type, int features, byte[] fingerprint,
+            int maxFulfillmentLength) {
         if (type == null) {
             throw new IllegalArgumentException("Type cannot be null.");
         }
         if (fingerprint == null) {
             throw new IllegalArgumentException("Fingerprint cannot be null.");
         }
-        if (features == null) {
-            throw new IllegalArgumentException("Features cannot be null.");
+        if (!FeatureSuite.isSupported(features, FeatureSuite.ALL_FEATURES)) {
+            throw new IllegalArgumentException("Unknown feature bits " + Integer.toHexString(features));
         }
         if (maxFulfillmentLength < 0) {
             throw new IllegalArgumentException("MaxFulfillmentLength can't be negative.");
@@ -42,40 +63,122 @@ public final class ConditionImpl implements Condition {
         // TODO:(0) fingerprint          can be empty/zero-length ?
         // TODO:(0) features.isEmpty()   allowed ?
         this.type = type;
-        this.fingerprint = fingerprint;
+        // Copied in and out: the memoised encodings must not go stale
+        this.fingerprint = fingerprint.clone();
         this.features = features;
         this.maxFulfillmentLength = maxFulfillmentLength;
     }
 
-    public ConditionImpl(String uri) {
-        if (uri == null) {
-            throw new IllegalArgumentException("serializedCondition == null");
-        }
-        if ("".equals(uri.trim())) {
-            throw new IllegalArgumentException("serializedCondition was an empy string");
-        }
-        if (!uri.startsWith("cc:")) {
-            throw new IllegalArgumentException("serializedCondition must start with 'cc:'");
+    private static int featureSetToBitMask(EnumSet<FeatureSuite> features) {
+        if (features == null) {
+            throw new IllegalArgumentException("Features cannot be null.");
         }
+        return FeatureSuite.EnumSet2bitMask(features);
+    }
 
-        java.util.regex.Matcher m = p.matcher(uri);
-        if (!m.matches()) {
-            throw new IllegalArgumentException(
-                    "serializedCondition '" + uri + "' doesn't match " + ConditionImpl.CONDITION_REGEX);
-        }
+    public ConditionImpl(String uri) {
+        long start = Metrics.start();
+        ConditionType type = null;
+        boolean success = false;
+        try {
+            if (uri == null) {
+                throw new IllegalArgumentException("serializedCondition == null");
+            }
+            if ("".equals(uri.trim())) {
+                throw new IllegalArgumentException("serializedCondition was an empy string");
+            }
+            if (!uri.startsWith("cc:")) {
+                throw new IllegalArgumentException("serializedCondition must start with 'cc:'");
+            }
+
+            java.util.regex.Matcher m = p.matcher(uri);
+            if (!m.matches()) {
+                throw new IllegalArgumentException(
+                        "serializedCondition '" + uri + "' doesn't match " + ConditionImpl.CONDITION_REGEX);
+            }
 
-        String[] pieces = uri.split(":");
-        if (pieces.length != 5) {
-            throw new IllegalArgumentException("The URI for the condition '" + uri + "' was expected to contain 5 fields separated by ':'");
+            String[] pieces = uri.split(":");
+            if (pieces.length != 5) {
+                throw new IllegalArgumentException("The URI for the condition '" + uri + "' was expected to contain 5 fields separated by ':'");
+            }
+
+            String BASE16Type = pieces[1], BASE16FeatureBitMask = pieces[2],
+                    BASE64URLFingerprint = pieces[3], BASE10MaxFulfillmentLength = pieces[4];
+
+            type = ConditionType.valueOf(Integer.parseInt(BASE16Type, 16));
+            this.type = type;
+            int features = Integer.parseInt(BASE16FeatureBitMask, 16);
+            if (!FeatureSuite.isSupported(features, FeatureSuite.ALL_FEATURES)) {
+                throw new IllegalArgumentException("Unknown feature bits in condition '" + uri + "'");
+            }
+            this.features = features;
+            this.fingerprint = Base64Url.decode(BASE64URLFingerprint);
+            this.maxFulfillmentLength = Integer.parseInt(BASE10MaxFulfillmentLength);
+            success = true;
+        } finally {
+            Metrics.stop(start, type, Operation.PARSE_CONDITION_URI, uri == null ? 0 : uri.length(), success);
         }
+    }
 
-        String BASE16Type = pieces[1], BASE16FeatureBitMask = pieces[2],
-                BASE64URLFingerprint = pieces[3], BASE10MaxFulfillmentLength = pieces[4];
+    /**
+     * Parse a condition URI without throwing on bad input.
+     *
+     * The URI is only read during the call, it can be a reused view of a
+     * larger buffer.
+     *
+     * @param result receives the condition or the reason of the rejection
+     * @return true if the URI was parsed
+     */
+    public static boolean tryParse(CharSequence uri, DecodeResult<Condition> result) {
+        long start = Metrics.start();
+        try {
+            return tryParseFields(uri, result);
+        } finally {
+            Metrics.stop(start, result.isSuccess() ? result.getValue().getType() : null,
+                    Operation.PARSE_CONDITION_URI, uri == null ? 0 : uri.length(), result.isSuccess());
+        }
+    }
 
-        this.type = ConditionType.valueOf(Integer.parseInt(BASE16Type, 16));
-        this.features = FeatureSuite.bitMask2EnumSet(Integer.parseInt(BASE16FeatureBitMask, 16));
-        this.fingerprint = Base64Url.decode(BASE64URLFingerprint);
-        this.maxFulfillmentLength = Integer.parseInt(BASE10MaxFulfillmentLength);
+    /* Same rules as CONDITION_REGEX and the checks of ConditionImpl(String). */
+    private static boolean tryParseFields(CharSequence uri, DecodeResult<Condition> result) {
+        result.reset();
+        if (uri == null || !UriFields.startsWith(uri, "cc:")) {
+            return result.fail(DecodeError.MALFORMED_URI, 0);
+        }
+        int typeEnd = UriFields.indexOf(uri, ':', 3);
+        int featuresEnd = typeEnd < 0 ? -1 : UriFields.indexOf(uri, ':', typeEnd + 1);
+        int fingerprintEnd = featuresEnd < 0 ? -1 : UriFields.indexOf(uri, ':', featuresEnd + 1);
+        if (fingerprintEnd < 0) {
+            return result.fail(DecodeError.MALFORMED_URI, uri.length());
+        }
+        long type = UriFields.parseHex(uri, 3, typeEnd, 4);
+        if (type < 0) {
+            return result.fail(DecodeError.MALFORMED_URI, 3);
+        }
+        if (type > ConditionType.ED25519.getTypeCode()) {
+            return result.fail(DecodeError.UNKNOWN_TYPE, 3);
+        }
+        long features = UriFields.parseHex(uri, typeEnd + 1, featuresEnd, 16);
+        if (features <= 0) {
+            return result.fail(DecodeError.MALFORMED_URI, typeEnd + 1);
+        }
+        if (features > Integer.MAX_VALUE || !FeatureSuite.isSupported((int) features, FeatureSuite.ALL_FEATURES)) {
+            return result.fail(DecodeError.INVALID_VALUE, typeEnd + 1);
+        }
+        byte[] fingerprint = fingerprintEnd - featuresEnd - 1 > 86 ? null
+                : Base64Url.tryDecode(uri, featuresEnd + 1, fingerprintEnd);
+        if (fingerprint == null) {
+            return result.fail(DecodeError.MALFORMED_URI, featuresEnd + 1);
+        }
+        long maxFulfillmentLength = UriFields.parseDecimal(uri, fingerprintEnd + 1, uri.length(), 18);
+        if (maxFulfillmentLength < 0) {
+            return result.fail(DecodeError.MALFORMED_URI, fingerprintEnd + 1);
+        }
+        if (maxFulfillmentLength > Integer.MAX_VALUE) {
+            return result.fail(DecodeError.INVALID_VALUE, fingerprintEnd + 1);
+        }
+        return result.succeed(new ConditionImpl(ConditionType.valueOf((int) type), (int) features, fingerprint,
+                (int) maxFulfillmentLength));
     }
 
     @Override
@@ -83,14 +186,22 @@ public final class ConditionImpl implements Condition {
         return this.type;
     }
 
+    @Override
+    public int getFeatureBitmask() {
+        return this.features;
+    }
+
     @Override
     public EnumSet<FeatureSuite> getFeatures() {
-        return this.features.clone();
+        return FeatureSuite.bitMask2EnumSet(this.features);
     }
 
+    /**
+     * @return a copy of the fingerprint
+     */
     @Override
     public byte[] getFingerprint() {
-        return this.fingerprint;
+        return this.fingerprint.clone();
     }
 
     @Override
@@ -100,25 +211,49 @@ public final class ConditionImpl implements Condition {
 
     @Override
     public String toURI() {
-        return "cc"
-                + ":" + Integer.toHexString(this.getType().getTypeCode())
-                + ":" + Integer.toHexString(FeatureSuite.EnumSet2bitMask(this.getFeatures()))
-                + ":" + Base64Url.encode(this.getFingerprint())
-                + ":" + Integer.toString(this.getMaxFulfillmentLength());
+        String result = this.uri;
+        if (result == null) {
+            result = "cc"
+                    + ":" + Integer.toHexString(this.type.getTypeCode())
+                    + ":" + Integer.toHexString(this.features)
+                    + ":" + Base64Url.encode(this.fingerprint)
+                    + ":" + Integer.toString(this.maxFulfillmentLength);
+            this.uri = result;
+        }
+        return result;
     }
 
     public String toString() {
         return toURI();
     }
-    
+
+    @Override
     public byte[] serializeBinary() {
+        return getEncoded().clone();
+    }
+
+    @Override
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(getEncoded()).asReadOnlyBuffer();
+    }
+
+    private byte[] getEncoded() {
+        byte[] result = this.encoded;
+        if (result == null) {
+            result = encode();
+            this.encoded = result;
+        }
+        return result;
+    }
+
+    private byte[] encode() {
         ByteArrayOutputStream os = new ByteArrayOutputStream();
         ConditionOutputStream oos = new ConditionOutputStream(os);
         try{
-            oos.write16BitUInt(this.getType().getTypeCode());
-            oos.writeFeatures(this.getFeatures());
-            oos.writeOctetString(this.getFingerprint());
-            oos.writeVarUInt(this.getMaxFulfillmentLength());
+            oos.write16BitUInt(this.type.getTypeCode());
+            oos.writeFeatures(this.features);
+            oos.writeOctetString(this.fingerprint);
+            oos.writeVarUInt(this.maxFulfillmentLength);
             byte[] result = os.toByteArray();
             return result;
         }catch(Exception e) {
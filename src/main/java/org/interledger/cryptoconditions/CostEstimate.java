@@ -0,0 +1,269 @@
+package org.interledger.cryptoconditions;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.interledger.cryptoconditions.encoding.Base64Url;
+
+/**
+ * Estimated cost of checking a fulfillment against a condition and
+ * validating it, computed without any cryptographic operation.
+ *
+ * The estimate counts signature verifications (RSA by modulus size),
+ * bytes hashed, for both the condition match and the signatures, and the
+ * depth of the tree. It can be computed from a decoded fulfillment or
+ * straight from its binary or URI encoding, in which case keys are not
+ * decoded and nothing but the lengths is parsed.
+ *
+ * Hashed bytes are approximate: every prefix level hashes its prefix and
+ * an encoded subcondition of about {@link #CONDITION_LENGTH} bytes, and
+ * every signature hashes the message with all the prefixes of the chain.
+ *
+ * Threshold fulfillments are not supported, ThresholdSHA256Fulfillment
+ * can't be constructed yet.
+ */
+public final class CostEstimate {
+
+    /** Approximate length of an encoded condition. */
+    public static final int CONDITION_LENGTH = 40;
+    /* X.509 SubjectPublicKeyInfo hashed by Ed25519 generateCondition, plus R of the signature. */
+    private static final int ED25519_CONDITION_BYTES = 44;
+    private static final int ED25519_SIGNATURE_BYTES = 64;
+
+    private int depth;
+    private int ed25519Verifies;
+    private int rsaVerifies;
+    private final SortedMap<Integer, Integer> rsaVerifiesByModulusBits = new TreeMap<Integer, Integer>();
+    private long bytesHashed;
+
+    private CostEstimate() {
+    }
+
+    /**
+     * Estimate the cost of a decoded fulfillment.
+     *
+     * @param messageLength length of the message the fulfillment will validate
+     * @throws IllegalArgumentException for unsupported fulfillment types
+     */
+    public static CostEstimate of(Fulfillment fulfillment, int messageLength) {
+        CostEstimate estimate = new CostEstimate();
+        long prefixLength = 0;
+        Fulfillment node = fulfillment;
+        while (node instanceof PrefixSha256Fulfillment) {
+            PrefixSha256Fulfillment prefix = (PrefixSha256Fulfillment) node;
+            estimate.prefix(prefix.prefix.length);
+            prefixLength += prefix.prefix.length;
+            node = prefix.subfulfillment;
+        }
+        long signed = prefixLength + messageLength;
+        if (node instanceof PreimageSha256Fulfillment) {
+            estimate.preimage(node.getPayload().length);
+        } else if (node instanceof Ed25519Fulfillment) {
+            estimate.ed25519(signed);
+        } else if (node instanceof RsaSha256Fulfillment) {
+            int bits = ((RsaSha256Fulfillment) node).getModulus().bitLength();
+            estimate.rsa(bits, (bits + 7) / 8, signed);
+        } else {
+            throw new IllegalArgumentException("Can't estimate the cost of "
+                    + (node == null ? "a missing subfulfillment" : node.getType() + " fulfillments"));
+        }
+        return estimate;
+    }
+
+    /**
+     * Estimate the cost of a binary encoded fulfillment (see
+     * {@link Fulfillment#serializeBinary()}) without decoding it.
+     *
+     * @throws IllegalArgumentException if the encoding is malformed or holds
+     *             unsupported fulfillment types
+     */
+    public static CostEstimate ofBinary(byte[] encoded, int messageLength) {
+        Scanner scanner = new Scanner(encoded, 0, encoded.length);
+        int type = scanner.read16BitUInt();
+        int length = scanner.readLengthIndicator();
+        scanner.require(length);
+        return scan(type, new Scanner(encoded, scanner.position, length), messageLength);
+    }
+
+    /**
+     * Estimate the cost of a fulfillment URI without decoding the fulfillment.
+     *
+     * @throws IllegalArgumentException if the URI is malformed or holds
+     *             unsupported fulfillment types
+     */
+    public static CostEstimate ofURI(String uri, int messageLength) {
+        String[] pieces = uri.split(":");
+        if (pieces.length < 2 || pieces.length > 3 || !"cf".equals(pieces[0])) {
+            throw new IllegalArgumentException("Not a fulfillment URI: " + uri);
+        }
+        int type;
+        try {
+            type = Integer.parseInt(pieces[1], 16);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a fulfillment URI: " + uri);
+        }
+        byte[] payload = Base64Url.decode(pieces.length == 3 ? pieces[2] : "");
+        return scan(type, new Scanner(payload, 0, payload.length), messageLength);
+    }
+
+    /*
+     * Walk a chain of prefix payloads down to the leaf. The scanner covers
+     * the payload of a fulfillment of the given type.
+     */
+    private static CostEstimate scan(int type, Scanner payload, int messageLength) {
+        CostEstimate estimate = new CostEstimate();
+        long prefixLength = 0;
+        while (type == ConditionType.PREFIX_SHA256.getTypeCode()) {
+            int length = payload.readLengthIndicator();
+            payload.skip(length);
+            estimate.prefix(length);
+            prefixLength += length;
+            type = payload.read16BitUInt();
+            int subLength = payload.readLengthIndicator();
+            payload.require(subLength);
+            payload = new Scanner(payload.data, payload.position, subLength);
+        }
+        long signed = prefixLength + messageLength;
+        if (type == ConditionType.PREIMAGE_SHA256.getTypeCode()) {
+            estimate.preimage(payload.remaining());
+        } else if (type == ConditionType.ED25519.getTypeCode()) {
+            estimate.ed25519(signed);
+        } else if (type == ConditionType.RSA_SHA256.getTypeCode()) {
+            int modulusLength = payload.readLengthIndicator();
+            payload.require(modulusLength);
+            int bits = payload.bitLength(modulusLength);
+            estimate.rsa(bits, (bits + 7) / 8, signed);
+        } else {
+            throw new IllegalArgumentException("Can't estimate the cost of fulfillment type " + type);
+        }
+        return estimate;
+    }
+
+    private void prefix(int prefixLength) {
+        depth++;
+        bytesHashed += prefixLength + CONDITION_LENGTH;
+    }
+
+    private void preimage(int preimageLength) {
+        depth++;
+        bytesHashed += preimageLength;
+    }
+
+    private void ed25519(long signedLength) {
+        depth++;
+        ed25519Verifies++;
+        bytesHashed += ED25519_CONDITION_BYTES + ED25519_SIGNATURE_BYTES + signedLength;
+    }
+
+    private void rsa(int modulusBits, int modulusLength, long signedLength) {
+        depth++;
+        rsaVerifies++;
+        Integer count = rsaVerifiesByModulusBits.get(modulusBits);
+        rsaVerifiesByModulusBits.put(modulusBits, count == null ? 1 : count + 1);
+        bytesHashed += modulusLength + signedLength;
+    }
+
+    /** Nesting depth, 1 for a single leaf. */
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getEd25519Verifies() {
+        return ed25519Verifies;
+    }
+
+    public int getRsaVerifies() {
+        return rsaVerifies;
+    }
+
+    /**
+     * @return number of RSA verifications per modulus size in bits
+     */
+    public SortedMap<Integer, Integer> getRsaVerifiesByModulusBits() {
+        return Collections.unmodifiableSortedMap(rsaVerifiesByModulusBits);
+    }
+
+    /**
+     * @return the largest RSA modulus in bits, 0 without RSA
+     */
+    public int getMaxRsaModulusBits() {
+        return rsaVerifiesByModulusBits.isEmpty() ? 0 : rsaVerifiesByModulusBits.lastKey();
+    }
+
+    public long getBytesHashed() {
+        return bytesHashed;
+    }
+
+    @Override
+    public String toString() {
+        return "depth=" + depth + " ed25519=" + ed25519Verifies + " rsa=" + rsaVerifiesByModulusBits
+                + " bytesHashed=" + bytesHashed;
+    }
+
+    /*
+     * Bounds-checked reader of OER lengths over a slice, nothing is copied.
+     */
+    private static final class Scanner {
+        final byte[] data;
+        int position;
+        final int limit;
+
+        Scanner(byte[] data, int offset, int length) {
+            this.data = data;
+            this.position = offset;
+            this.limit = offset + length;
+        }
+
+        int remaining() {
+            return limit - position;
+        }
+
+        void require(int length) {
+            if (length < 0 || length > limit - position) {
+                throw new IllegalArgumentException("Truncated fulfillment at offset " + position);
+            }
+        }
+
+        void skip(int length) {
+            require(length);
+            position += length;
+        }
+
+        int read8BitUInt() {
+            require(1);
+            return data[position++] & 0xff;
+        }
+
+        int read16BitUInt() {
+            return (read8BitUInt() << 8) | read8BitUInt();
+        }
+
+        int readLengthIndicator() {
+            int length = read8BitUInt();
+            if (length < 128) {
+                return length;
+            }
+            int lengthOfLength = length - 128;
+            if (lengthOfLength == 0 || lengthOfLength > 3) {
+                throw new IllegalArgumentException("Unsupported length indicator at offset " + (position - 1));
+            }
+            length = 0;
+            for (int i = 0; i < lengthOfLength; i++) {
+                length = (length << 8) | read8BitUInt();
+            }
+            return length;
+        }
+
+        /* Bit length of the unsigned big-endian integer in the next length bytes. */
+        int bitLength(int length) {
+            for (int i = position; i < position + length; i++) {
+                int b = data[i] & 0xff;
+                if (b != 0) {
+                    return (position + length - i - 1) * 8 + (32 - Integer.numberOfLeadingZeros(b));
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.interledger.cryptoconditions;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.interledger.cryptoconditions.encoding.DecodeResult;
+import org.interledger.cryptoconditions.encoding.FulfillmentDecoder;
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+/**
+ * Library wide operations.
+ *
+ * Providers and curve tables are loaded on first use, so a process only
+ * pays for the types it handles, but the first fulfillments of each type
+ * are slow: they load classes, register providers and run interpreted code.
+ * {@link #warmUp} does that work up front, before traffic arrives.
+ */
+public final class CryptoConditions {
+
+    /** Iterations of the hashing paths run by {@link #warmUp(ConditionType...)}. */
+    public static final int DEFAULT_WARM_UP_ITERATIONS = 10000;
+    /* Signature checks cost hundreds of hashes, run them that many times fewer. */
+    private static final int SIGNATURE_ITERATION_DIVISOR = 20;
+    private static final int RSA_WARM_UP_BITS = 1024;
+
+    private CryptoConditions() {
+    }
+
+    /**
+     * Warm up the given types with {@link #DEFAULT_WARM_UP_ITERATIONS}.
+     *
+     * @see #warmUp(int, ConditionType...)
+     */
+    public static Map<ConditionType, Long> warmUp(ConditionType... types) {
+        return warmUp(DEFAULT_WARM_UP_ITERATIONS, types);
+    }
+
+    /**
+     * Initialize the crypto backends of the given types and run their hot
+     * paths on throw-away fulfillments: decoding, condition generation and
+     * URI round trips, verification against the condition, compiled
+     * verification programs and signing.
+     *
+     * Ed25519 requires the disclaimer to be acknowledged first (see
+     * {@link Ed25519Fulfillment#UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues()}).
+     * Warm-up operations are recorded by metrics, flight recorder events and
+     * traces like any other.
+     *
+     * @param iterations runs of the hashing paths, signature paths run
+     *            1/20th as many times, at least once
+     * @return nanoseconds spent on each type, initialization included
+     * @throws IllegalArgumentException for THRESHOLD_SHA256, which can't be
+     *             constructed yet
+     */
+    public static Map<ConditionType, Long> warmUp(int iterations, ConditionType... types) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be positive.");
+        }
+        Map<ConditionType, Long> spent = new EnumMap<ConditionType, Long>(ConditionType.class);
+        for (ConditionType type : types) {
+            if (type == ConditionType.THRESHOLD_SHA256) {
+                throw new IllegalArgumentException(type + " fulfillments can't be warmed up");
+            }
+        }
+        for (ConditionType type : types) {
+            long start = System.nanoTime();
+            warmUp(type, iterations);
+            Long previous = spent.get(type);
+            spent.put(type, (previous == null ? 0 : previous) + System.nanoTime() - start);
+        }
+        return spent;
+    }
+
+    private static void warmUp(ConditionType type, int iterations) {
+        byte[] data = new byte[32];
+        MessagePayload message = new MessagePayload(data);
+        int signatureIterations = Math.max(1, iterations / SIGNATURE_ITERATION_DIVISOR);
+        switch (type) {
+            case PREIMAGE_SHA256:
+                exercise(PreimageSha256Fulfillment.BuildFromSecrets(data), message, iterations);
+                break;
+            case PREFIX_SHA256:
+                exercise(PrefixSha256Fulfillment.BuildFromParams(data,
+                        PreimageSha256Fulfillment.BuildFromSecrets(data)), message, iterations);
+                break;
+            case ED25519:
+                Ed25519Signer ed25519 = new Ed25519Signer(new KeyPayload(data));
+                for (int i = 0; i < signatureIterations; i++) {
+                    ed25519.signSerialized(message);
+                }
+                exercise(ed25519.sign(message), message, signatureIterations);
+                break;
+            case RSA_SHA256:
+                RsaSha256Signer rsa = new RsaSha256Signer(generateRsaKey());
+                for (int i = 0; i < signatureIterations; i++) {
+                    rsa.signSerialized(message);
+                }
+                exercise(rsa.sign(message), message, signatureIterations);
+                break;
+            default:
+                throw new IllegalArgumentException(type + " fulfillments can't be warmed up");
+        }
+    }
+
+    private static void exercise(Fulfillment fulfillment, MessagePayload message, int iterations) {
+        FulfillmentDecoder decoder = new FulfillmentDecoder();
+        DecodeResult<Fulfillment> result = new DecodeResult<Fulfillment>();
+        byte[] encoded = fulfillment.serializeBinary();
+        String uri = fulfillment.toURI();
+        Condition condition = fulfillment.getCondition();
+        for (int i = 0; i < iterations; i++) {
+            result.reset();
+            if (!decoder.tryDecode(encoded, result)) {
+                throw new IllegalStateException("Warm-up fulfillment not decoded: " + result.getError());
+            }
+            Fulfillment decoded = result.getValue();
+            Condition parsed = new ConditionImpl(decoded.getCondition().toURI());
+            boolean verified = FulfillmentVerifier.verify(parsed, decoded, message)
+                    && VerificationProgram.verify(condition, decoded, message)
+                    && FulfillmentFactory.getFulfillmentFromURI(uri).validate(message);
+            if (!verified) {
+                throw new IllegalStateException("Warm-up fulfillment not verified: " + uri);
+            }
+        }
+    }
+
+    private static RSAPrivateCrtKey generateRsaKey() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(RSA_WARM_UP_BITS);
+            return (RSAPrivateCrtKey) generator.generateKeyPair().getPrivate();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e.toString(), e);
+        }
+    }
+}
@@ -1,24 +1,19 @@
 package org.interledger.cryptoconditions;
 
-import java.util.EnumSet;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 
-import java.security.MessageDigest;
 import java.security.PublicKey;
-import java.security.PrivateKey;
 
 import java.security.Signature;
 
 import net.i2p.crypto.eddsa.EdDSAPublicKey;
-import net.i2p.crypto.eddsa.EdDSAPrivateKey;
-import net.i2p.crypto.eddsa.EdDSAEngine;
 import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
 import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
 import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
-import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
 
-import org.interledger.cryptoconditions.encoding.FulfillmentOutputStream;
+import org.interledger.cryptoconditions.jfr.FlightRecorderEvents;
+import org.interledger.cryptoconditions.spi.CryptoBackends;
+import org.interledger.cryptoconditions.spi.Primitive;
+import org.interledger.cryptoconditions.trace.Tracing;
 import org.interledger.cryptoconditions.types.*;
 
 /**
@@ -56,71 +51,46 @@ public class Ed25519Fulfillment extends FulfillmentBase {
      *          "B" beeing the generator.
      *   (it’s the multiplications that take the most time: everything else is trivial by comparison)
      */
-    private static boolean userIsAwareOfSecurityIssues = false;
+    /* Usually acknowledged by the thread that starts the workers. */
+    private static volatile boolean userIsAwareOfSecurityIssues = false;
     public static final int PUBKEY_LENGTH = 32;
     public static final int SIGNATURE_LENGTH = 64;
     public static final int FULFILLMENT_LENGTH = PUBKEY_LENGTH + SIGNATURE_LENGTH;
 
+    /*
+     * generateCondition uses publicKey.getEncoded(), i.e. the X.509
+     * SubjectPublicKeyInfo of the key: this fixed prefix followed by the raw
+     * 32 byte key.
+     */
+    private static final byte[] X509_PUBLIC_KEY_PREFIX = {
+        0x30, 0x2d, 0x30, 0x08, 0x06, 0x03, 0x2b, 0x65, 0x64, 0x0a, 0x01, 0x01, 0x03, 0x21, 0x00
+    };
+    private static final int BASE_FEATURES = FeatureSuite.ED25519.toInt();
+
     private final PublicKey publicKey;
-    private SignaturePayload signature;
+    /* Raw 32 byte key, null if publicKey is not an EdDSAPublicKey. */
+    final byte[] publicKeyBytes;
+    final SignaturePayload signature;
 
-    private static EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName("ed25519-sha-512");
+    /* Loading the curve precomputes its tables, wait for the first key. */
+    private static final class SpecHolder {
+        static final EdDSAParameterSpec SPEC = EdDSANamedCurveTable.getByName("ed25519-sha-512");
+    }
 
     public static PublicKey publicKeyFromByteArray(KeyPayload pub_key) {
-        EdDSAPublicKeySpec pubKey = new EdDSAPublicKeySpec(pub_key.payload, spec);
+        EdDSAPublicKeySpec pubKey = new EdDSAPublicKeySpec(pub_key.asByteArray(), SpecHolder.SPEC);
         return new EdDSAPublicKey(pubKey);
     }
 
-    private static PublicKey _publicKeyFromPrivateKey(EdDSAPrivateKeySpec privKey) {
-        EdDSAPublicKeySpec pubKeySpec = new EdDSAPublicKeySpec(privKey.getA(), spec);
-        return new EdDSAPublicKey(pubKeySpec);
-    }
-
     /*
      * Returns an initialized instance.
-     * 
-     * if publicKeySource is null it's generated from the privateKey.
+     *
+     * Expands the key seed on every call. Use an Ed25519Signer to sign
+     * several messages with the same key.
      */
     public static Ed25519Fulfillment BuildFromSecrets(
             KeyPayload priv_key_sheed, MessagePayload message) {
-        if (!Ed25519Fulfillment.userIsAwareOfSecurityIssues) {
-            throwSecurityIssuesWarning();
-        }
-
-        // TODO:(?) generating the PrivateKey from the key_sheed is "slow". Allow to use a precomputed one?
-        EdDSAPrivateKeySpec privKeySpec = new EdDSAPrivateKeySpec(priv_key_sheed.payload, spec);
-        PrivateKey privKey = new EdDSAPrivateKey(privKeySpec);
-        PublicKey pubKey = _publicKeyFromPrivateKey(privKeySpec);
-
-        // Ref: EdDSAEngineTest.java
-        // TODO:(?) Check reuse of sgr
-        SignaturePayload signature;
-        try {
-            Signature sgr;
-            sgr = new EdDSAEngine(MessageDigest.getInstance("SHA-512"));
-            sgr.initSign(privKey);
-            sgr.update(message.payload);
-            signature = new SignaturePayload(sgr.sign());
-        } catch (Exception e) {
-            throw new RuntimeException(e.toString(), e);
-        }
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        FulfillmentOutputStream ffos = new FulfillmentOutputStream(buffer);
-        byte[] PublicKey32Bytes = ((EdDSAPublicKey) pubKey).getA().toByteArray();
-
-        try {
-            ffos.writeOctetString(PublicKey32Bytes);
-            ffos.writeOctetString(signature.payload);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        } finally {
-            ffos.close();
-        }
-
-        Ed25519Fulfillment result = new Ed25519Fulfillment(
-                ConditionType.ED25519, new FulfillmentPayload(buffer.toByteArray()),
-                pubKey, signature);
-        return result;
+        return new Ed25519Signer(priv_key_sheed).sign(message);
     }
 
     /*
@@ -128,10 +98,10 @@ public class Ed25519Fulfillment extends FulfillmentBase {
      */
     public Ed25519Fulfillment(ConditionType type, FulfillmentPayload payload, PublicKey publicKey, SignaturePayload signature) {
         super(type, payload);
-        if (!Ed25519Fulfillment.userIsAwareOfSecurityIssues) {
-            throwSecurityIssuesWarning();
-        }
+        checkSecurityIssuesAcknowledged();
         this.publicKey = publicKey;
+        this.publicKeyBytes = (publicKey instanceof EdDSAPublicKey)
+                ? ((EdDSAPublicKey) publicKey).getAbyte() : null;
         this.signature = signature;
     }
 
@@ -145,12 +115,10 @@ public class Ed25519Fulfillment extends FulfillmentBase {
         if (this.publicKey == null) {
             throw new RuntimeException("this.publicKey not yet defined ");
         }
-        EnumSet<FeatureSuite> features = EnumSet.of(FeatureSuite.ED25519);
-
         try {
             return new ConditionImpl(
                     ConditionType.ED25519,
-                    features,
+                    BASE_FEATURES,
                     this.publicKey.getEncoded(),
                     FULFILLMENT_LENGTH);
         } catch (Exception e) {
@@ -158,18 +126,53 @@ public class Ed25519Fulfillment extends FulfillmentBase {
         }
     }
 
+    /**
+     * Raw key compare against the expected fingerprint, no key encoding.
+     */
     @Override
-    public boolean validate(MessagePayload message) {
+    protected boolean fulfills(Condition expected) {
+        if (publicKeyBytes == null) {
+            return super.fulfills(expected);
+        }
+        if (expected.getType() != ConditionType.ED25519
+                || expected.getMaxFulfillmentLength() != FULFILLMENT_LENGTH) {
+            return false;
+        }
+        byte[] fingerprint = expected.getFingerprint();
+        int prefixLength = X509_PUBLIC_KEY_PREFIX.length;
+        if (fingerprint.length != prefixLength + publicKeyBytes.length) {
+            return false;
+        }
+        for (int idx = 0; idx < prefixLength; idx++) {
+            if (fingerprint[idx] != X509_PUBLIC_KEY_PREFIX[idx]) {
+                return false;
+            }
+        }
+        for (int idx = 0; idx < publicKeyBytes.length; idx++) {
+            if (fingerprint[prefixLength + idx] != publicKeyBytes[idx]) {
+                return false;
+            }
+        }
+        return expected.getFeatureBitmask() == BASE_FEATURES;
+    }
+
+    @Override
+    protected boolean validateMessage(MessagePayload message) {
         if (this.publicKey == null) {
             throw new RuntimeException("publicKey not initialized");
         }
+        Tracing.countEd25519Verify();
+        Object event = FlightRecorderEvents.begin(FlightRecorderEvents.SIGNATURE);
+        boolean verified = false;
         try {
-            Signature sgr = new EdDSAEngine(MessageDigest.getInstance("SHA-512"));
-            sgr.initVerify(this.publicKey);
-            sgr.update(message.payload);
-            return sgr.verify(signature.payload);
+            Signature sgr = CryptoBackends.get(Primitive.ED25519).newEd25519Verifier(this.publicKey);
+            sgr.update(message.payload, message.offset, message.length);
+            verified = sgr.verify(signature.payload, signature.offset, signature.length);
+            return verified;
         } catch (Exception e) {
             throw new RuntimeException(e.toString(), e);
+        } finally {
+            FlightRecorderEvents.commit(event, ConditionType.ED25519, message.length, verified);
         }
     }
 
@@ -177,6 +180,12 @@ public class Ed25519Fulfillment extends FulfillmentBase {
         userIsAwareOfSecurityIssues = true;
     }
 
+    static void checkSecurityIssuesAcknowledged() {
+        if (!Ed25519Fulfillment.userIsAwareOfSecurityIssues) {
+            throwSecurityIssuesWarning();
+        }
+    }
+
     private static void throwSecurityIssuesWarning() {
         throw new RuntimeException(
                 "\n"
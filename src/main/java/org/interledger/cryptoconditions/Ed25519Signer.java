@@ -0,0 +1,159 @@
+package org.interledger.cryptoconditions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.PublicKey;
+import java.security.Signature;
+
+import net.i2p.crypto.eddsa.EdDSAPrivateKey;
+import net.i2p.crypto.eddsa.EdDSAPublicKey;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+
+import org.interledger.cryptoconditions.encoding.FulfillmentOutputStream;
+import org.interledger.cryptoconditions.jfr.FlightRecorderEvents;
+import org.interledger.cryptoconditions.spi.CryptoBackends;
+import org.interledger.cryptoconditions.spi.Primitive;
+import org.interledger.cryptoconditions.types.FulfillmentPayload;
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+import org.interledger.cryptoconditions.types.SignaturePayload;
+
+/**
+ * Signs Ed25519 fulfillments with a fixed key.
+ *
+ * The private key seed is expanded (SHA-512 and scalar multiplication) once,
+ * when the signer is created, instead of on every
+ * {@link Ed25519Fulfillment#BuildFromSecrets}. Each thread keeps its own
+ * engine, from the selected {@link CryptoBackends backend}, initialized with
+ * the expanded key. Backends other than ed25519-java convert it to their
+ * own key once per thread.
+ *
+ * Instances are thread-safe.
+ */
+public final class Ed25519Signer {
+
+    private static final EdDSAParameterSpec SPEC = EdDSANamedCurveTable.getByName("ed25519-sha-512");
+
+    private final EdDSAPrivateKey privateKey;
+    private final PublicKey publicKey;
+    /* Binary encoding of a fulfillment with this key and an all zero signature. */
+    private final byte[] template;
+    private final int signatureOffset;
+
+    private final ThreadLocal<Signature> engines = new ThreadLocal<Signature>() {
+        @Override
+        protected Signature initialValue() {
+            try {
+                return CryptoBackends.get(Primitive.ED25519).newEd25519Signer(privateKey);
+            } catch (Exception e) {
+                throw new RuntimeException(e.toString(), e);
+            }
+        }
+    };
+
+    /**
+     * @param seed 32 byte private key seed
+     */
+    public Ed25519Signer(KeyPayload seed) {
+        Ed25519Fulfillment.checkSecurityIssuesAcknowledged();
+        this.privateKey = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(seed.asByteArray(), SPEC));
+        this.publicKey = new EdDSAPublicKey(new EdDSAPublicKeySpec(privateKey.getA(), SPEC));
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        FulfillmentOutputStream ffos = new FulfillmentOutputStream(buffer);
+        try {
+            ffos.writeConditionType(ConditionType.ED25519);
+            ffos.writeOctetString(encodePayload(new byte[Ed25519Fulfillment.SIGNATURE_LENGTH]));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            ffos.close();
+        }
+        this.template = buffer.toByteArray();
+        this.signatureOffset = template.length - Ed25519Fulfillment.SIGNATURE_LENGTH;
+    }
+
+    public PublicKey getPublicKey() {
+        return publicKey;
+    }
+
+    /**
+     * @return the raw 32 byte public key
+     */
+    public byte[] getPublicKeyBytes() {
+        return privateKey.getAbyte().clone();
+    }
+
+    /**
+     * Sign a message.
+     *
+     * @return the 64 byte signature
+     */
+    public byte[] signature(MessagePayload message) {
+        Signature engine = engines.get();
+        Object event = FlightRecorderEvents.begin(FlightRecorderEvents.SIGNATURE);
+        byte[] signature = null;
+        try {
+            engine.update(message.payload, message.offset, message.length);
+            signature = engine.sign(); // resets the engine, still initialized with the key
+            return signature;
+        } catch (Exception e) {
+            engines.remove();
+            throw new RuntimeException(e.toString(), e);
+        } finally {
+            FlightRecorderEvents.commit(event, ConditionType.ED25519, message.length, signature != null);
+        }
+    }
+
+    /**
+     * Sign a message into a fulfillment.
+     */
+    public Ed25519Fulfillment sign(MessagePayload message) {
+        byte[] signature = signature(message);
+        return new Ed25519Fulfillment(ConditionType.ED25519, FulfillmentPayload.wrap(encodePayload(signature)),
+                publicKey, SignaturePayload.wrap(signature));
+    }
+
+    /**
+     * Sign a message into the binary encoding of its fulfillment (see
+     * {@link Fulfillment#serializeBinary()}), without building the
+     * fulfillment.
+     */
+    public byte[] signSerialized(MessagePayload message) {
+        byte[] signature = signature(message);
+        byte[] result = template.clone();
+        System.arraycopy(signature, 0, result, signatureOffset, signature.length);
+        return result;
+    }
+
+    /**
+     * Sign several messages on the calling thread.
+     *
+     * @return the binary encodings of the fulfillments, in message order
+     */
+    public byte[][] signBatch(MessagePayload[] messages) {
+        byte[][] result = new byte[messages.length][];
+        for (int i = 0; i < messages.length; i++) {
+            result[i] = signSerialized(messages[i]);
+        }
+        return result;
+    }
+
+    private byte[] encodePayload(byte[] signature) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+                Ed25519Fulfillment.FULFILLMENT_LENGTH + 2);
+        FulfillmentOutputStream ffos = new FulfillmentOutputStream(buffer);
+        try {
+            ffos.writeOctetString(privateKey.getAbyte());
+            ffos.writeOctetString(signature);
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            ffos.close();
+        }
+    }
+}
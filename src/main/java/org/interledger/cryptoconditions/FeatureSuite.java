@@ -20,6 +20,14 @@ public enum FeatureSuite {
     private static final int maxByteValue = (2 << (mostSignificantBit)) - 1;
     private final short byteValue;
 
+    /**
+     * Bitmask with every known feature bit set. Any other bit is unsupported.
+     */
+    public static final int ALL_FEATURES = (1 << (mostSignificantBit + 1)) - 1;
+
+    /* values() clones the array on every call. */
+    private static final FeatureSuite[] VALUES = values();
+
     FeatureSuite(int byteValue) {
         if (byteValue > maxByteValue) {
             throw new RuntimeException("Feature Suite not supported");
@@ -32,25 +40,27 @@ public enum FeatureSuite {
         return this.byteValue;
     }
 
+    /**
+     * Check that every feature required by a condition is supported.
+     *
+     * @param requiredBitMask features required, e.g. Condition.getFeatureBitmask()
+     * @param supportedBitMask features an implementation supports
+     * @return true if no required feature is missing from supportedBitMask
+     */
+    public static boolean isSupported(int requiredBitMask, int supportedBitMask) {
+        return (requiredBitMask & ~supportedBitMask) == 0;
+    }
+
+    /**
+     * Convenience view of a bitmask as a set. The bitmask is the canonical
+     * form, prefer it in hot paths.
+     */
     public static EnumSet<FeatureSuite> bitMask2EnumSet(int bitMask) {
         EnumSet<FeatureSuite> result = EnumSet.noneOf(FeatureSuite.class);
-        if ((bitMask & 1) != 0) {
-            result.add(FeatureSuite.SHA_256);
-        }
-        if ((bitMask & 1 << 1) != 0) {
-            result.add(FeatureSuite.PREIMAGE);
-        }
-        if ((bitMask & 1 << 2) != 0) {
-            result.add(FeatureSuite.PREFIX);
-        }
-        if ((bitMask & 1 << 3) != 0) {
-            result.add(FeatureSuite.THRESHOLD);
-        }
-        if ((bitMask & 1 << 4) != 0) {
-            result.add(FeatureSuite.RSA_PSS);
-        }
-        if ((bitMask & 1 << 5) != 0) {
-            result.add(FeatureSuite.ED25519);
+        for (FeatureSuite feature : VALUES) {
+            if ((bitMask & feature.byteValue) != 0) {
+                result.add(feature);
+            }
         }
         return result;
     }
@@ -58,26 +68,7 @@ public enum FeatureSuite {
     public static int EnumSet2bitMask(EnumSet<FeatureSuite> featureSet) {
         int result = 0;
         for (FeatureSuite feature : featureSet) {
-            switch (feature) {
-                case SHA_256:
-                    result = result | SHA_256.toInt();
-                    break;
-                case PREIMAGE:
-                    result = result | PREIMAGE.toInt();
-                    break;
-                case PREFIX:
-                    result = result | PREFIX.toInt();
-                    break;
-                case THRESHOLD:
-                    result = result | THRESHOLD.toInt();
-                    break;
-                case RSA_PSS:
-                    result = result | RSA_PSS.toInt();
-                    break;
-                case ED25519:
-                    result = result | ED25519.toInt();
-                    break;
-            }
+            result |= feature.byteValue;
         }
         return result;
     }
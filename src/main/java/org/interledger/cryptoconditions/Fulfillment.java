@@ -1,5 +1,6 @@
 package org.interledger.cryptoconditions;
 
+import java.nio.ByteBuffer;
 import java.util.EnumSet;
 
 import org.interledger.cryptoconditions.types.*;
@@ -35,7 +36,16 @@ public interface Fulfillment {
      *
      * @see FeatureSuite
      *
-     * @return the type of the condition that this fulfills
+     * @return bitmask of the features required by the condition that this fulfills
+     */
+    int getFeatureBitmask();
+
+    /**
+     * Convenience view of getFeatureBitmask() as a newly allocated set.
+     *
+     * @see FeatureSuite
+     *
+     * @return the features required by the condition that this fulfills
      */
     EnumSet<FeatureSuite> getFeatures();
 
@@ -81,4 +91,14 @@ public interface Fulfillment {
      * @return {Buffer} Serialized fulfillment
      */
     byte[] serializeBinary();
+
+    /**
+     * Read-only view of the binary encoding returned by serializeBinary().
+     *
+     * Implementations may return a view of a cached encoding so hot callers
+     * avoid re-encoding or copying.
+     *
+     * @return read-only buffer positioned at the start of the encoding
+     */
+    ByteBuffer toByteBuffer();
 }
@@ -1,29 +1,40 @@
 package org.interledger.cryptoconditions;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.EnumSet;
 
 import org.interledger.cryptoconditions.types.*;
 
 import org.interledger.cryptoconditions.encoding.Base64Url;
 import org.interledger.cryptoconditions.encoding.FulfillmentOutputStream;
+import org.interledger.cryptoconditions.jfr.FlightRecorderEvents;
+import org.interledger.cryptoconditions.metrics.Metrics;
+import org.interledger.cryptoconditions.metrics.Operation;
+import org.interledger.cryptoconditions.trace.TraceNode;
+import org.interledger.cryptoconditions.trace.Tracing;
 
+/**
+ * Base of the fulfillment types.
+ *
+ * Fulfillments are immutable: every field is final and set by the
+ * constructor, except the lazily computed condition and encodings below.
+ * Instances can be shared between threads without synchronization, also
+ * when published through a data race.
+ */
 public abstract class FulfillmentBase implements Fulfillment {
 
-    protected FulfillmentPayload payload;
-    /*
-     *  condition can't be declared final since it can't be initialized
-     *  in the constructor. Nevertheless, we can force to init it in generateCondition
-     *  by passing only final immutable parameters as input.
-     */
-    private Condition condition;
+    protected final FulfillmentPayload payload;
 
     /*
-     * Default constructor. Raise exception to force use of child classes.
+     * Lazily computed condition and encodings. They only depend on final
+     * fields, so racing threads compute identical values and whichever
+     * write wins is fine. volatile guarantees the content is visible once
+     * the reference is.
      */
-    FulfillmentBase() {
-//        throw new RuntimeException("Use a child class constructor");
-    }
+    private volatile Condition condition;
+    private volatile byte[] encoded;
+    private volatile String uri;
 
     /*
      * Create from URI-encoded string
@@ -41,10 +52,41 @@ public abstract class FulfillmentBase implements Fulfillment {
     }
 
     final public Condition getCondition() {
-        if (condition == null) {
-            condition = generateCondition();
+        Condition result = this.condition;
+        if (result == null) {
+            int size = this.payload == null ? 0 : this.payload.length;
+            long start = Metrics.start();
+            Object event = FlightRecorderEvents.begin(FlightRecorderEvents.GENERATE_CONDITION);
+            TraceNode node = Tracing.enter(TraceNode.Kind.GET_CONDITION, this.getType(), size);
+            boolean success = false;
+            try {
+                result = generateCondition();
+                this.condition = result;
+                success = true;
+            } finally {
+                Tracing.exit(node, success);
+                FlightRecorderEvents.commit(event, this.getType(), size, success);
+                Metrics.stop(start, this.getType(), Operation.GENERATE_CONDITION, size, success);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    final public boolean validate(MessagePayload message) {
+        int size = message == null ? 0 : message.length;
+        long start = Metrics.start();
+        Object event = FlightRecorderEvents.begin(FlightRecorderEvents.VALIDATE);
+        TraceNode node = Tracing.enter(TraceNode.Kind.VALIDATE, this.getType(), size);
+        boolean valid = false;
+        try {
+            valid = validateMessage(message);
+            return valid;
+        } finally {
+            Tracing.exit(node, valid);
+            FlightRecorderEvents.commit(event, this.getType(), size, valid);
+            Metrics.stop(start, this.getType(), Operation.VALIDATE, size, valid);
         }
-        return condition;
     }
 
     @Override
@@ -61,19 +103,31 @@ public abstract class FulfillmentBase implements Fulfillment {
         return this.payload;
     }
 
+    @Override
+    final public int getFeatureBitmask() {
+        return this.getCondition().getFeatureBitmask();
+    }
+
     @Override
     final public EnumSet<FeatureSuite> getFeatures() {
-        if (this.condition == null) {
-            this.condition = this.generateCondition();
-        }
-        return this.condition.getFeatures();
+        return FeatureSuite.bitMask2EnumSet(this.getFeatureBitmask());
     }
 
     @Override
     final public String toURI() {
+        String result = this.uri;
+        if (result == null) {
+            result = encodeURI(this.getType(), this.getPayload());
+            this.uri = result;
+        }
+        return result;
+    }
+
+    /* The URI toURI memoises, computed every time. */
+    static String encodeURI(ConditionType type, FulfillmentPayload payload) {
         return "cf"
-                + ":" + Integer.toHexString(this.getType().getTypeCode())
-                + ":" + Base64Url.encode(this.getPayload().payload);
+                + ":" + Integer.toHexString(type.getTypeCode())
+                + ":" + Base64Url.encode(payload.payload, payload.offset, payload.length);
     }
 
     @Override
@@ -83,11 +137,29 @@ public abstract class FulfillmentBase implements Fulfillment {
 
     @Override
     final public byte[] serializeBinary () {
+        return getEncoded().clone();
+    }
+
+    @Override
+    final public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(getEncoded()).asReadOnlyBuffer();
+    }
+
+    private byte[] getEncoded() {
+        byte[] result = this.encoded;
+        if (result == null) {
+            result = encode();
+            this.encoded = result;
+        }
+        return result;
+    }
+
+    private byte[] encode() {
         ByteArrayOutputStream os = new ByteArrayOutputStream();
         FulfillmentOutputStream oos = new FulfillmentOutputStream(os);
         try{
             oos.write16BitUInt(this.getType().getTypeCode());
-            oos.writeOctetString(this.payload.payload);
+            oos.writeOctetString(this.payload.payload, this.payload.offset, this.payload.length);
             byte[] result = os.toByteArray();
             return result;
         }catch(Exception e) {
@@ -95,8 +167,26 @@ public abstract class FulfillmentBase implements Fulfillment {
         } finally {
             oos.close();
         }
-      }
-    
+    }
+
+    /**
+     * Check whether this fulfillment generates the expected condition.
+     *
+     * This default implementation compares against getCondition(). Subclasses
+     * override it to compare type, max fulfillment length and fingerprint
+     * with the least work possible and without allocating, so mismatches are
+     * rejected before any costly operation.
+     *
+     * @param expected condition the fulfillment must fulfill
+     * @return true if getCondition() would be equal to expected
+     */
+    protected boolean fulfills(Condition expected) {
+        if (expected.getType() != this.getType()) {
+            return false;
+        }
+        return FulfillmentVerifier.sameCondition(expected, this.getCondition());
+    }
+
     /**
      * Generate the condition for this fulfillment
      *
@@ -107,4 +197,12 @@ public abstract class FulfillmentBase implements Fulfillment {
      */
     // TODO:(0) make private. Only getCondition must call it. 
     abstract protected Condition generateCondition();
+
+    /**
+     * Validate this fulfillment against message. Called by validate, which
+     * records metrics around it.
+     *
+     * @return {boolean} Validation result
+     */
+    abstract protected boolean validateMessage(MessagePayload message);
 }
@@ -5,15 +5,75 @@ import java.io.ByteArrayOutputStream;
 import java.util.regex.Pattern;
 
 import org.interledger.cryptoconditions.encoding.Base64Url;
+import org.interledger.cryptoconditions.encoding.DecodeError;
+import org.interledger.cryptoconditions.encoding.DecodeResult;
+import org.interledger.cryptoconditions.encoding.FulfillmentDecoder;
 import org.interledger.cryptoconditions.encoding.FulfillmentInputStream;
 import org.interledger.cryptoconditions.encoding.FulfillmentOutputStream;
+import org.interledger.cryptoconditions.metrics.Metrics;
+import org.interledger.cryptoconditions.metrics.Operation;
+import org.interledger.cryptoconditions.types.FulfillmentPayload;
 
 public class FulfillmentFactory {
 
     private static final String FULFILLMENT_FORMAT = "^cf:([1-9a-f][0-9a-f]{0,3}|0):[a-zA-Z0-9_-]*$";
     private static final Pattern fulfillmentFormat = Pattern.compile(FULFILLMENT_FORMAT);
+    private static final FulfillmentDecoder DECODER = new FulfillmentDecoder();
 
     public static Fulfillment getFulfillmentFromURI(String uri) {
+        long start = Metrics.start();
+        Fulfillment result = null;
+        try {
+            result = parseFulfillmentURI(uri);
+            return result;
+        } finally {
+            Metrics.stop(start, result == null ? null : result.getType(), Operation.PARSE_FULFILLMENT_URI,
+                    uri == null ? 0 : uri.length(), result != null);
+        }
+    }
+
+    /**
+     * Parse a fulfillment URI without throwing on bad input.
+     *
+     * The URI is only read during the call, it can be a reused view of a
+     * larger buffer.
+     *
+     * @param result receives the fulfillment or the reason of the rejection,
+     *            offsets are in the decoded payload once the URI itself is
+     *            well formed
+     * @return true if the URI was parsed
+     */
+    public static boolean tryParseFulfillmentURI(CharSequence uri, DecodeResult<Fulfillment> result) {
+        long start = Metrics.start();
+        try {
+            return tryParse(uri, result);
+        } finally {
+            Metrics.stop(start, result.isSuccess() ? result.getValue().getType() : null,
+                    Operation.PARSE_FULFILLMENT_URI, uri == null ? 0 : uri.length(), result.isSuccess());
+        }
+    }
+
+    private static boolean tryParse(CharSequence uri, DecodeResult<Fulfillment> result) {
+        result.reset();
+        if (uri == null || !UriFields.startsWith(uri, "cf:")) {
+            return result.fail(DecodeError.MALFORMED_URI, 0);
+        }
+        int colon = UriFields.indexOf(uri, ':', 3);
+        long code = UriFields.parseHex(uri, 3, colon < 0 ? uri.length() : colon, 4);
+        if (code < 0 || colon < 0) {
+            return result.fail(DecodeError.MALFORMED_URI, 3);
+        }
+        if (code > ConditionType.ED25519.getTypeCode()) {
+            return result.fail(DecodeError.UNKNOWN_TYPE, 3);
+        }
+        byte[] payload = Base64Url.tryDecode(uri, colon + 1, uri.length());
+        if (payload == null) {
+            return result.fail(DecodeError.MALFORMED_URI, colon + 1);
+        }
+        return DECODER.tryDecode(ConditionType.valueOf((int) code), FulfillmentPayload.wrap(payload), result);
+    }
+
+    private static Fulfillment parseFulfillmentURI(String uri) {
         if (uri == null) {
             throw new IllegalArgumentException("serializedFulfillment == null");
         }
@@ -0,0 +1,64 @@
+package org.interledger.cryptoconditions;
+
+import java.util.Arrays;
+
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+/**
+ * Single entry point to check that a fulfillment fulfills a given condition
+ * for a given message.
+ *
+ * The fulfillment is first matched against the expected condition (type,
+ * max fulfillment length, fingerprint and features), cheapest check first,
+ * and only then validated. Mismatching fulfillments are rejected without
+ * building their condition and without any signature verification.
+ */
+public final class FulfillmentVerifier {
+
+    private FulfillmentVerifier() {
+    }
+
+    /**
+     * Verify a fulfillment against an expected condition and message.
+     *
+     * @param expected the condition that must be fulfilled
+     * @param fulfillment the candidate fulfillment
+     * @param message the message the fulfillment must validate
+     * @return true if fulfillment generates expected and validates message
+     */
+    public static boolean verify(Condition expected, Fulfillment fulfillment, MessagePayload message) {
+        if (expected == null) {
+            throw new IllegalArgumentException("expected condition cannot be null.");
+        }
+        if (fulfillment == null) {
+            throw new IllegalArgumentException("fulfillment cannot be null.");
+        }
+        if (!fulfills(expected, fulfillment)) {
+            return false;
+        }
+        return fulfillment.validate(message);
+    }
+
+    /**
+     * Check that a fulfillment generates the expected condition, without
+     * validating it.
+     *
+     * @return true if fulfillment generates expected
+     */
+    public static boolean fulfills(Condition expected, Fulfillment fulfillment) {
+        if (fulfillment instanceof FulfillmentBase) {
+            return ((FulfillmentBase) fulfillment).fulfills(expected);
+        }
+        if (expected.getType() != fulfillment.getType()) {
+            return false;
+        }
+        return sameCondition(expected, fulfillment.getCondition());
+    }
+
+    static boolean sameCondition(Condition expected, Condition actual) {
+        return expected.getType() == actual.getType()
+                && expected.getMaxFulfillmentLength() == actual.getMaxFulfillmentLength()
+                && Arrays.equals(expected.getFingerprint(), actual.getFingerprint())
+                && expected.getFeatureBitmask() == actual.getFeatureBitmask();
+    }
+}
@@ -3,7 +3,6 @@ package org.interledger.cryptoconditions;
 import java.io.ByteArrayOutputStream;
 
 import java.io.IOException;
-import java.util.EnumSet;
 
 import org.interledger.cryptoconditions.encoding.ConditionOutputStream;
 import org.interledger.cryptoconditions.encoding.FulfillmentOutputStream;
@@ -13,20 +12,17 @@ import org.interledger.cryptoconditions.types.*;
 /**
  * Implementation of a PREFIX-SHA-256 crypto-condition fulfillment
  *
- * TODO Safe synchronized access to members?
+ * Immutable and thread-safe.
  *
  * @author adrianhopebailie
  *
  */
 public class PrefixSha256Fulfillment extends FulfillmentBase {
 
-    private static EnumSet<FeatureSuite> BASE_FEATURES = EnumSet.of(
-            FeatureSuite.SHA_256,
-            FeatureSuite.PREFIX
-    );
+    private static final int BASE_FEATURES = FeatureSuite.SHA_256.toInt() | FeatureSuite.PREFIX.toInt();
 
-    private final byte[] prefix; // TODO:(0) Wrap into PrefixPayload?
-    private final Fulfillment subfulfillment;
+    final byte[] prefix; // TODO:(0) Wrap into PrefixPayload?
+    final Fulfillment subfulfillment;
 
     public PrefixSha256Fulfillment(ConditionType type, FulfillmentPayload payload, byte[] prefix, Fulfillment subfulfillment) {
         super(type, payload);
@@ -40,21 +36,9 @@ public class PrefixSha256Fulfillment extends FulfillmentBase {
      * it easy to port to other languages.
      */
     private PrefixSha256Fulfillment(byte[] prefix, Fulfillment subfulfillment) {
+        super(ConditionType.PREFIX_SHA256, FulfillmentPayload.wrap(writePayload(prefix, subfulfillment)));
         this.prefix = prefix.clone();
         this.subfulfillment = subfulfillment;
-
-        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-        FulfillmentOutputStream ffOutputStream = new FulfillmentOutputStream(byteStream);
-        try {
-            ffOutputStream.writeOctetString(prefix);
-            ffOutputStream.writeFulfillment(subfulfillment);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        } finally {
-            ffOutputStream.close();
-        }
-        this.payload = new FulfillmentPayload(byteStream.toByteArray());
-//        PrefixSha256Fulfillment result = 
     }
 
     // TODO:(0) In the JS implementation there is also a Constructor (prefix, subcondition)
@@ -80,8 +64,7 @@ public class PrefixSha256Fulfillment extends FulfillmentBase {
     public Condition generateCondition() {
         Condition subcondition = subfulfillment.getCondition();
 
-        EnumSet<FeatureSuite> features = subcondition.getFeatures();
-        features.addAll(BASE_FEATURES);
+        int features = subcondition.getFeatureBitmask() | BASE_FEATURES;
 
         byte[] fingerprint = Crypto.getSha256Hash(
                 calculateFingerPrintContent(
@@ -103,6 +86,10 @@ public class PrefixSha256Fulfillment extends FulfillmentBase {
     }
 
     protected byte[] calculatePayload() {
+        return writePayload(prefix, subfulfillment);
+    }
+
+    private static byte[] writePayload(byte[] prefix, Fulfillment subfulfillment) {
         ByteArrayOutputStream buffer = new ByteArrayOutputStream();
         FulfillmentOutputStream stream = new FulfillmentOutputStream(buffer);
 
@@ -152,18 +139,14 @@ public class PrefixSha256Fulfillment extends FulfillmentBase {
     }
 
     @Override
-    public boolean validate(MessagePayload message) {
+    protected boolean validateMessage(MessagePayload message) {
         if (this.subfulfillment == null) {
             throw new RuntimeException("subfulfillment not yet initialized ");
         }
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        try {
-            outputStream.write(this.prefix);
-            outputStream.write(message.payload);
-        } catch (IOException e) {
-            throw new RuntimeException(e.toString());
-        }
+        byte[] prefixedMessage = new byte[this.prefix.length + message.length];
+        System.arraycopy(this.prefix, 0, prefixedMessage, 0, this.prefix.length);
+        System.arraycopy(message.payload, message.offset, prefixedMessage, this.prefix.length, message.length);
 
-        return this.subfulfillment.validate(new MessagePayload(outputStream.toByteArray()));
+        return this.subfulfillment.validate(MessagePayload.wrap(prefixedMessage));
     }
 }
@@ -0,0 +1,283 @@
+package org.interledger.cryptoconditions;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.interledger.cryptoconditions.types.FulfillmentPayload;
+import org.interledger.cryptoconditions.util.Crypto;
+
+/**
+ * Many PREIMAGE-SHA-256 hashlocks at once, held in flat arrays.
+ *
+ * Preimage i is {@code preimages[i * preimageLength, (i + 1) * preimageLength)}
+ * and its fingerprint (the SHA-256 of the preimage) is
+ * {@code fingerprints[i * 32, (i + 1) * 32)}. Conditions and fulfillments
+ * are only built on request.
+ *
+ * Generation and verification are split into chunks that run on an
+ * executor, by default a shared pool of daemon threads with one thread per
+ * core. Each thread uses its own SecureRandom and digest.
+ */
+public final class PreimageSha256Batch {
+
+    public static final int DEFAULT_PREIMAGE_LENGTH = 32;
+    /* Hashlocks per task, below that the work runs on the calling thread. */
+    private static final int CHUNK_SIZE = 1024;
+    private static final int HASH_LENGTH = Crypto.SHA256_LENGTH;
+
+    private static final ThreadLocal<SecureRandom> RANDOM = new ThreadLocal<SecureRandom>() {
+        @Override
+        protected SecureRandom initialValue() {
+            return new SecureRandom();
+        }
+    };
+
+    private static final class SharedPool {
+        static final ExecutorService INSTANCE = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "preimage-sha256-batch");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    /*
+     * Work on the hashlocks [from, to).
+     */
+    private interface Chunk {
+        void run(int from, int to);
+    }
+
+    private final int count;
+    private final int preimageLength;
+    private final byte[] preimages;
+    private final byte[] fingerprints;
+
+    private PreimageSha256Batch(int count, int preimageLength) {
+        this.count = count;
+        this.preimageLength = preimageLength;
+        this.preimages = new byte[count * preimageLength];
+        this.fingerprints = new byte[count * HASH_LENGTH];
+    }
+
+    /**
+     * Generate random preimages of DEFAULT_PREIMAGE_LENGTH bytes and their
+     * fingerprints on the shared pool.
+     */
+    public static PreimageSha256Batch generate(int count) {
+        return generate(count, DEFAULT_PREIMAGE_LENGTH, SharedPool.INSTANCE);
+    }
+
+    /**
+     * Generate random preimages and their fingerprints.
+     *
+     * @param count number of hashlocks
+     * @param preimageLength length of each preimage in bytes
+     * @param executor executor running the chunks
+     */
+    public static PreimageSha256Batch generate(int count, final int preimageLength, ExecutorService executor) {
+        if (count < 0 || preimageLength < 1) {
+            throw new IllegalArgumentException("count must not be negative and preimageLength must be positive.");
+        }
+        if ((long) count * Math.max(preimageLength, HASH_LENGTH) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Batch of " + count + " preimages doesn't fit in an array.");
+        }
+        final PreimageSha256Batch batch = new PreimageSha256Batch(count, preimageLength);
+        run(count, executor, new Chunk() {
+            @Override
+            public void run(int from, int to) {
+                byte[] random = new byte[(to - from) * preimageLength];
+                RANDOM.get().nextBytes(random);
+                System.arraycopy(random, 0, batch.preimages, from * preimageLength, random.length);
+                for (int i = from; i < to; i++) {
+                    Crypto.getSha256Hash(batch.preimages, i * preimageLength, preimageLength,
+                            batch.fingerprints, i * HASH_LENGTH);
+                }
+            }
+        });
+        return batch;
+    }
+
+    /**
+     * Check preimages against fingerprints on the shared pool.
+     *
+     * @see #verify(byte[], int, byte[], ExecutorService)
+     */
+    public static BitSet verify(byte[] preimages, int preimageLength, byte[] fingerprints) {
+        return verify(preimages, preimageLength, fingerprints, SharedPool.INSTANCE);
+    }
+
+    /**
+     * Check preimages against fingerprints, both in the flat layout of this
+     * class.
+     *
+     * @return bit i is set if the SHA-256 of preimage i equals fingerprint i
+     */
+    public static BitSet verify(final byte[] preimages, final int preimageLength, final byte[] fingerprints,
+            ExecutorService executor) {
+        if (preimageLength < 1 || fingerprints.length % HASH_LENGTH != 0
+                || preimages.length != fingerprints.length / HASH_LENGTH * preimageLength) {
+            throw new IllegalArgumentException("preimages and fingerprints must hold the same number of entries.");
+        }
+        int count = fingerprints.length / HASH_LENGTH;
+        final boolean[] results = new boolean[count];
+        run(count, executor, new Chunk() {
+            @Override
+            public void run(int from, int to) {
+                byte[] hash = new byte[HASH_LENGTH];
+                for (int i = from; i < to; i++) {
+                    Crypto.getSha256Hash(preimages, i * preimageLength, preimageLength, hash, 0);
+                    results[i] = regionEquals(hash, fingerprints, i * HASH_LENGTH);
+                }
+            }
+        });
+        return toBitSet(results);
+    }
+
+    /**
+     * Check preimages against PREIMAGE-SHA-256 conditions on the shared pool.
+     *
+     * @see #verify(byte[][], Condition[], ExecutorService)
+     */
+    public static BitSet verify(byte[][] preimages, Condition[] conditions) {
+        return verify(preimages, conditions, SharedPool.INSTANCE);
+    }
+
+    /**
+     * Check preimages against PREIMAGE-SHA-256 conditions, with the same
+     * rules as {@link FulfillmentVerifier#fulfills}.
+     *
+     * @return bit i is set if preimage i fulfills condition i
+     */
+    public static BitSet verify(final byte[][] preimages, final Condition[] conditions, ExecutorService executor) {
+        if (preimages.length != conditions.length) {
+            throw new IllegalArgumentException("preimages and conditions must have the same length.");
+        }
+        final boolean[] results = new boolean[preimages.length];
+        run(preimages.length, executor, new Chunk() {
+            @Override
+            public void run(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    results[i] = preimages[i] != null && conditions[i] != null
+                            && PreimageSha256Fulfillment.fulfills(preimages[i], conditions[i]);
+                }
+            }
+        });
+        return toBitSet(results);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getPreimageLength() {
+        return preimageLength;
+    }
+
+    /**
+     * @return the flat preimages, not a copy
+     */
+    public byte[] getPreimages() {
+        return preimages;
+    }
+
+    /**
+     * @return the flat fingerprints, not a copy
+     */
+    public byte[] getFingerprints() {
+        return fingerprints;
+    }
+
+    public byte[] getPreimage(int index) {
+        byte[] result = new byte[preimageLength];
+        System.arraycopy(preimages, checkIndex(index) * preimageLength, result, 0, preimageLength);
+        return result;
+    }
+
+    public byte[] getFingerprint(int index) {
+        byte[] result = new byte[HASH_LENGTH];
+        System.arraycopy(fingerprints, checkIndex(index) * HASH_LENGTH, result, 0, HASH_LENGTH);
+        return result;
+    }
+
+    public Condition getCondition(int index) {
+        return new ConditionImpl(ConditionType.PREIMAGE_SHA256, PreimageSha256Fulfillment.BASE_FEATURES,
+                getFingerprint(index), preimageLength);
+    }
+
+    public PreimageSha256Fulfillment getFulfillment(int index) {
+        return new PreimageSha256Fulfillment(ConditionType.PREIMAGE_SHA256,
+                FulfillmentPayload.wrap(getPreimage(index)));
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " of a batch of " + count);
+        }
+        return index;
+    }
+
+    private static boolean regionEquals(byte[] hash, byte[] fingerprints, int offset) {
+        int diff = 0;
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            diff |= hash[i] ^ fingerprints[offset + i];
+        }
+        return diff == 0;
+    }
+
+    private static BitSet toBitSet(boolean[] results) {
+        BitSet result = new BitSet(results.length);
+        for (int i = 0; i < results.length; i++) {
+            if (results[i]) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Run chunk over [0, count) in CHUNK_SIZE pieces, the last one on the
+     * calling thread. Results written by the tasks are visible once their
+     * futures completed.
+     */
+    private static void run(int count, ExecutorService executor, final Chunk chunk) {
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        int from = 0;
+        while (count - from > CHUNK_SIZE) {
+            final int start = from;
+            final int end = from + CHUNK_SIZE;
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    chunk.run(start, end);
+                }
+            }));
+            from = end;
+        }
+        chunk.run(from, count);
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e.toString(), e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().toString(), e.getCause());
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+}
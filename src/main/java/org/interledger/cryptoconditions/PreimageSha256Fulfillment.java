@@ -1,42 +1,33 @@
 package org.interledger.cryptoconditions;
 
-import java.util.EnumSet;
-
 import org.interledger.cryptoconditions.util.Crypto;
 import org.interledger.cryptoconditions.types.*;
 
 /**
  * Implementation of a PREIMAGE-SHA-256 crypto-condition fulfillment
  *
- * TODO Safe synchronized access to members?
+ * Immutable and thread-safe.
  *
  * @author adrianhopebailie
  *
  */
 public class PreimageSha256Fulfillment extends FulfillmentBase {
 
-    private byte[] preimage;
+    final byte[] preimage;
 
     public static PreimageSha256Fulfillment BuildFromSecrets(byte[] preimage) {
-        FulfillmentPayload payload = new FulfillmentPayload(preimage);
-        PreimageSha256Fulfillment result = new PreimageSha256Fulfillment(ConditionType.PREIMAGE_SHA256, payload);
-        result.setPreimage(preimage);
-        return result;
-    }
-
-    private void setPreimage(byte[] preimage) {
-        this.preimage = preimage;
+        // Copy once so later changes to the caller's array can't alter the fulfillment.
+        FulfillmentPayload payload = FulfillmentPayload.copyOf(preimage);
+        return new PreimageSha256Fulfillment(ConditionType.PREIMAGE_SHA256, payload);
     }
 
     public PreimageSha256Fulfillment(ConditionType type, FulfillmentPayload payload) {
         super(type, payload);
-        this.preimage = payload.payload;
+        // Shares the payload array unless the payload is a slice of a larger one.
+        this.preimage = payload.asByteArray();
     }
 
-    private static final EnumSet<FeatureSuite> BASE_FEATURES = EnumSet.of(
-            FeatureSuite.SHA_256,
-            FeatureSuite.PREIMAGE
-    );
+    static final int BASE_FEATURES = FeatureSuite.SHA_256.toInt() | FeatureSuite.PREIMAGE.toInt();
 
 //    public byte[] getPreimage() {
 //        byte[] result = Arrays.copyOf(payload.payload, payload.payload.length);
@@ -62,6 +53,24 @@ public class PreimageSha256Fulfillment extends FulfillmentBase {
         return result;
     }
 
+    /**
+     * One SHA-256 of the preimage compared against the expected fingerprint.
+     */
+    @Override
+    protected boolean fulfills(Condition expected) {
+        if (preimage == null) {
+            throw new RuntimeException("preimage not initialized");
+        }
+        return fulfills(preimage, expected);
+    }
+
+    static boolean fulfills(byte[] preimage, Condition expected) {
+        return expected.getType() == ConditionType.PREIMAGE_SHA256
+                && expected.getMaxFulfillmentLength() == preimage.length
+                && expected.getFeatureBitmask() == BASE_FEATURES
+                && Crypto.sha256Equals(preimage, expected.getFingerprint());
+    }
+
     /**
      * Validate this fulfillment.
      *
@@ -69,11 +78,14 @@ public class PreimageSha256Fulfillment extends FulfillmentBase {
      * For a SHA256 hashlock fulfillment, successful parsing implies that the
      * fulfillment is valid, so this method is a no-op. """
      *
+     * The preimage is only checked against a condition, see
+     * FulfillmentVerifier.verify.
+     *
      * @param {byte[]} Message (ignored in this condition type)
      * @return {boolean} Validation result
      */
     @Override
-    public boolean validate(MessagePayload message) {
+    protected boolean validateMessage(MessagePayload message) {
         // TODO:(0) recheck
         // TODO:(0) Create unit tests.
         return true;
@@ -1,13 +1,10 @@
 package org.interledger.cryptoconditions;
 
-import java.util.EnumSet;
-
-
-
 import java.util.Set;
 import java.util.HashSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.io.ByteArrayOutputStream;
 import java.util.Collections;
 
@@ -17,37 +14,14 @@ import org.interledger.cryptoconditions.encoding.FulfillmentOutputStream;
 import org.interledger.cryptoconditions.encoding.ByteArrayOutputStreamPredictor;
 import org.interledger.cryptoconditions.types.FulfillmentPayload;
 import org.interledger.cryptoconditions.types.MessagePayload;
+import org.interledger.cryptoconditions.util.ByteArrayComparator;
 
 public class ThresholdSHA256Fulfillment extends FulfillmentBase {
 
-    private class OrderableByteBuffer implements Comparable<OrderableByteBuffer> {
-        byte[] buffer;
-        public OrderableByteBuffer(byte[] buffer){
-            this.buffer = buffer;
-        }
-        
-        @Override
-        public int compareTo(OrderableByteBuffer another) {
-            if (this.buffer.length != another.buffer.length){
-                return this.buffer.length - another.buffer.length;
-            }
-            // REF: http://stackoverflow.com/questions/5108091/java-comparator-for-byte-array-lexicographic
-            // TODO: Check that this match the JS code Buffer.compare(a, b)
-            int lexicoComparation = 0; // FIXME Compare lexicographically
-            byte[]  left  = this.buffer, 
-                    right = another.buffer;
-            for (int idx = 0; idx < this.buffer.length; idx++) {
-                int a = (left[idx] & 0xff);
-                int b = (right[idx] & 0xff);
-                if (a != b) { lexicoComparation = a - b; break; }
-            }
-            return lexicoComparation;
-        }
-    }
     private class WeightedFulfillment implements Comparable<WeightedFulfillment> {
         final int weight;
         final Fulfillment subff;
-        final byte[] conditionFingerprint; // FIXME TODO: Replace with OrderableByteBuffer
+        final byte[] conditionFingerprint;
         int idx = -1;
         private WeightedFulfillment(int weight, Fulfillment subfulfillment) {
             this.weight = weight;
@@ -58,29 +32,16 @@ public class ThresholdSHA256Fulfillment extends FulfillmentBase {
         void setIdx(int idx) { this.idx = idx; }
         
         int getSize() {
-            return this.subff.serializeBinary().length;
+            return this.subff.toByteBuffer().remaining();
         }
 
         int getOmitSize() {
-            return this.subff.getCondition().serializeBinary().length;
+            return this.subff.getCondition().toByteBuffer().remaining();
         }
 
         @Override
         public int compareTo(WeightedFulfillment another) {
-            if (this.conditionFingerprint.length != another.conditionFingerprint.length){
-                return this.conditionFingerprint.length - another.conditionFingerprint.length;
-            }
-            // REF: http://stackoverflow.com/questions/5108091/java-comparator-for-byte-array-lexicographic
-            // TODO: Check that this match the JS code Buffer.compare(a, b)
-            int lexicoComparation = 0; // FIXME Compare lexicographically
-            byte[]  left  = this.conditionFingerprint, 
-                    right = another.conditionFingerprint;
-            for (int idx = 0; idx < this.conditionFingerprint.length; idx++) {
-                int a = (left[idx] & 0xff);
-                int b = (right[idx] & 0xff);
-                if (a != b) { lexicoComparation = a - b; break; }
-            }
-            return lexicoComparation;
+            return ByteArrayComparator.INSTANCE.compare(this.conditionFingerprint, another.conditionFingerprint);
         }
     }
 
@@ -104,6 +65,7 @@ public class ThresholdSHA256Fulfillment extends FulfillmentBase {
 
     public ThresholdSHA256Fulfillment(ConditionType type, FulfillmentPayload payload, 
             int threshold, List<Integer>weight_l, List<Fulfillment> ff_l){
+        super(type, payload);
         if (weight_l.size() != ff_l.size()) {
             throw new RuntimeException("Can't zip weight_l && ff_l. Size differs ");
         }
@@ -115,11 +77,18 @@ public class ThresholdSHA256Fulfillment extends FulfillmentBase {
         Collections.sort(wff_l); // sort.
         for (int idx=0; idx<wff_l.size(); idx++) { wff_l.get(idx).setIdx(idx); }
         this.subfulfillments = wff_l;
-        
-        this.payload = new FulfillmentPayload(writePayload());
+
+        if (!Arrays.equals(payload.asByteArray(), writePayload())) {
+            throw new IllegalArgumentException("Payload is not the encoding of the threshold and subfulfillments");
+        }
         throw new RuntimeException("FIXME Implement?");
     }
 
+    @Override
+    public ConditionType getType() {
+        return ConditionType.THRESHOLD_SHA256;
+    }
+
     @Override
     public Condition generateCondition() {
         //writeHashPayload (hasher) /* Produce the contents of the condition hash. */ {
@@ -151,13 +120,13 @@ public class ThresholdSHA256Fulfillment extends FulfillmentBase {
     	int fulfillmentMaxLength = this.calculateMaxFulfillmentLength();
         return new ConditionImpl(
                 ConditionType.THRESHOLD_SHA256,
-                getFeatureSuiteSet(),
+                calculateFeatureBitmask(),
                 fingerprint,
                 fulfillmentMaxLength);
     }
 
     @Override
-    public boolean validate(MessagePayload message) {
+    protected boolean validateMessage(MessagePayload message) {
         //validate (message) {
         //  const fulfillments = this.subconditions.filter((cond) => cond.type === FULFILLMENT)
         //
@@ -178,16 +147,12 @@ public class ThresholdSHA256Fulfillment extends FulfillmentBase {
         throw new RuntimeException("not implemented"); // FIXME TODO
     }
 
-    private EnumSet<FeatureSuite> getFeatureSuiteSet() {
-        final EnumSet<FeatureSuite> BASE_FEATURES = EnumSet.of(
-                FeatureSuite.SHA_256,
-                FeatureSuite.THRESHOLD );
-        EnumSet<FeatureSuite> result = BASE_FEATURES;
+    private static final int BASE_FEATURES = FeatureSuite.SHA_256.toInt() | FeatureSuite.THRESHOLD.toInt();
+
+    private int calculateFeatureBitmask() {
+        int result = BASE_FEATURES;
         for (WeightedFulfillment ff : subfulfillments ){
-            EnumSet<FeatureSuite> childFeatures = ff.subff.getFeatures();
-            for (FeatureSuite fs : childFeatures) {
-                if (! result.contains(fs)) { result.add(fs); }
-            }
+            result |= ff.subff.getFeatureBitmask();
         }
         return result;
     }
@@ -205,7 +170,7 @@ public class ThresholdSHA256Fulfillment extends FulfillmentBase {
     }
 
     static int predictSubconditionLength(Condition cond) {
-        return cond.serializeBinary().length; 
+        return cond.toByteBuffer().remaining();
     }
 
     static int predictSubfulfillmentLength(Fulfillment ff) {
@@ -291,19 +256,22 @@ public class ThresholdSHA256Fulfillment extends FulfillmentBase {
     }
 
     static calcSmallestFFSetState calculateSmallestValidFulfillmentSet (long threshold, List<WeightedFulfillment> ff_l, calcSmallestFFSetState state) {
-        if (threshold < 0) { return state; }
-        if (state.index > ff_l.size()) { state.size = 2^31; /* FIXME TODO In JS Infinity */ }
+        if (threshold <= 0) { return state; }
+        if (state.index >= ff_l.size()) {
+            // Threshold not met: larger than any set meeting it, as Infinity in JS
+            return new calcSmallestFFSetState(state.index, Integer.MAX_VALUE, state.set);
+        }
         WeightedFulfillment nextFF = ff_l.get(state.index);
 
         Set<Integer> set_with_next = new HashSet<Integer>(state.set);
                      set_with_next.add(nextFF.idx);
         calcSmallestFFSetState with_next = ThresholdSHA256Fulfillment.calculateSmallestValidFulfillmentSet(
                 threshold  - nextFF.weight, ff_l, 
-                new ThresholdSHA256Fulfillment.calcSmallestFFSetState(state.size + nextFF.getSize(), state.index+1, set_with_next) 
+                new ThresholdSHA256Fulfillment.calcSmallestFFSetState(state.index+1, state.size + nextFF.getSize(), set_with_next) 
                 );
         calcSmallestFFSetState without_next = ThresholdSHA256Fulfillment.calculateSmallestValidFulfillmentSet(
                 threshold , ff_l, 
-                new ThresholdSHA256Fulfillment.calcSmallestFFSetState(state.size + nextFF.getOmitSize(), state.index+1, state.set) 
+                new ThresholdSHA256Fulfillment.calcSmallestFFSetState(state.index+1, state.size + nextFF.getOmitSize(), state.set) 
                 );
         return (with_next.size < without_next.size) ? with_next : without_next;
     }
@@ -320,7 +288,7 @@ public class ThresholdSHA256Fulfillment extends FulfillmentBase {
             }
         }
 
-        List<OrderableByteBuffer> sortedSubconditions = new ArrayList<OrderableByteBuffer>();
+        List<ByteArrayComparator.Key> sortedSubconditions = new ArrayList<ByteArrayComparator.Key>();
 
         for (int idx=0; idx<this.subfulfillments.size(); idx++) {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -329,14 +297,14 @@ public class ThresholdSHA256Fulfillment extends FulfillmentBase {
                 WeightedFulfillment wff = this.subfulfillments.get(idx);
                 cos.writeVarUInt(wff.weight);
                 cos.writeOctetString(wff.subff.serializeBinary());
-                sortedSubconditions.add(new OrderableByteBuffer(baos.toByteArray()));
+                sortedSubconditions.add(new ByteArrayComparator.Key(baos.toByteArray()));
             }catch(Exception e) {
                 throw new RuntimeException(e.toString(), e);
             } finally {
                 cos.close();
             }
         }
-        Collections.sort(sortedSubconditions);
+        Collections.sort(sortedSubconditions); // Buffer.compare order, as the JS implementation
         
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         OerOutputStream cos = new OerOutputStream(baos);
@@ -346,8 +314,7 @@ public class ThresholdSHA256Fulfillment extends FulfillmentBase {
             for (int idx=0; idx<sortedSubconditions.size(); idx++) {
                 // FIXME: IN JS this loop looks like:
                 //   sortedSubconditions.forEach(writer.write.bind(writer))
-                OrderableByteBuffer buf = sortedSubconditions.get(idx);
-                cos.writeOctetString(buf.buffer);
+                cos.writeOctetString(sortedSubconditions.get(idx).getBytes());
             }
             byte[] result = baos.toByteArray();
             return result;
@@ -0,0 +1,77 @@
+package org.interledger.cryptoconditions;
+
+/*
+ * Exception-free parsing of the numeric fields of condition and fulfillment
+ * URIs, with the same rules as their regular expressions: lower case hex or
+ * decimal digits, no leading zeros.
+ */
+final class UriFields {
+
+    private UriFields() {
+    }
+
+    static boolean startsWith(CharSequence uri, String prefix) {
+        if (uri.length() < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (uri.charAt(i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the index of the first c in uri at or after from, -1 if there
+     *         is none
+     */
+    static int indexOf(CharSequence uri, char c, int from) {
+        for (int i = from; i < uri.length(); i++) {
+            if (uri.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the value of uri[from, to) in lower case hex, -1 if it is not
+     *         1 to maxDigits digits without leading zeros
+     */
+    static long parseHex(CharSequence uri, int from, int to, int maxDigits) {
+        return parse(uri, from, to, maxDigits, 16);
+    }
+
+    /**
+     * @return the value of uri[from, to) in decimal, -1 if it is not 1 to
+     *         maxDigits digits without leading zeros
+     */
+    static long parseDecimal(CharSequence uri, int from, int to, int maxDigits) {
+        return parse(uri, from, to, maxDigits, 10);
+    }
+
+    private static long parse(CharSequence uri, int from, int to, int maxDigits, int radix) {
+        int digits = to - from;
+        if (digits < 1 || digits > maxDigits || (digits > 1 && uri.charAt(from) == '0')) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            char c = uri.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'a' && c <= 'f') {
+                digit = c - 'a' + 10;
+            } else {
+                return -1;
+            }
+            if (digit >= radix) {
+                return -1;
+            }
+            value = value * radix + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,240 @@
+package org.interledger.cryptoconditions;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.interledger.cryptoconditions.jfr.FlightRecorderEvents;
+import org.interledger.cryptoconditions.metrics.Metrics;
+import org.interledger.cryptoconditions.metrics.Operation;
+import org.interledger.cryptoconditions.spi.CryptoBackends;
+import org.interledger.cryptoconditions.spi.Primitive;
+import org.interledger.cryptoconditions.trace.Tracing;
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+import org.interledger.cryptoconditions.types.SignaturePayload;
+
+/**
+ * A fulfillment tree compiled into a flat verification program.
+ *
+ * Prefix fulfillments around a single leaf form a chain. The program keeps
+ * the prefixes in tree order, to match incoming fulfillments against the
+ * compiled structure, and their concatenation in the order the leaf sees
+ * them, plus the leaf key with one initialized verify engine per thread.
+ * Running it walks the incoming fulfillment in a loop, compares each level
+ * with the program and feeds the concatenated prefixes and the message to
+ * the engine: no recursion and no prefixed message copies.
+ *
+ * A fulfillment that matches the program generates the condition it was
+ * compiled for, so running the program is equivalent to
+ * {@link FulfillmentVerifier#verify}.
+ *
+ * Threshold fulfillments are not compiled: ThresholdSHA256Fulfillment can't
+ * be constructed yet. {@link #verify} falls back to the object tree for
+ * them.
+ *
+ * Instances are thread-safe.
+ */
+public final class VerificationProgram {
+
+    /** Number of compiled programs kept by {@link #verify}. */
+    public static final int CACHE_SIZE = 1024;
+
+    private static final Map<ByteBuffer, VerificationProgram> CACHE =
+            new LinkedHashMap<ByteBuffer, VerificationProgram>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ByteBuffer, VerificationProgram> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+
+    private final ConditionType rootType;
+    /* Prefixes from the root down. */
+    private final byte[][] prefixes;
+    /* Prefixes from the leaf up, i.e. what the leaf prepends to the message. */
+    private final byte[] leafPrefix;
+    private final ConditionType leafType;
+    /* Preimage or raw Ed25519 public key. */
+    private final byte[] leafBytes;
+    private final BigInteger modulus;
+    /* Ed25519 key, decoded once for the engines of all threads. */
+    private final PublicKey publicKey;
+
+    private final ThreadLocal<Signature> engines = new ThreadLocal<Signature>() {
+        @Override
+        protected Signature initialValue() {
+            try {
+                return leafType == ConditionType.ED25519
+                        ? CryptoBackends.get(Primitive.ED25519).newEd25519Verifier(publicKey)
+                        : CryptoBackends.get(Primitive.RSA_PSS_SHA256).newRsaPssVerifier(modulus);
+            } catch (Exception e) {
+                throw new RuntimeException(e.toString(), e);
+            }
+        }
+    };
+
+    private VerificationProgram(ConditionType rootType, byte[][] prefixes, Fulfillment leaf) {
+        this.rootType = rootType;
+        this.prefixes = prefixes;
+        int length = 0;
+        for (byte[] prefix : prefixes) {
+            length += prefix.length;
+        }
+        this.leafPrefix = new byte[length];
+        for (byte[] prefix : prefixes) {
+            length -= prefix.length;
+            System.arraycopy(prefix, 0, leafPrefix, length, prefix.length);
+        }
+
+        this.leafType = leaf.getType();
+        if (leaf instanceof PreimageSha256Fulfillment) {
+            this.leafBytes = ((PreimageSha256Fulfillment) leaf).preimage.clone();
+            this.modulus = null;
+            this.publicKey = null;
+        } else if (leaf instanceof Ed25519Fulfillment) {
+            Ed25519Fulfillment ed25519 = (Ed25519Fulfillment) leaf;
+            if (ed25519.publicKeyBytes == null) {
+                throw new IllegalArgumentException("Ed25519 fulfillment has no raw public key");
+            }
+            this.leafBytes = ed25519.publicKeyBytes.clone();
+            this.modulus = null;
+            this.publicKey = Ed25519Fulfillment.publicKeyFromByteArray(KeyPayload.wrap(leafBytes));
+        } else if (leaf instanceof RsaSha256Fulfillment) {
+            this.leafBytes = null;
+            this.modulus = ((RsaSha256Fulfillment) leaf).getModulus();
+            this.publicKey = null;
+        } else {
+            throw new IllegalArgumentException(leaf.getType() + " fulfillments can't be compiled");
+        }
+    }
+
+    /**
+     * Compile a fulfillment tree.
+     *
+     * @param fulfillment prefix chain around a preimage, Ed25519 or RSA leaf
+     * @throws IllegalArgumentException if the tree contains other types
+     */
+    public static VerificationProgram compile(Fulfillment fulfillment) {
+        List<byte[]> prefixes = new ArrayList<byte[]>();
+        Fulfillment node = fulfillment;
+        while (node instanceof PrefixSha256Fulfillment) {
+            PrefixSha256Fulfillment prefix = (PrefixSha256Fulfillment) node;
+            prefixes.add(prefix.prefix.clone());
+            node = prefix.subfulfillment;
+        }
+        if (node == null) {
+            throw new IllegalArgumentException("Prefix fulfillment without subfulfillment");
+        }
+        return new VerificationProgram(fulfillment.getType(), prefixes.toArray(new byte[prefixes.size()][]), node);
+    }
+
+    /**
+     * Verify a fulfillment against a condition and message with the program
+     * compiled for that condition, compiling it on first use.
+     *
+     * @return the same result as {@link FulfillmentVerifier#verify}
+     */
+    public static boolean verify(Condition expected, Fulfillment fulfillment, MessagePayload message) {
+        if (expected == null) {
+            throw new IllegalArgumentException("expected condition cannot be null.");
+        }
+        if (fulfillment == null) {
+            throw new IllegalArgumentException("fulfillment cannot be null.");
+        }
+        ByteBuffer key = expected.toByteBuffer();
+        VerificationProgram program;
+        synchronized (CACHE) {
+            program = CACHE.get(key);
+        }
+        if (program == null) {
+            if (!FulfillmentVerifier.fulfills(expected, fulfillment)) {
+                return false;
+            }
+            try {
+                program = compile(fulfillment);
+            } catch (IllegalArgumentException e) {
+                return fulfillment.validate(message); // not compilable, already matched
+            }
+            synchronized (CACHE) {
+                CACHE.put(key, program);
+            }
+        }
+        return program.run(fulfillment, message);
+    }
+
+    /**
+     * Check that a fulfillment has the compiled structure and keys and
+     * validates the message.
+     */
+    public boolean run(Fulfillment fulfillment, MessagePayload message) {
+        int size = message.length;
+        long start = Metrics.start();
+        boolean valid = false;
+        try {
+            valid = matchAndValidate(fulfillment, message);
+            return valid;
+        } finally {
+            Metrics.stop(start, rootType, Operation.VALIDATE, size, valid);
+        }
+    }
+
+    private boolean matchAndValidate(Fulfillment fulfillment, MessagePayload message) {
+        Fulfillment node = fulfillment;
+        for (byte[] prefix : prefixes) {
+            if (!(node instanceof PrefixSha256Fulfillment)
+                    || !Arrays.equals(prefix, ((PrefixSha256Fulfillment) node).prefix)) {
+                return false;
+            }
+            node = ((PrefixSha256Fulfillment) node).subfulfillment;
+        }
+        switch (leafType) {
+            case PREIMAGE_SHA256:
+                return node instanceof PreimageSha256Fulfillment
+                        && MessageDigest.isEqual(leafBytes, ((PreimageSha256Fulfillment) node).preimage);
+            case ED25519:
+                if (!(node instanceof Ed25519Fulfillment)
+                        || !Arrays.equals(leafBytes, ((Ed25519Fulfillment) node).publicKeyBytes)) {
+                    return false;
+                }
+                Tracing.countEd25519Verify();
+                SignaturePayload signature = ((Ed25519Fulfillment) node).signature;
+                return verifySignature(signature.payload, signature.offset, signature.length, message);
+            case RSA_SHA256:
+                if (!(node instanceof RsaSha256Fulfillment)
+                        || !modulus.equals(((RsaSha256Fulfillment) node).getModulus())) {
+                    return false;
+                }
+                Tracing.countRsaVerify();
+                byte[] rsaSignature = ((RsaSha256Fulfillment) node).signature;
+                return verifySignature(rsaSignature, 0, rsaSignature.length, message);
+            default:
+                throw new IllegalStateException("Unexpected leaf " + leafType);
+        }
+    }
+
+    private boolean verifySignature(byte[] signature, int offset, int length, MessagePayload message) {
+        Signature engine = engines.get();
+        Object event = FlightRecorderEvents.begin(FlightRecorderEvents.SIGNATURE);
+        boolean verified = false;
+        try {
+            engine.update(leafPrefix);
+            engine.update(message.payload, message.offset, message.length);
+            verified = engine.verify(signature, offset, length);
+            return verified;
+        } catch (Exception e) {
+            engines.remove(); // state unknown, start over with a fresh engine
+            throw new RuntimeException(e.toString(), e);
+        } finally {
+            FlightRecorderEvents.commit(event, leafType, leafPrefix.length + message.length, verified);
+        }
+    }
+}
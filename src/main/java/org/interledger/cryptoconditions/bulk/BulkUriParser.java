@@ -0,0 +1,424 @@
+package org.interledger.cryptoconditions.bulk;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.interledger.cryptoconditions.Condition;
+import org.interledger.cryptoconditions.ConditionImpl;
+import org.interledger.cryptoconditions.Fulfillment;
+import org.interledger.cryptoconditions.FulfillmentFactory;
+import org.interledger.cryptoconditions.encoding.DecodeError;
+import org.interledger.cryptoconditions.encoding.DecodeResult;
+
+/**
+ * Parallel parser for text files of condition and fulfillment URIs, one
+ * per line.
+ *
+ * The file is memory-mapped in windows and split at line boundaries into
+ * chunks parsed in parallel. Lines are parsed straight from the mapped
+ * ASCII bytes with {@link ConditionImpl#tryParse} and
+ * {@link FulfillmentFactory#tryParseFulfillmentURI}: no string and no
+ * exception per line. Only a bounded number of chunks is in flight at any
+ * time.
+ *
+ * Leading and trailing blanks and a trailing carriage return are ignored,
+ * blank lines are skipped. Every other line is reported, parsed or with the
+ * reason of its rejection.
+ *
+ * Instances are not thread-safe; parsing uses its own worker threads.
+ */
+public final class BulkUriParser {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    private static final int WINDOW_SIZE = 64 << 20;
+
+    /**
+     * Receives the parsed lines.
+     */
+    public interface Handler {
+        void handle(ParsedLine line);
+    }
+
+    /**
+     * A condition, a fulfillment or the reason a line was rejected.
+     */
+    public static final class ParsedLine {
+        private final long lineNumber;
+        private final long offset;
+        private final Condition condition;
+        private final Fulfillment fulfillment;
+        private final DecodeError error;
+        private final int errorOffset;
+
+        ParsedLine(long lineNumber, long offset, Condition condition, Fulfillment fulfillment,
+                DecodeError error, int errorOffset) {
+            this.lineNumber = lineNumber;
+            this.offset = offset;
+            this.condition = condition;
+            this.fulfillment = fulfillment;
+            this.error = error;
+            this.errorOffset = errorOffset;
+        }
+
+        /** Line number in the file, from 1. */
+        public long getLineNumber() { return lineNumber; }
+
+        /** Offset of the start of the line in the file. */
+        public long getOffset() { return offset; }
+
+        public boolean isSuccess() { return error == null; }
+
+        /** The condition of a cc: line, null otherwise. */
+        public Condition getCondition() { return condition; }
+
+        /** The fulfillment of a cf: line, null otherwise. */
+        public Fulfillment getFulfillment() { return fulfillment; }
+
+        /** Why the line was rejected, null if it was parsed. */
+        public DecodeError getError() { return error; }
+
+        /**
+         * Offset of the error in the trimmed line, or in the decoded payload
+         * for fulfillments with a well formed URI (see
+         * {@link FulfillmentFactory#tryParseFulfillmentURI}), -1 without error.
+         */
+        public int getErrorOffset() { return errorOffset; }
+
+        @Override
+        public String toString() {
+            if (error != null) {
+                return lineNumber + ": " + error + " at " + errorOffset;
+            }
+            return lineNumber + ": " + (condition != null ? condition.toURI() : fulfillment.toURI());
+        }
+    }
+
+    /*
+     * Slice of a window ending after a line end, with the number of its
+     * first line.
+     */
+    private static final class Chunk {
+        final ByteBuffer window;
+        final long windowStart;
+        final int start;
+        final int end;
+        final long firstLine;
+
+        Chunk(ByteBuffer window, long windowStart, int start, int end, long firstLine) {
+            this.window = window;
+            this.windowStart = windowStart;
+            this.start = start;
+            this.end = end;
+            this.firstLine = firstLine;
+        }
+    }
+
+    private final File input;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    public BulkUriParser(File input) {
+        this.input = input;
+    }
+
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive.");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Approximate number of bytes parsed by a single task, chunks end at the
+     * first line end after that size.
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive.");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Parse the file, handing the lines to the handler on the calling
+     * thread, in file order.
+     *
+     * @return the number of lines handled
+     * @throws IOException if the file can't be read or holds a line larger
+     *             than 64 MB
+     */
+    public long parse(Handler handler) throws IOException, InterruptedException {
+        return run(handler, true);
+    }
+
+    /**
+     * Parse the file, handing the lines to the handler on the worker threads
+     * as soon as they are parsed. Lines of a chunk are handled in order, the
+     * chunks in any order. The handler must be thread-safe.
+     *
+     * @return the number of lines handled
+     * @throws IOException if the file can't be read or holds a line larger
+     *             than 64 MB
+     */
+    public long parseUnordered(Handler handler) throws IOException, InterruptedException {
+        return run(handler, false);
+    }
+
+    /**
+     * Parse the whole file into memory.
+     *
+     * @return the lines in file order
+     */
+    public List<ParsedLine> parseAll() throws IOException, InterruptedException {
+        final List<ParsedLine> lines = new ArrayList<ParsedLine>();
+        parse(new Handler() {
+            @Override
+            public void handle(ParsedLine line) {
+                lines.add(line);
+            }
+        });
+        return lines;
+    }
+
+    private long run(final Handler handler, final boolean ordered) throws IOException, InterruptedException {
+        RandomAccessFile in = new RandomAccessFile(input, "r");
+        ExecutorService pool = null;
+        try {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "bulk-uri-parser");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            ArrayDeque<Future<List<ParsedLine>>> pending = new ArrayDeque<Future<List<ParsedLine>>>();
+            int maxPending = threads * 2;
+            long handled = 0;
+            long line = 1;
+
+            long windowStart = 0;
+            while (windowStart < size) {
+                int windowLength = (int) Math.min(WINDOW_SIZE, size - windowStart);
+                boolean lastWindow = windowStart + windowLength == size;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+
+                int position = 0;
+                while (position < windowLength) {
+                    int end = chunkEnd(window, position, chunkSize);
+                    if (end < 0) {
+                        if (lastWindow) {
+                            end = windowLength; // last line without line end
+                        } else if (position == 0) {
+                            throw new IOException("Line at offset " + windowStart + " is larger than "
+                                    + WINDOW_SIZE + " bytes");
+                        } else {
+                            break; // line continues in the next window
+                        }
+                    }
+                    Chunk chunk = new Chunk(window.duplicate(), windowStart, position, end, line);
+                    line += countLineEnds(window, position, end);
+                    pending.add(pool.submit(task(chunk, ordered ? null : handler)));
+                    position = end;
+
+                    while (pending.size() >= maxPending) {
+                        handled += complete(pending.poll(), ordered ? handler : null);
+                    }
+                }
+                windowStart += position;
+            }
+            while (!pending.isEmpty()) {
+                handled += complete(pending.poll(), ordered ? handler : null);
+            }
+            return handled;
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+            in.close();
+        }
+    }
+
+    /*
+     * With a handler the lines are handled by the task and the returned
+     * list only counts them.
+     */
+    private static Callable<List<ParsedLine>> task(final Chunk chunk, final Handler handler) {
+        return new Callable<List<ParsedLine>>() {
+            @Override
+            public List<ParsedLine> call() {
+                List<ParsedLine> lines = new ArrayList<ParsedLine>();
+                AsciiView view = new AsciiView(chunk.window);
+                DecodeResult<Condition> condition = new DecodeResult<Condition>();
+                DecodeResult<Fulfillment> fulfillment = new DecodeResult<Fulfillment>();
+                long lineNumber = chunk.firstLine;
+                int lineStart = chunk.start;
+                while (lineStart < chunk.end) {
+                    int lineEnd = lineEnd(chunk.window, lineStart, chunk.end);
+                    ParsedLine parsed = parseLine(view, chunk.windowStart, lineStart, lineEnd, lineNumber,
+                            condition, fulfillment);
+                    if (parsed != null) {
+                        if (handler != null) {
+                            handler.handle(parsed);
+                        }
+                        lines.add(parsed);
+                    }
+                    lineNumber++;
+                    lineStart = lineEnd + 1;
+                }
+                return lines;
+            }
+        };
+    }
+
+    private static ParsedLine parseLine(AsciiView view, long windowStart, int from, int to, long lineNumber,
+            DecodeResult<Condition> condition, DecodeResult<Fulfillment> fulfillment) {
+        ByteBuffer window = view.buffer;
+        long offset = windowStart + from;
+        while (from < to && isBlank(window.get(from))) {
+            from++;
+        }
+        while (to > from && isBlank(window.get(to - 1))) {
+            to--;
+        }
+        if (from == to) {
+            return null;
+        }
+        view.reset(from, to);
+        if (to - from > 1 && window.get(from + 1) == 'f') {
+            if (FulfillmentFactory.tryParseFulfillmentURI(view, fulfillment)) {
+                return new ParsedLine(lineNumber, offset, null, fulfillment.getValue(), null, -1);
+            }
+            return new ParsedLine(lineNumber, offset, null, null, fulfillment.getError(), fulfillment.getOffset());
+        }
+        if (ConditionImpl.tryParse(view, condition)) {
+            return new ParsedLine(lineNumber, offset, condition.getValue(), null, null, -1);
+        }
+        return new ParsedLine(lineNumber, offset, null, null, condition.getError(), condition.getOffset());
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static long complete(Future<List<ParsedLine>> future, Handler handler) throws InterruptedException {
+        List<ParsedLine> lines;
+        try {
+            lines = future.get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().toString(), e.getCause());
+        }
+        if (handler != null) {
+            for (ParsedLine line : lines) {
+                handler.handle(line);
+            }
+        }
+        return lines.size();
+    }
+
+    /* Index of the first '\n' in [from, to), to if there is none. */
+    private static int lineEnd(ByteBuffer window, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    /*
+     * End of a chunk of about size bytes starting at position: just after
+     * the first '\n' at or after position + size - 1, or the end of the
+     * window. -1 if the window ends before a line does.
+     */
+    private static int chunkEnd(ByteBuffer window, int position, int size) {
+        int limit = window.limit();
+        int from = (int) Math.min((long) position + size - 1, limit);
+        int end = lineEnd(window, from, limit);
+        return end < limit ? end + 1 : -1;
+    }
+
+    private static final long NEWLINES = 0x0a0a0a0a0a0a0a0aL;
+    private static final long LOW_7_BITS = 0x7f7f7f7f7f7f7f7fL;
+
+    /*
+     * Number of '\n' in [from, to), eight bytes at a time: this is the only
+     * pass over the input made by the splitting thread.
+     */
+    static long countLineEnds(ByteBuffer window, int from, int to) {
+        long count = 0;
+        int i = from;
+        for (; i + 8 <= to; i += 8) {
+            long x = window.getLong(i) ^ NEWLINES; // newline bytes are now zero
+            long zeros = ~(((x & LOW_7_BITS) + LOW_7_BITS) | x | LOW_7_BITS);
+            count += Long.bitCount(zeros);
+        }
+        for (; i < to; i++) {
+            if (window.get(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /*
+     * ASCII characters of a slice of a buffer, reset for every line. The
+     * tryParse methods don't keep a reference to it.
+     */
+    private static final class AsciiView implements CharSequence {
+        final ByteBuffer buffer;
+        private int start;
+        private int length;
+
+        AsciiView(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        void reset(int from, int to) {
+            this.start = from;
+            this.length = to - from;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(Integer.toString(index));
+            }
+            return (char) (buffer.get(start + index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().substring(from, to);
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = charAt(i);
+            }
+            return new String(chars);
+        }
+    }
+}
@@ -0,0 +1,546 @@
+package org.interledger.cryptoconditions.bulk;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.interledger.cryptoconditions.Condition;
+import org.interledger.cryptoconditions.ConditionImpl;
+import org.interledger.cryptoconditions.Ed25519Fulfillment;
+import org.interledger.cryptoconditions.Fulfillment;
+import org.interledger.cryptoconditions.FulfillmentFactory;
+import org.interledger.cryptoconditions.FulfillmentVerifier;
+import org.interledger.cryptoconditions.encoding.Base64Url;
+import org.interledger.cryptoconditions.encoding.ConditionInputStream;
+import org.interledger.cryptoconditions.encoding.FulfillmentInputStream;
+import org.interledger.cryptoconditions.encoding.OerInputStream;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+/**
+ * Offline verifier for large files of (condition, fulfillment, message)
+ * records.
+ *
+ * Two input formats are supported:
+ * <ul>
+ * <li>{@link Format#URI}: one record per line, the condition URI, the
+ * fulfillment URI and the base64url encoded message separated by
+ * whitespace. Blank lines are skipped.</li>
+ * <li>{@link Format#OER}: records of three OER octet strings, the binary
+ * condition, the binary fulfillment and the message.</li>
+ * </ul>
+ *
+ * The input is memory-mapped in windows and split into batches of records
+ * that are verified in parallel through {@link FulfillmentVerifier#verify}.
+ * Only a bounded number of batches is in flight at any time, so memory use
+ * doesn't depend on the size of the input.
+ *
+ * Every record that doesn't verify is written to the results file as a
+ * line {@code offset<TAB>status<TAB>detail}, in input order. A checkpoint
+ * file records the input offset up to which all records have been verified,
+ * the counters and the length of the results file at that point. Running
+ * again with the same checkpoint resumes from there, which also picks up
+ * records appended to the input since the last run.
+ *
+ * Instances are not thread-safe; {@link #run()} uses its own worker threads.
+ */
+public final class BulkVerifier {
+
+    public enum Format {
+        URI, OER
+    }
+
+    public enum Status {
+        VERIFIED, FAILED, MALFORMED
+    }
+
+    public static final int DEFAULT_BATCH_SIZE = 512;
+    private static final int WINDOW_SIZE = 64 << 20;
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 1000;
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File input;
+    private final File results;
+    private File checkpoint;
+    private Format format;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Counters of a (possibly resumed) run.
+     */
+    public static final class Summary {
+        private long offset;
+        private long records;
+        private long verified;
+        private long failed;
+        private long malformed;
+        private long elapsedNanos;
+
+        /** Input offset up to which all records have been verified. */
+        public long getOffset() { return offset; }
+
+        public long getRecords() { return records; }
+
+        public long getVerified() { return verified; }
+
+        public long getFailed() { return failed; }
+
+        public long getMalformed() { return malformed; }
+
+        /** Time spent by the last run, excluding earlier resumed runs. */
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        public boolean allVerified() {
+            return records == verified;
+        }
+
+        @Override
+        public String toString() {
+            return "records=" + records + " verified=" + verified + " failed=" + failed
+                    + " malformed=" + malformed + " offset=" + offset;
+        }
+    }
+
+    /*
+     * Outcome of one batch: counters and the result lines of the records
+     * that didn't verify.
+     */
+    private static final class BatchResult {
+        final long endOffset;
+        int verified;
+        int failed;
+        int malformed;
+        final StringBuilder lines = new StringBuilder();
+
+        BatchResult(long endOffset) {
+            this.endOffset = endOffset;
+        }
+    }
+
+    /**
+     * @param input file of records
+     * @param results file receiving one line per record that didn't verify
+     */
+    public BulkVerifier(File input, File results) {
+        this.input = input;
+        this.results = results;
+    }
+
+    /**
+     * Checkpoint file to resume from and to update while running. Without
+     * one every run starts from the beginning of the input.
+     */
+    public void setCheckpoint(File checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Input format. Detected from the first bytes of the input if not set.
+     */
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive.");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Number of records verified by a single task.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive.");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Verify all records from the checkpoint (or the start of the input) to
+     * the end of the input.
+     *
+     * @return the counters, including those of resumed runs
+     * @throws IOException if a file can't be read or written, the checkpoint
+     *             belongs to another input, or the input is corrupt beyond a
+     *             single record (e.g. an invalid OER length)
+     */
+    public Summary run() throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        Summary summary = new Summary();
+        long resultsLength = 0;
+        if (checkpoint != null && checkpoint.exists()) {
+            resultsLength = loadCheckpoint(summary);
+        }
+
+        RandomAccessFile in = new RandomAccessFile(input, "r");
+        RandomAccessFile out = null;
+        ExecutorService pool = null;
+        try {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            if (summary.offset > size) {
+                throw new IOException("Checkpoint offset " + summary.offset + " is beyond the end of " + input);
+            }
+            Format actualFormat = format != null ? format : detectFormat(channel, summary.offset);
+
+            out = new RandomAccessFile(results, "rw");
+            if (out.length() < resultsLength) {
+                throw new IOException(results + " is shorter than recorded in the checkpoint");
+            }
+            out.setLength(resultsLength); // drop results written after the checkpoint
+            out.seek(resultsLength);
+
+            pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "bulk-verifier");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            ArrayDeque<Future<BatchResult>> pending = new ArrayDeque<Future<BatchResult>>();
+            int maxPending = threads * 2;
+            long lastCheckpoint = System.currentTimeMillis();
+
+            long windowStart = summary.offset;
+            while (windowStart < size) {
+                int windowLength = (int) Math.min(WINDOW_SIZE, size - windowStart);
+                boolean lastWindow = windowStart + windowLength == size;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+
+                int position = 0;
+                while (position < windowLength) {
+                    int[] ends = new int[batchSize];
+                    int count = 0;
+                    int end = position;
+                    while (count < batchSize && end < windowLength) {
+                        int next = recordEnd(actualFormat, window, end, windowStart);
+                        if (next < 0) {
+                            if (!lastWindow) {
+                                break; // record continues in the next window
+                            }
+                            next = windowLength; // truncated last record, reported as malformed
+                        }
+                        end = next;
+                        ends[count++] = end;
+                    }
+                    if (count == 0) {
+                        if (position == 0) {
+                            throw new IOException("Record at offset " + windowStart + " is larger than "
+                                    + WINDOW_SIZE + " bytes");
+                        }
+                        break;
+                    }
+                    pending.add(pool.submit(
+                            batch(actualFormat, window, windowStart, position, ends, count)));
+                    position = end;
+
+                    while (pending.size() >= maxPending) {
+                        resultsLength = write(pending.poll(), out, summary);
+                        if (checkpoint != null
+                                && System.currentTimeMillis() - lastCheckpoint >= CHECKPOINT_INTERVAL_MILLIS) {
+                            saveCheckpoint(summary, out, resultsLength);
+                            lastCheckpoint = System.currentTimeMillis();
+                        }
+                    }
+                }
+                windowStart += position;
+            }
+            while (!pending.isEmpty()) {
+                resultsLength = write(pending.poll(), out, summary);
+            }
+            if (checkpoint != null) {
+                saveCheckpoint(summary, out, resultsLength);
+            }
+            summary.elapsedNanos = System.nanoTime() - started;
+            return summary;
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+            if (out != null) {
+                out.close();
+            }
+            in.close();
+        }
+    }
+
+    private Callable<BatchResult> batch(final Format format, final ByteBuffer window, final long windowStart,
+            final int start, final int[] ends, final int count) {
+        final ByteBuffer view = window.duplicate();
+        return new Callable<BatchResult>() {
+            @Override
+            public BatchResult call() {
+                BatchResult result = new BatchResult(windowStart + ends[count - 1]);
+                int recordStart = start;
+                for (int i = 0; i < count; i++) {
+                    byte[] record = new byte[ends[i] - recordStart];
+                    view.position(recordStart);
+                    view.get(record);
+                    verify(format, record, windowStart + recordStart, result);
+                    recordStart = ends[i];
+                }
+                return result;
+            }
+        };
+    }
+
+    private static void verify(Format format, byte[] record, long offset, BatchResult result) {
+        Condition condition;
+        Fulfillment fulfillment;
+        MessagePayload message;
+        try {
+            if (format == Format.URI) {
+                String line = new String(record, ASCII).trim();
+                if (line.length() == 0) {
+                    return;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length < 2 || fields.length > 3) {
+                    throw new IllegalArgumentException("Expected condition, fulfillment and message, got "
+                            + fields.length + " fields");
+                }
+                condition = new ConditionImpl(fields[0]);
+                fulfillment = FulfillmentFactory.getFulfillmentFromURI(fields[1]);
+                message = MessagePayload.wrap(fields.length == 3 ? Base64Url.decode(fields[2]) : new byte[0]);
+            } else {
+                OerInputStream oer = new OerInputStream(new ByteArrayInputStream(record));
+                byte[] conditionBytes = oer.readOctetString();
+                byte[] fulfillmentBytes = oer.readOctetString();
+                message = MessagePayload.wrap(oer.readOctetString());
+                condition = new ConditionInputStream(new ByteArrayInputStream(conditionBytes)).readCondition();
+                fulfillment = new FulfillmentInputStream(new ByteArrayInputStream(fulfillmentBytes))
+                        .readFulfillment();
+            }
+        } catch (Exception e) {
+            result.malformed++;
+            appendLine(result.lines, offset, Status.MALFORMED, e.toString());
+            return;
+        }
+
+        try {
+            if (!FulfillmentVerifier.fulfills(condition, fulfillment)) {
+                result.failed++;
+                appendLine(result.lines, offset, Status.FAILED, "fulfillment doesn't match condition");
+            } else if (!fulfillment.validate(message)) {
+                result.failed++;
+                appendLine(result.lines, offset, Status.FAILED, "fulfillment doesn't validate message");
+            } else {
+                result.verified++;
+            }
+        } catch (Exception e) {
+            result.failed++;
+            appendLine(result.lines, offset, Status.FAILED, e.toString());
+        }
+    }
+
+    private static void appendLine(StringBuilder lines, long offset, Status status, String detail) {
+        lines.append(offset).append('\t').append(status).append('\t');
+        String trimmed = detail.trim();
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            lines.append(Character.isWhitespace(c) ? ' ' : c);
+        }
+        lines.append('\n');
+    }
+
+    private static long write(Future<BatchResult> future, RandomAccessFile out, Summary summary)
+            throws IOException, InterruptedException {
+        BatchResult result;
+        try {
+            result = future.get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().toString(), e.getCause());
+        }
+        if (result.lines.length() > 0) {
+            out.write(result.lines.toString().getBytes(UTF8));
+        }
+        summary.offset = result.endOffset;
+        summary.records += result.verified + result.failed + result.malformed;
+        summary.verified += result.verified;
+        summary.failed += result.failed;
+        summary.malformed += result.malformed;
+        return out.getFilePointer();
+    }
+
+    /*
+     * End of the record starting at position, or -1 if it doesn't end inside
+     * the window. Positions are relative to the window.
+     */
+    private static int recordEnd(Format format, ByteBuffer window, int position, long windowStart)
+            throws IOException {
+        int limit = window.limit();
+        if (format == Format.URI) {
+            for (int i = position; i < limit; i++) {
+                if (window.get(i) == '\n') {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+        int end = position;
+        for (int field = 0; field < 3; field++) {
+            if (end >= limit) {
+                return -1;
+            }
+            int length = window.get(end++) & 0xff;
+            if (length > 128) {
+                int lengthOfLength = length - 128;
+                if (lengthOfLength > 3) {
+                    throw new IOException("Unsupported length indicator at offset " + (windowStart + end - 1));
+                }
+                if (end + lengthOfLength > limit) {
+                    return -1;
+                }
+                length = 0;
+                for (int i = 0; i < lengthOfLength; i++) {
+                    length = (length << 8) | (window.get(end++) & 0xff);
+                }
+            } else if (length == 128) {
+                throw new IOException("Illegal length indicator 0x80 at offset " + (windowStart + end - 1));
+            }
+            if (length > limit - end) {
+                return -1;
+            }
+            end += length;
+        }
+        return end;
+    }
+
+    private static Format detectFormat(FileChannel channel, long offset) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(3);
+        while (head.hasRemaining() && channel.read(head, offset + head.position()) > 0) {
+            // keep reading
+        }
+        return head.position() == 3 && head.get(0) == 'c' && (head.get(1) == 'c' || head.get(1) == 'f')
+                && head.get(2) == ':' ? Format.URI : Format.OER;
+    }
+
+    private long loadCheckpoint(Summary summary) throws IOException {
+        Properties properties = new Properties();
+        FileInputStream stream = new FileInputStream(checkpoint);
+        try {
+            properties.load(stream);
+        } finally {
+            stream.close();
+        }
+        String recordedInput = properties.getProperty("input");
+        if (recordedInput == null) {
+            throw new IOException(checkpoint + " is not a valid checkpoint: no input");
+        }
+        if (!new File(recordedInput).getCanonicalFile().equals(input.getCanonicalFile())) {
+            throw new IOException(checkpoint + " is the checkpoint of " + recordedInput + ", not of " + input);
+        }
+        try {
+            summary.offset = Long.parseLong(properties.getProperty("offset"));
+            summary.records = Long.parseLong(properties.getProperty("records"));
+            summary.verified = Long.parseLong(properties.getProperty("verified"));
+            summary.failed = Long.parseLong(properties.getProperty("failed"));
+            summary.malformed = Long.parseLong(properties.getProperty("malformed"));
+            return Long.parseLong(properties.getProperty("resultsLength"));
+        } catch (NumberFormatException e) {
+            throw new IOException(checkpoint + " is not a valid checkpoint: " + e.getMessage());
+        }
+    }
+
+    /*
+     * Written to a temporary file and renamed, so an interruption leaves
+     * either the old or the new checkpoint. The results it counts are
+     * forced to disk first, a crash can't leave it pointing past them.
+     */
+    private void saveCheckpoint(Summary summary, RandomAccessFile out, long resultsLength) throws IOException {
+        out.getChannel().force(false);
+        Properties properties = new Properties();
+        properties.setProperty("input", input.getPath());
+        properties.setProperty("offset", Long.toString(summary.offset));
+        properties.setProperty("records", Long.toString(summary.records));
+        properties.setProperty("verified", Long.toString(summary.verified));
+        properties.setProperty("failed", Long.toString(summary.failed));
+        properties.setProperty("malformed", Long.toString(summary.malformed));
+        properties.setProperty("resultsLength", Long.toString(resultsLength));
+
+        File tmp = new File(checkpoint.getPath() + ".tmp");
+        FileOutputStream stream = new FileOutputStream(tmp);
+        try {
+            properties.store(stream, "BulkVerifier checkpoint");
+            stream.getFD().sync();
+        } finally {
+            stream.close();
+        }
+        if (!tmp.renameTo(checkpoint)) {
+            checkpoint.delete();
+            if (!tmp.renameTo(checkpoint)) {
+                throw new IOException("Couldn't replace " + checkpoint);
+            }
+        }
+    }
+
+    /**
+     * Command line entry point.
+     *
+     * <pre>
+     * BulkVerifier INPUT RESULTS [--checkpoint FILE] [--format URI|OER]
+     *              [--threads N] [--batch N] [--accept-ed25519-disclaimer]
+     * </pre>
+     *
+     * The checkpoint defaults to RESULTS.checkpoint. Exits with status 1 if
+     * any record didn't verify.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BulkVerifier INPUT RESULTS [--checkpoint FILE] [--format URI|OER]"
+                    + " [--threads N] [--batch N] [--accept-ed25519-disclaimer]");
+            System.exit(2);
+        }
+        File results = new File(args[1]);
+        BulkVerifier verifier = new BulkVerifier(new File(args[0]), results);
+        verifier.setCheckpoint(new File(results.getPath() + ".checkpoint"));
+        for (int i = 2; i < args.length; i++) {
+            String name = args[i];
+            if ("--accept-ed25519-disclaimer".equals(name)) {
+                Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[++i];
+            if ("--checkpoint".equals(name)) {
+                verifier.setCheckpoint(new File(value));
+            } else if ("--format".equals(name)) {
+                verifier.setFormat(Format.valueOf(value));
+            } else if ("--threads".equals(name)) {
+                verifier.setThreads(Integer.parseInt(value));
+            } else if ("--batch".equals(name)) {
+                verifier.setBatchSize(Integer.parseInt(value));
+            } else {
+                throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+
+        Summary summary = verifier.run();
+        double seconds = summary.getElapsedNanos() / 1e9;
+        System.out.println(summary);
+        System.out.println(String.format("%.1f s, results in %s", seconds, results));
+        System.exit(summary.allVerified() ? 0 : 1);
+    }
+}
@@ -51,18 +51,54 @@ public class Base64Url {
         return decoded;
     }
 
+    /**
+     * Decode input[start, end), unpadded as in condition and fulfillment URIs,
+     * without throwing on bad input.
+     *
+     * @return the decoded bytes, null if the input is not unpadded base64url
+     */
+    public static byte[] tryDecode(CharSequence input, int start, int end) {
+        int length = end - start;
+        if (length % 4 == 1) {
+            return null;
+        }
+        byte[] decoded = new byte[length * 3 / 4];
+        int j = 0;
+        int bits = 0;
+        int buffer = 0;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            int value = c < LOOKUP.length ? LOOKUP[c] : -1;
+            if (value < 0 || value == 64) {
+                return null; // illegal character or padding
+            }
+            buffer = ((buffer << 6) | value) & 0xfff;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                decoded[j++] = (byte) (buffer >> bits);
+            }
+        }
+        return decoded;
+    }
+
     public static String encode(byte[] in) {
-        StringBuilder out = new StringBuilder((in.length * 4) / 3);
+        return encode(in, 0, in.length);
+    }
+
+    public static String encode(byte[] in, int offset, int length) {
+        StringBuilder out = new StringBuilder((length * 4) / 3 + 1);
         int b;
-        for (int i = 0; i < in.length; i += 3) {
+        int end = offset + length;
+        for (int i = offset; i < end; i += 3) {
             b = (in[i] & 0xFC) >> 2;
             out.append(CODES.charAt(b));
             b = (in[i] & 0x03) << 4;
-            if (i + 1 < in.length) {
+            if (i + 1 < end) {
                 b |= (in[i + 1] & 0xF0) >> 4;
                 out.append(CODES.charAt(b));
                 b = (in[i + 1] & 0x0F) << 2;
-                if (i + 2 < in.length) {
+                if (i + 2 < end) {
                     b |= (in[i + 2] & 0xC0) >> 6;
                     out.append(CODES.charAt(b));
                     b = in[i + 2] & 0x3F;
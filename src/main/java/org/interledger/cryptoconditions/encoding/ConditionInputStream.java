@@ -2,7 +2,6 @@ package org.interledger.cryptoconditions.encoding;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.EnumSet;
 
 import org.interledger.cryptoconditions.Condition;
 import org.interledger.cryptoconditions.ConditionImpl;
@@ -44,7 +43,7 @@ public class ConditionInputStream extends OerInputStream {
     public Condition readCondition()
             throws IOException, UnsupportedConditionException, OerDecodingException {
         final ConditionType type = readConditiontype();
-        final EnumSet<FeatureSuite> features = readFeatures();
+        final int features = readFeatures();
         final byte[] fingerprint = readFingerprint();
         final int maxFulfillmentValue = readMaxFullfilmentValue();
         return new ConditionImpl(type, features, fingerprint, maxFulfillmentValue);
@@ -57,7 +56,10 @@ public class ConditionInputStream extends OerInputStream {
         return ConditionType.valueOf(value);
     }
 
-    protected EnumSet<FeatureSuite> readFeatures()
+    /**
+     * @return bitmask of FeatureSuite values
+     */
+    protected int readFeatures()
             throws IOException, UnsupportedFeaturesException, UnsupportedLengthException, IllegalLengthIndicatorException {
 
         byte[] bitmask_bytes = readOctetString();
@@ -65,18 +67,12 @@ public class ConditionInputStream extends OerInputStream {
             //We currently only support a bitmask of 1 byte
             throw new UnsupportedFeaturesException("Unknown feature bits encountered.");
         }
-
-        EnumSet<FeatureSuite> features = EnumSet.noneOf(FeatureSuite.class);
-        for (FeatureSuite featureSuite : FeatureSuite.values()) {
-            if ((featureSuite.toInt() & bitmask_bytes[0]) == featureSuite.toInt()) {
-                features.add(featureSuite);
-
-                //Unset the bit so we can check we processed them all
-                bitmask_bytes[0] &= ~featureSuite.toInt();
-            }
+        if (bitmask_bytes.length == 0) {
+            return 0;
         }
 
-        if (bitmask_bytes[0] != 0x00) {
+        int features = bitmask_bytes[0] & 0xff;
+        if (!FeatureSuite.isSupported(features, FeatureSuite.ALL_FEATURES)) {
             throw new UnsupportedFeaturesException("Unknown feature bits encountered.");
         }
 
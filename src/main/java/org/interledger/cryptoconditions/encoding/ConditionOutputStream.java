@@ -39,7 +39,7 @@ public class ConditionOutputStream extends OerOutputStream {
      */
     public void writeCondition(Condition condition) throws IOException {
         writeConditionType(condition.getType());
-        writeFeatures(condition.getFeatures());
+        writeFeatures(condition.getFeatureBitmask());
         writeFingerprint(condition.getFingerprint());
         writeMaxFulfillmentLength(condition.getMaxFulfillmentLength());
 
@@ -50,17 +50,18 @@ public class ConditionOutputStream extends OerOutputStream {
         write16BitUInt(type.getTypeCode());
     }
 
-    public void writeFeatures(EnumSet<FeatureSuite> features)
+    public void writeFeatures(int features)
             throws IOException {
 
         //TODO - Unsafe if we overflow into a second byte
-        int encoded_bitmask = 0;
-        for (FeatureSuite featureSuite : features) {
-            encoded_bitmask += featureSuite.toInt();
-        }
         writeLengthIndicator(1);
-        stream.write(encoded_bitmask);
+        stream.write(features);
+
+    }
 
+    public void writeFeatures(EnumSet<FeatureSuite> features)
+            throws IOException {
+        writeFeatures(FeatureSuite.EnumSet2bitMask(features));
     }
 
     public void writeFingerprint(byte[] fingerprint)
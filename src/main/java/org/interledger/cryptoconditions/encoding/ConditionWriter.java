@@ -33,7 +33,7 @@ public class ConditionWriter extends Writer {
         writeDelimiter();
         writeConditionType(condition.getType());
         writeDelimiter();
-        writeFeatures(condition.getFeatures());
+        writeFeatures(condition.getFeatureBitmask());
         writeDelimiter();
         writeFingerprint(condition.getFingerprint());
         writeDelimiter();
@@ -61,16 +61,15 @@ public class ConditionWriter extends Writer {
         writer.write(Integer.toString(type.getTypeCode(), 16));
     }
 
-    protected void writeFeatures(EnumSet<FeatureSuite> features)
+    protected void writeFeatures(int features)
             throws IOException {
 
-        //TODO - This is easy to read but could probably be optimized
-        int encoded_bitmask = 0;
-        for (FeatureSuite featureSuite : features) {
-            encoded_bitmask += featureSuite.toInt();
-        }
+        writer.write(Integer.toString(features, 16));
+    }
 
-        writer.write(Integer.toString(encoded_bitmask, 16));
+    protected void writeFeatures(EnumSet<FeatureSuite> features)
+            throws IOException {
+        writeFeatures(FeatureSuite.EnumSet2bitMask(features));
     }
 
     protected void writeFingerprint(byte[] fingerprint)
@@ -0,0 +1,27 @@
+package org.interledger.cryptoconditions.encoding;
+
+/**
+ * Reasons a tryDecode or tryParse call rejected its input.
+ *
+ * @see DecodeResult
+ */
+public enum DecodeError {
+    /** The input ends before the value being read. */
+    TRUNCATED,
+    /** Bytes are left after a complete value. */
+    TRAILING_BYTES,
+    /** A length indicator starts with 0x80. */
+    ILLEGAL_LENGTH_INDICATOR,
+    /** A length or integer is longer than the 3 bytes this implementation supports. */
+    UNSUPPORTED_LENGTH,
+    /** The type code is not a known condition type. */
+    UNKNOWN_TYPE,
+    /** A field is well formed but its value is not acceptable. */
+    INVALID_VALUE,
+    /** The URI doesn't have the expected format. */
+    MALFORMED_URI,
+    DEPTH_LIMIT,
+    BYTES_LIMIT,
+    CHILDREN_LIMIT,
+    NODES_LIMIT
+}
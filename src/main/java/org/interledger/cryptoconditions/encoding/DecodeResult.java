@@ -0,0 +1,82 @@
+package org.interledger.cryptoconditions.encoding;
+
+/**
+ * Outcome of a tryDecode or tryParse call: the decoded value, or the reason
+ * and offset of the rejection.
+ *
+ * Rejections don't create exceptions, so a result can be allocated once and
+ * reused for every call on the same thread.
+ *
+ * @param <T> type of the decoded value
+ */
+public final class DecodeResult<T> {
+
+    private T value;
+    private DecodeError error;
+    private int offset;
+
+    /**
+     * @return true if the last call decoded a value
+     */
+    public boolean isSuccess() {
+        return value != null;
+    }
+
+    /**
+     * @return the decoded value, null if the last call failed
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * @return the reason of the rejection, null if the last call succeeded
+     */
+    public DecodeError getError() {
+        return error;
+    }
+
+    /**
+     * @return offset in the input where the rejection was detected
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    public void reset() {
+        value = null;
+        error = null;
+        offset = 0;
+    }
+
+    /**
+     * Record a decoded value.
+     *
+     * @return true
+     */
+    public boolean succeed(T value) {
+        this.value = value;
+        this.error = null;
+        this.offset = 0;
+        return true;
+    }
+
+    /**
+     * Record a rejection, unless one was already recorded by a nested call.
+     *
+     * @return false
+     */
+    public boolean fail(DecodeError error, int offset) {
+        if (this.error == null) {
+            this.value = null;
+            this.error = error;
+            this.offset = offset;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? String.valueOf(value) : error + " at offset " + offset;
+    }
+}
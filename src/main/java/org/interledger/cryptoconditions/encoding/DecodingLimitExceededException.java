@@ -0,0 +1,31 @@
+package org.interledger.cryptoconditions.encoding;
+
+/**
+ * Thrown by {@link FulfillmentDecoder} as soon as an input exceeds one of its
+ * limits.
+ */
+public class DecodingLimitExceededException extends OerDecodingException {
+
+    private static final long serialVersionUID = 4950731264420316741L;
+
+    public enum Limit {
+        DEPTH, BYTES, CHILDREN, NODES
+    }
+
+    private final Limit limit;
+    private final long max;
+
+    public DecodingLimitExceededException(Limit limit, long max) {
+        super("Fulfillment exceeds the " + limit + " limit of " + max);
+        this.limit = limit;
+        this.max = max;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+
+    public long getMax() {
+        return max;
+    }
+}
@@ -0,0 +1,510 @@
+package org.interledger.cryptoconditions.encoding;
+
+import java.math.BigInteger;
+import java.security.PublicKey;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import org.interledger.cryptoconditions.ConditionType;
+import org.interledger.cryptoconditions.Ed25519Fulfillment;
+import org.interledger.cryptoconditions.Fulfillment;
+import org.interledger.cryptoconditions.PrefixSha256Fulfillment;
+import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
+import org.interledger.cryptoconditions.RsaSha256Fulfillment;
+import org.interledger.cryptoconditions.ThresholdSHA256Fulfillment;
+import org.interledger.cryptoconditions.UnsupportedLengthException;
+import org.interledger.cryptoconditions.jfr.FlightRecorderEvents;
+import org.interledger.cryptoconditions.metrics.Metrics;
+import org.interledger.cryptoconditions.metrics.Operation;
+import org.interledger.cryptoconditions.types.FulfillmentPayload;
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.SignaturePayload;
+
+/**
+ * Decodes OER encoded fulfillments from memory with bounded resources.
+ *
+ * Nested fulfillments are decoded with an explicit stack instead of
+ * recursion, and the input is checked against limits on its size, the
+ * nesting depth, the children declared by a threshold and the total number
+ * of fulfillments before anything is allocated for them. Payloads of the
+ * decoded fulfillments are slices of one copy of the input.
+ *
+ * The decode methods report failures with a typed
+ * {@link OerDecodingException}: {@link DecodingLimitExceededException} when
+ * a limit is exceeded, {@link MalformedFulfillmentException} for truncated,
+ * trailing or invalid data. The tryDecode methods report them in a
+ * {@link DecodeResult} instead and don't create any exception, which keeps
+ * rejecting garbage cheap.
+ *
+ * Instances are thread-safe as long as their limits are not modified.
+ */
+public class FulfillmentDecoder {
+
+    public static final int DEFAULT_MAX_DEPTH = 64;
+    /* Largest length an OER length indicator of this implementation can hold. */
+    public static final int DEFAULT_MAX_BYTES = 16777215;
+    public static final int DEFAULT_MAX_CHILDREN = 256;
+    public static final int DEFAULT_MAX_NODES = 4096;
+
+    /* Type, length indicator and weight of the smallest possible threshold child. */
+    private static final int MIN_CHILD_LENGTH = 5;
+    /* Field sizes of the RSA-SHA-256 and ED25519 payloads in the specification. */
+    private static final int MIN_RSA_MODULUS_LENGTH = 128;
+    private static final int MAX_RSA_MODULUS_LENGTH = 512;
+    private static final int ED25519_KEY_LENGTH = 32;
+    private static final int ED25519_SIGNATURE_LENGTH = 64;
+
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private int maxBytes = DEFAULT_MAX_BYTES;
+    private int maxChildren = DEFAULT_MAX_CHILDREN;
+    private int maxNodes = DEFAULT_MAX_NODES;
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public void setMaxBytes(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    int getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @param maxChildren maximum number of subfulfillments of a threshold
+     */
+    public void setMaxChildren(int maxChildren) {
+        this.maxChildren = maxChildren;
+    }
+
+    /**
+     * @param maxNodes maximum number of fulfillments in a tree, root included
+     */
+    public void setMaxNodes(int maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Decode a fulfillment encoded as in {@link Fulfillment#serializeBinary()}.
+     *
+     * @throws DecodingLimitExceededException if the input exceeds a limit
+     * @throws OerDecodingException if the input is malformed
+     * @throws UnsupportedLengthException if a length indicator is longer than
+     *             3 bytes
+     */
+    public Fulfillment decode(byte[] encoded)
+            throws OerDecodingException, UnsupportedLengthException {
+        DecodeResult<Fulfillment> result = new DecodeResult<Fulfillment>();
+        if (!tryDecode(encoded, result)) {
+            throwFailure(result);
+        }
+        return result.getValue();
+    }
+
+    /**
+     * Decode the payload of a fulfillment of the given type. The payload
+     * array is shared with the result and must not be modified afterwards.
+     *
+     * @see #decode(byte[])
+     */
+    public Fulfillment decode(ConditionType type, FulfillmentPayload payload)
+            throws OerDecodingException, UnsupportedLengthException {
+        return decode(type, payload, true);
+    }
+
+    /*
+     * FulfillmentInputStream records the root fulfillment itself, including
+     * the read of its type and payload.
+     */
+    Fulfillment decode(ConditionType type, FulfillmentPayload payload, boolean recordRoot)
+            throws OerDecodingException, UnsupportedLengthException {
+        DecodeResult<Fulfillment> result = new DecodeResult<Fulfillment>();
+        if (!tryDecode(type, payload, recordRoot, result)) {
+            throwFailure(result);
+        }
+        return result.getValue();
+    }
+
+    /**
+     * Decode a fulfillment encoded as in {@link Fulfillment#serializeBinary()}
+     * without throwing on bad input.
+     *
+     * @param result receives the fulfillment or the reason of the rejection
+     * @return true if the input was decoded
+     */
+    public boolean tryDecode(byte[] encoded, DecodeResult<Fulfillment> result) {
+        result.reset();
+        if (encoded.length > maxBytes) {
+            return result.fail(DecodeError.BYTES_LIMIT, maxBytes);
+        }
+        Cursor cursor = new Cursor(encoded, 0, encoded.length, result);
+        ConditionType type = cursor.readType();
+        Cursor payload = type == null ? null : cursor.readSlice();
+        if (payload == null || !cursor.expectEnd()) {
+            return false;
+        }
+        // The fulfillments share the input, decode a private copy
+        Cursor copy = new Cursor(encoded.clone(), payload.start, payload.limit - payload.start, result);
+        return run(type, copy, true, result);
+    }
+
+    /**
+     * Decode the payload of a fulfillment of the given type without throwing
+     * on bad input. The payload array is shared with the result and must not
+     * be modified afterwards.
+     *
+     * @see #tryDecode(byte[], DecodeResult)
+     */
+    public boolean tryDecode(ConditionType type, FulfillmentPayload payload, DecodeResult<Fulfillment> result) {
+        return tryDecode(type, payload, true, result);
+    }
+
+    private boolean tryDecode(ConditionType type, FulfillmentPayload payload, boolean recordRoot,
+            DecodeResult<Fulfillment> result) {
+        result.reset();
+        if (payload.length > maxBytes) {
+            return result.fail(DecodeError.BYTES_LIMIT, maxBytes);
+        }
+        return run(type, new Cursor(payload.payload, payload.offset, payload.length, result), recordRoot, result);
+    }
+
+    private boolean run(ConditionType type, Cursor payload, boolean record, DecodeResult<Fulfillment> result) {
+        // Fulfillments being decoded, the current one on top
+        Deque<Frame> stack = new ArrayDeque<Frame>();
+        int nodes = 0;
+        boolean success = false;
+        try {
+            while (true) {
+                if (++nodes > maxNodes) {
+                    return result.fail(DecodeError.NODES_LIMIT, payload.start);
+                }
+                if (stack.size() >= maxDepth) {
+                    return result.fail(DecodeError.DEPTH_LIMIT, payload.start);
+                }
+                Frame frame = new Frame(type, payload, record);
+                record = true;
+                stack.push(frame);
+
+                Fulfillment fulfillment = null;
+                switch (type) {
+                    case PREIMAGE_SHA256:
+                        fulfillment = new PreimageSha256Fulfillment(ConditionType.PREIMAGE_SHA256,
+                                payload.asPayload());
+                        break;
+                    case RSA_SHA256:
+                        fulfillment = readRsa(payload);
+                        break;
+                    case ED25519:
+                        fulfillment = readEd25519(payload);
+                        break;
+                    case PREFIX_SHA256:
+                        frame.prefix = payload.readOctetString();
+                        frame.remaining = 1;
+                        if (frame.prefix == null) {
+                            return false;
+                        }
+                        break;
+                    case THRESHOLD_SHA256:
+                        frame.threshold = payload.readVarUInt();
+                        frame.remaining = frame.threshold < 0 ? -1 : payload.readVarUInt();
+                        if (frame.remaining < 0) {
+                            return false;
+                        }
+                        if (frame.remaining > maxChildren) {
+                            return result.fail(DecodeError.CHILDREN_LIMIT, payload.position);
+                        }
+                        if (frame.remaining > payload.remaining() / MIN_CHILD_LENGTH) {
+                            return result.fail(DecodeError.TRUNCATED, payload.position);
+                        }
+                        frame.weights = new ArrayList<Integer>(frame.remaining);
+                        if (frame.remaining == 0 && (fulfillment = frame.build()) == null) {
+                            return false;
+                        }
+                        break;
+                    default:
+                        return result.fail(DecodeError.UNKNOWN_TYPE, payload.start);
+                }
+                if (fulfillment == null && frame.remaining == 0) {
+                    return false; // leaf rejected
+                }
+
+                // Close every fulfillment this one completes
+                while (fulfillment != null) {
+                    stack.pop().close(true);
+                    frame = stack.peek();
+                    if (frame == null) {
+                        success = true;
+                        return result.succeed(fulfillment);
+                    }
+                    frame.children.add(fulfillment);
+                    if (--frame.remaining > 0) {
+                        fulfillment = null;
+                    } else if ((fulfillment = frame.build()) == null) {
+                        return false;
+                    }
+                }
+
+                // Next subfulfillment of the frame on top
+                if (frame.type == ConditionType.THRESHOLD_SHA256) {
+                    int weight = frame.payload.readVarUInt();
+                    if (weight < 0) {
+                        return false;
+                    }
+                    frame.weights.add(weight);
+                }
+                type = frame.payload.readType();
+                payload = type == null ? null : frame.payload.readSlice();
+                if (payload == null) {
+                    return false;
+                }
+            }
+        } finally {
+            if (!success) {
+                while (!stack.isEmpty()) {
+                    stack.pop().close(false);
+                }
+            }
+        }
+    }
+
+    private static Fulfillment readRsa(Cursor payload) {
+        int modulusOffset = payload.position;
+        byte[] modulus = payload.readOctetString();
+        byte[] signature = modulus == null ? null : payload.readOctetString();
+        if (signature == null || !payload.expectEnd()) {
+            return null;
+        }
+        BigInteger value = new BigInteger(1, modulus);
+        int length = (value.bitLength() + 7) / 8;
+        if (length < MIN_RSA_MODULUS_LENGTH || length > MAX_RSA_MODULUS_LENGTH || length != signature.length) {
+            payload.result.fail(DecodeError.INVALID_VALUE, modulusOffset);
+            return null;
+        }
+        try {
+            return new RsaSha256Fulfillment(ConditionType.RSA_SHA256, payload.asPayload(), value,
+                    SignaturePayload.wrap(signature));
+        } catch (RuntimeException e) {
+            payload.result.fail(DecodeError.INVALID_VALUE, modulusOffset);
+            return null;
+        }
+    }
+
+    private static Fulfillment readEd25519(Cursor payload) {
+        int keyOffset = payload.position;
+        byte[] publicKey = payload.readOctetString();
+        byte[] signature = publicKey == null ? null : payload.readOctetString();
+        if (signature == null || !payload.expectEnd()) {
+            return null;
+        }
+        if (publicKey.length != ED25519_KEY_LENGTH || signature.length != ED25519_SIGNATURE_LENGTH) {
+            payload.result.fail(DecodeError.INVALID_VALUE, keyOffset);
+            return null;
+        }
+        PublicKey key;
+        try {
+            key = Ed25519Fulfillment.publicKeyFromByteArray(KeyPayload.wrap(publicKey));
+        } catch (RuntimeException e) {
+            payload.result.fail(DecodeError.INVALID_VALUE, keyOffset);
+            return null;
+        }
+        return new Ed25519Fulfillment(ConditionType.ED25519, payload.asPayload(), key,
+                SignaturePayload.wrap(signature));
+    }
+
+    private void throwFailure(DecodeResult<Fulfillment> result)
+            throws OerDecodingException, UnsupportedLengthException {
+        int offset = result.getOffset();
+        switch (result.getError()) {
+            case ILLEGAL_LENGTH_INDICATOR:
+                throw new IllegalLengthIndicatorException("First byte of length indicator can't be 0x80.");
+            case UNSUPPORTED_LENGTH:
+                throw new UnsupportedLengthException("This implementation only supports "
+                        + "variable length fields up to 16777215 bytes.");
+            case DEPTH_LIMIT:
+                throw new DecodingLimitExceededException(DecodingLimitExceededException.Limit.DEPTH, maxDepth);
+            case BYTES_LIMIT:
+                throw new DecodingLimitExceededException(DecodingLimitExceededException.Limit.BYTES, maxBytes);
+            case CHILDREN_LIMIT:
+                throw new DecodingLimitExceededException(DecodingLimitExceededException.Limit.CHILDREN,
+                        maxChildren);
+            case NODES_LIMIT:
+                throw new DecodingLimitExceededException(DecodingLimitExceededException.Limit.NODES, maxNodes);
+            case TRUNCATED:
+                throw new MalformedFulfillmentException("Truncated fulfillment", offset);
+            case TRAILING_BYTES:
+                throw new MalformedFulfillmentException("Unexpected trailing bytes", offset);
+            case UNKNOWN_TYPE:
+                throw new MalformedFulfillmentException("Unknown fulfillment type", offset);
+            default:
+                throw new MalformedFulfillmentException("Invalid fulfillment", offset);
+        }
+    }
+
+    /*
+     * A fulfillment being decoded. Prefix and threshold fulfillments wait
+     * for their subfulfillments.
+     */
+    private static final class Frame {
+        final ConditionType type;
+        final Cursor payload;
+        final long start;
+        final Object event;
+        byte[] prefix;
+        int threshold;
+        int remaining;
+        List<Integer> weights;
+        final List<Fulfillment> children = new ArrayList<Fulfillment>();
+
+        Frame(ConditionType type, Cursor payload, boolean record) {
+            this.type = type;
+            this.payload = payload;
+            this.start = record ? Metrics.start() : Metrics.DISABLED;
+            this.event = record ? FlightRecorderEvents.begin(FlightRecorderEvents.DECODE) : null;
+        }
+
+        /* The fulfillment once all its subfulfillments are decoded, null if rejected. */
+        Fulfillment build() {
+            if (!payload.expectEnd()) {
+                return null;
+            }
+            if (type == ConditionType.PREFIX_SHA256) {
+                return new PrefixSha256Fulfillment(ConditionType.PREFIX_SHA256, payload.asPayload(), prefix,
+                        children.get(0));
+            }
+            try {
+                return new ThresholdSHA256Fulfillment(ConditionType.THRESHOLD_SHA256, payload.asPayload(),
+                        threshold, weights, children);
+            } catch (RuntimeException e) {
+                payload.result.fail(DecodeError.INVALID_VALUE, payload.start);
+                return null;
+            }
+        }
+
+        void close(boolean success) {
+            int length = payload.limit - payload.start;
+            FlightRecorderEvents.commit(event, type, length, success);
+            Metrics.stop(start, type, Operation.DECODE_FULFILLMENT, length, success);
+        }
+    }
+
+    /*
+     * Bounds-checked reader over a slice of the input. Failed reads record
+     * the reason in the result and return -1 or null.
+     */
+    private static final class Cursor {
+        final byte[] data;
+        final int start;
+        final int limit;
+        final DecodeResult<?> result;
+        int position;
+
+        Cursor(byte[] data, int offset, int length, DecodeResult<?> result) {
+            this.data = data;
+            this.start = offset;
+            this.position = offset;
+            this.limit = offset + length;
+            this.result = result;
+        }
+
+        int remaining() {
+            return limit - position;
+        }
+
+        FulfillmentPayload asPayload() {
+            return FulfillmentPayload.wrap(data, start, limit - start);
+        }
+
+        boolean expectEnd() {
+            return position == limit || result.fail(DecodeError.TRAILING_BYTES, position);
+        }
+
+        ConditionType readType() {
+            if (limit - position < 2) {
+                result.fail(DecodeError.TRUNCATED, position);
+                return null;
+            }
+            int code = ((data[position] & 0xff) << 8) | (data[position + 1] & 0xff);
+            // Type codes are 0 to 4, ED25519 is the last one
+            if (code > ConditionType.ED25519.getTypeCode()) {
+                result.fail(DecodeError.UNKNOWN_TYPE, position);
+                return null;
+            }
+            position += 2;
+            return ConditionType.valueOf(code);
+        }
+
+        int readLengthIndicator() {
+            if (position >= limit) {
+                result.fail(DecodeError.TRUNCATED, position);
+                return -1;
+            }
+            int length = data[position++] & 0xff;
+            if (length < 128) {
+                return length;
+            }
+            if (length == 128) {
+                result.fail(DecodeError.ILLEGAL_LENGTH_INDICATOR, position - 1);
+                return -1;
+            }
+            int lengthOfLength = length - 128;
+            if (lengthOfLength > 3) {
+                result.fail(DecodeError.UNSUPPORTED_LENGTH, position - 1);
+                return -1;
+            }
+            if (limit - position < lengthOfLength) {
+                result.fail(DecodeError.TRUNCATED, position);
+                return -1;
+            }
+            length = 0;
+            for (int i = 0; i < lengthOfLength; i++) {
+                length = (length << 8) | (data[position++] & 0xff);
+            }
+            return length;
+        }
+
+        /* Big-endian, as written by OerOutputStream.writeVarUInt. */
+        int readVarUInt() {
+            int offset = position;
+            int length = readLengthIndicator();
+            if (length < 0) {
+                return -1;
+            }
+            if (length < 1 || length > 3) {
+                result.fail(DecodeError.UNSUPPORTED_LENGTH, offset);
+                return -1;
+            }
+            if (limit - position < length) {
+                result.fail(DecodeError.TRUNCATED, position);
+                return -1;
+            }
+            int value = 0;
+            for (int i = 0; i < length; i++) {
+                value = (value << 8) | (data[position++] & 0xff);
+            }
+            return value;
+        }
+
+        Cursor readSlice() {
+            int length = readLengthIndicator();
+            if (length < 0) {
+                return null;
+            }
+            if (length > limit - position) {
+                result.fail(DecodeError.TRUNCATED, position);
+                return null;
+            }
+            Cursor slice = new Cursor(data, position, length, result);
+            position += length;
+            return slice;
+        }
+
+        byte[] readOctetString() {
+            Cursor slice = readSlice();
+            return slice == null ? null : Arrays.copyOfRange(data, slice.start, slice.limit);
+        }
+    }
+}
@@ -1,23 +1,18 @@
 package org.interledger.cryptoconditions.encoding;
 
-import java.io.ByteArrayInputStream;
-
-
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.math.BigInteger;
 
 import org.interledger.cryptoconditions.ConditionType;
 import org.interledger.cryptoconditions.Fulfillment;
-import org.interledger.cryptoconditions.PrefixSha256Fulfillment;
-import org.interledger.cryptoconditions.PreimageSha256Fulfillment;
-import org.interledger.cryptoconditions.Ed25519Fulfillment;
-import org.interledger.cryptoconditions.RsaSha256Fulfillment;
-import org.interledger.cryptoconditions.ThresholdSHA256Fulfillment;
 import org.interledger.cryptoconditions.UnsupportedConditionException;
 import org.interledger.cryptoconditions.UnsupportedLengthException;
+import org.interledger.cryptoconditions.jfr.FlightRecorderEvents;
+import org.interledger.cryptoconditions.metrics.Metrics;
+import org.interledger.cryptoconditions.metrics.Operation;
 
-import org.interledger.cryptoconditions.types.*;
+import org.interledger.cryptoconditions.types.FulfillmentPayload;
 
 /**
  * Reads and decodes Fulfillments from an underlying input stream.
@@ -30,8 +25,22 @@ import org.interledger.cryptoconditions.types.*;
  */
 public class FulfillmentInputStream extends OerInputStream {
 
+    /* Nested fulfillments are decoded iteratively, within the default limits. */
+    private static final FulfillmentDecoder DECODER = new FulfillmentDecoder();
+
+    private final FulfillmentDecoder decoder;
+
     public FulfillmentInputStream(InputStream stream) {
+        this(stream, DECODER);
+    }
+
+    /**
+     * @param decoder decodes the fulfillments read, within its limits. Its
+     *            maximum number of bytes also bounds the payload read.
+     */
+    public FulfillmentInputStream(InputStream stream, FulfillmentDecoder decoder) {
         super(stream);
+        this.decoder = decoder;
     }
 
     /**
@@ -50,68 +59,23 @@ public class FulfillmentInputStream extends OerInputStream {
      */
     public Fulfillment readFulfillment()
             throws IOException, UnsupportedConditionException, OerDecodingException {
-        final ConditionType type = readConditiontype();
-        final FulfillmentPayload payload = new FulfillmentPayload(this.readPayload());
-
-        ByteArrayInputStream byteStream = new ByteArrayInputStream(payload.payload);
-        FulfillmentInputStream stream01 = new FulfillmentInputStream(byteStream);
-
+        long start = Metrics.start();
+        Object event = FlightRecorderEvents.begin(FlightRecorderEvents.DECODE);
+        ConditionType type = null;
+        int bytes = 0;
+        boolean success = false;
         try {
-            switch (type) {
-                case PREIMAGE_SHA256:
-                    return new PreimageSha256Fulfillment(ConditionType.PREIMAGE_SHA256, payload);
-                case PREFIX_SHA256:
-                    byte[] prefix = stream01.readOctetString();
-                    Fulfillment subfulfillment = stream01.readFulfillment();
-                    return new PrefixSha256Fulfillment(ConditionType.PREFIX_SHA256, payload, prefix, subfulfillment);
-                case RSA_SHA256:
-                    /*
-                     * REF: https://interledger.org/five-bells-condition/spec.html#rfc.section.4.4.2
-                     * RsaSha256FulfillmentPayload ::= SEQUENCE {
-                     * modulus OCTET STRING (SIZE(128..512)),
-                     * signature OCTET STRING (SIZE(128..512))
-                     * }
-                     */
-                    byte[] bytesModulus = stream01.readOctetString();
-                    byte[] bytesSignatureRSASHA256 = stream01.readOctetString();
-                    BigInteger modulus = new BigInteger(1, bytesModulus); // TODO: RECHECK
-                    SignaturePayload signature01 = new SignaturePayload(bytesSignatureRSASHA256);
-                    return new RsaSha256Fulfillment(ConditionType.RSA_SHA256, payload, modulus, signature01);
-                case ED25519:
-                    /*
-                 * REF: https://interledger.org/five-bells-condition/spec.html#rfc.section.4.5.2
-                 * Ed25519FulfillmentPayload ::= SEQUENCE {
-                 *     publicKey OCTET STRING (SIZE(32)),
-                 *     signature OCTET STRING (SIZE(64))
-                 * }
-                     */
-                    byte[] bytesPublicKey = stream01.readOctetString();
-                    byte[] bytesSignatureEd25519 = stream01.readOctetString();
-                    java.security.PublicKey publicKey = Ed25519Fulfillment.publicKeyFromByteArray(new KeyPayload(bytesPublicKey));
-                    SignaturePayload signature02 = new SignaturePayload(bytesSignatureEd25519);
-                    return new Ed25519Fulfillment(ConditionType.ED25519, payload, publicKey, signature02);
-                case THRESHOLD_SHA256:
-                    int threshold = stream01.readVarUInt();
-                    int conditionCount = stream01.readVarUInt();
-                    
-                    java.util.List<Integer>     weight_l = new java.util.ArrayList<Integer>();
-                    java.util.List<Fulfillment> ff_l     = new java.util.ArrayList<Fulfillment>();
-                    for (int idx=0; idx < conditionCount; idx++) {
-                        int weight = stream01.readVarUInt();
-                        weight_l.add(weight);
-                        Fulfillment ff = stream01.readFulfillment();
-                        ff_l.add(ff);
-                    }
-                    return new ThresholdSHA256Fulfillment(ConditionType.THRESHOLD_SHA256, payload, threshold, weight_l, ff_l);
-                default:
-                    throw new RuntimeException("Unimplemented fulfillment type encountered.");
-            }
-        } catch (Exception e) {
-            throw new RuntimeException(e.toString(), e);
+            type = readConditiontype();
+            // readPayload returns a freshly allocated array: hand it over without copying.
+            final FulfillmentPayload payload = FulfillmentPayload.wrap(this.readPayload());
+            bytes = payload.length;
+            Fulfillment result = decoder.decode(type, payload, false);
+            success = true;
+            return result;
         } finally {
-            stream01.close();
+            FlightRecorderEvents.commit(event, type, bytes, success);
+            Metrics.stop(start, type, Operation.DECODE_FULFILLMENT, bytes, success);
         }
-
     }
 
     protected ConditionType readConditiontype()
@@ -120,10 +84,27 @@ public class FulfillmentInputStream extends OerInputStream {
         return ConditionType.valueOf(value);
     }
 
+    /*
+     * As readOctetString, but the declared length is checked against the
+     * decoder's limit before the payload is allocated.
+     */
     protected byte[] readPayload()
-            throws IOException, UnsupportedLengthException, IllegalLengthIndicatorException {
-
-        return readOctetString();
+            throws IOException, UnsupportedLengthException, IllegalLengthIndicatorException,
+            DecodingLimitExceededException {
+        int length = readLengthIndicator();
+        if (length > decoder.getMaxBytes()) {
+            throw new DecodingLimitExceededException(DecodingLimitExceededException.Limit.BYTES,
+                    decoder.getMaxBytes());
+        }
+        byte[] value = new byte[length];
+        for (int read = 0; read < length; ) {
+            int count = stream.read(value, read, length - read);
+            if (count < 0) {
+                throw new EOFException("Unexpected EOF when trying to decode OER data.");
+            }
+            read += count;
+        }
+        return value;
     }
 
 }
@@ -5,6 +5,7 @@ import java.io.OutputStream;
 
 import org.interledger.cryptoconditions.ConditionType;
 import org.interledger.cryptoconditions.Fulfillment;
+import org.interledger.cryptoconditions.types.FulfillmentPayload;
 
 /**
  * Writes an OER encoded fulfillment to a stream.
@@ -34,7 +35,7 @@ public class FulfillmentOutputStream extends OerOutputStream {
      */
     public void writeFulfillment(Fulfillment fulfillment) throws IOException {
         writeConditionType(fulfillment.getType());
-        writePayload(fulfillment.getPayload().payload);
+        writePayload(fulfillment.getPayload());
 
     }
 
@@ -47,4 +48,9 @@ public class FulfillmentOutputStream extends OerOutputStream {
             throws IOException {
         writeOctetString(payload);
     }
+
+    protected void writePayload(FulfillmentPayload payload)
+            throws IOException {
+        writeOctetString(payload.payload, payload.offset, payload.length);
+    }
 }
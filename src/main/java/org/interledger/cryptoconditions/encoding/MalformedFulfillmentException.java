@@ -0,0 +1,24 @@
+package org.interledger.cryptoconditions.encoding;
+
+/**
+ * Thrown if an encoded fulfillment is truncated, has trailing bytes or holds
+ * invalid values.
+ */
+public class MalformedFulfillmentException extends OerDecodingException {
+
+    private static final long serialVersionUID = -3036356925470387219L;
+
+    private final int offset;
+
+    public MalformedFulfillmentException(String message, int offset) {
+        super(message + " at offset " + offset);
+        this.offset = offset;
+    }
+
+    /**
+     * @return offset in the decoded input where the problem was found
+     */
+    public int getOffset() {
+        return offset;
+    }
+}
@@ -57,25 +57,17 @@ public class OerInputStream extends InputStream {
         // We only support a 3 byte length indicator otherwise we go beyond
         // Integer.MAX_SIZE
         int length = readLengthIndicator();
-        int value = stream.read();
-        verifyNotEOF(value);
-
-        if (length == 1) {
-            return value;
-        } else if (length == 2) {
-            int next = stream.read();
-            verifyNotEOF(next);
-            return value + (next << 8);
-        } else if (length == 3) {
+        if (length < 1 || length > 3) {
+            throw new IllegalArgumentException("Integers of greater than 16777215 (3 bytes) are not supported.");
+        }
+        // Big-endian, as written by OerOutputStream.writeVarUInt
+        int value = 0;
+        for (int i = 0; i < length; i++) {
             int next = stream.read();
             verifyNotEOF(next);
-            value += (next << 8);
-            next = stream.read();
-            verifyNotEOF(next);
-            return value + (next << 16);
-        } else {
-            throw new IllegalArgumentException("Integers of greater than 16777215 (3 bytes) are not supported.");
+            value = (value << 8) | next;
         }
+        return value;
 
     }
 
@@ -102,7 +94,6 @@ public class OerInputStream extends InputStream {
     protected int readLengthIndicator()
             throws IOException, UnsupportedLengthException, IllegalLengthIndicatorException {
         int length = stream.read();
-System.out.println("deteleme:  byte length = (byte) stream.read():"+length);
 
         verifyNotEOF(length);
 
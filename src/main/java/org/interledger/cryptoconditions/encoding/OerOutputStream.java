@@ -83,6 +83,12 @@ public class OerOutputStream extends OutputStream {
         stream.write(bytes);
     }
 
+    public void writeOctetString(byte[] bytes, int offset, int length) throws IOException {
+        writeLengthIndicator(length);
+
+        stream.write(bytes, offset, length);
+    }
+
     protected void writeLengthIndicator(int length) throws IOException {
 
         if (length < 128) {
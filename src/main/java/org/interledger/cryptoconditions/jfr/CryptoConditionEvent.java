@@ -0,0 +1,57 @@
+package org.interledger.cryptoconditions.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * JFR event types. Only referenced from JfrEventSink.
+ */
+@Category({"Interledger", "Crypto-Conditions"})
+@StackTrace(false)
+abstract class CryptoConditionEvent extends Event {
+
+    @Label("Condition Type")
+    String conditionType;
+
+    @Label("Depth")
+    @Description("Nesting depth of the operation on the thread, 0 for the outermost one")
+    int depth;
+
+    @Label("Payload Size")
+    @DataAmount
+    int payloadSize;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Name("org.interledger.cryptoconditions.Decode")
+    @Label("Decode Fulfillment")
+    static final class Decode extends CryptoConditionEvent {
+    }
+
+    @Name("org.interledger.cryptoconditions.GenerateCondition")
+    @Label("Generate Condition")
+    static final class GenerateCondition extends CryptoConditionEvent {
+    }
+
+    @Name("org.interledger.cryptoconditions.Validate")
+    @Label("Validate Fulfillment")
+    static final class Validate extends CryptoConditionEvent {
+    }
+
+    @Name("org.interledger.cryptoconditions.Hash")
+    @Label("SHA-256 Hash")
+    static final class Hash extends CryptoConditionEvent {
+    }
+
+    @Name("org.interledger.cryptoconditions.Signature")
+    @Label("Signature")
+    @Description("Signature creation or verification")
+    static final class Signature extends CryptoConditionEvent {
+    }
+}
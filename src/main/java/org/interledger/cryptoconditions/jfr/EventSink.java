@@ -0,0 +1,14 @@
+package org.interledger.cryptoconditions.jfr;
+
+import org.interledger.cryptoconditions.ConditionType;
+
+/*
+ * Indirection keeping the jdk.jfr dependent classes out of
+ * FlightRecorderEvents.
+ */
+interface EventSink {
+
+    Object begin(int kind);
+
+    void commit(Object event, ConditionType type, int size, boolean success);
+}
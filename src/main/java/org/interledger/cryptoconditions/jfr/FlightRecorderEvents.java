@@ -0,0 +1,94 @@
+package org.interledger.cryptoconditions.jfr;
+
+import org.interledger.cryptoconditions.ConditionType;
+
+/**
+ * Emits JDK Flight Recorder events for the library operations.
+ *
+ * This class does not depend on jdk.jfr. The event classes are only loaded
+ * if jdk.jfr.Event is present, so the library still runs on JVMs without
+ * JFR; there begin() always returns null.
+ *
+ * Usage at an instrumented site:
+ *
+ * <pre>
+ * Object event = FlightRecorderEvents.begin(FlightRecorderEvents.VALIDATE);
+ * boolean success = false;
+ * try {
+ *     ...
+ *     success = true;
+ * } finally {
+ *     FlightRecorderEvents.commit(event, type, size, success);
+ * }
+ * </pre>
+ *
+ * Events carry the condition type, the nesting depth of the operation on the
+ * current thread (0 for the outermost one), the payload size and the
+ * outcome. Stack traces are off by default and can be enabled per event in
+ * the JFR settings.
+ */
+public final class FlightRecorderEvents {
+
+    /** FulfillmentInputStream.readFulfillment */
+    public static final int DECODE = 0;
+    /** Fulfillment.generateCondition */
+    public static final int GENERATE_CONDITION = 1;
+    /** Fulfillment.validate */
+    public static final int VALIDATE = 2;
+    /** SHA-256 digest */
+    public static final int HASH = 3;
+    /** Signature creation or verification */
+    public static final int SIGNATURE = 4;
+
+    private static final String JFR_SINK = "org.interledger.cryptoconditions.jfr.JfrEventSink";
+
+    private static final EventSink SINK = loadSink();
+
+    private FlightRecorderEvents() {
+    }
+
+    private static EventSink loadSink() {
+        try {
+            Class.forName("jdk.jfr.Event");
+        } catch (Throwable e) {
+            return null; // No JFR on this JVM
+        }
+        try {
+            return (EventSink) Class.forName(JFR_SINK).getDeclaredConstructor().newInstance();
+        } catch (Throwable e) {
+            System.out.println("WARN: JDK Flight Recorder events disabled: " + e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * @return true if this JVM supports JFR events
+     */
+    public static boolean isAvailable() {
+        return SINK != null;
+    }
+
+    /**
+     * Start timing an operation.
+     *
+     * @param kind one of the event constants of this class
+     * @return the event to pass to commit, null if JFR is unavailable or the
+     *         event is not enabled in the running recordings
+     */
+    public static Object begin(int kind) {
+        return SINK == null ? null : SINK.begin(kind);
+    }
+
+    /**
+     * Complete an operation started with begin. Does nothing if event is null.
+     *
+     * @param type condition type, null if unknown
+     * @param size size of the processed payload or message in bytes
+     * @param success false if the operation threw or validation failed
+     */
+    public static void commit(Object event, ConditionType type, int size, boolean success) {
+        if (event != null) {
+            SINK.commit(event, type, size, success);
+        }
+    }
+}
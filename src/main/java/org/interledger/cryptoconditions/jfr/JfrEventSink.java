@@ -0,0 +1,66 @@
+package org.interledger.cryptoconditions.jfr;
+
+import jdk.jfr.FlightRecorder;
+
+import org.interledger.cryptoconditions.ConditionType;
+
+/*
+ * EventSink backed by jdk.jfr. Only loaded reflectively by
+ * FlightRecorderEvents once jdk.jfr.Event is known to exist.
+ */
+final class JfrEventSink implements EventSink {
+
+    /* Nesting depth of the events in progress on the current thread */
+    private static final ThreadLocal<int[]> DEPTH = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    @Override
+    public Object begin(int kind) {
+        if (!FlightRecorder.isInitialized()) {
+            // No recording yet: don't pay for registering the event classes
+            return null;
+        }
+        CryptoConditionEvent event = newEvent(kind);
+        if (!event.isEnabled()) {
+            return null;
+        }
+        int[] depth = DEPTH.get();
+        event.depth = depth[0]++;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commit(Object event, ConditionType type, int size, boolean success) {
+        CryptoConditionEvent e = (CryptoConditionEvent) event;
+        e.end();
+        DEPTH.get()[0]--;
+        if (e.shouldCommit()) {
+            e.conditionType = type == null ? null : type.toString();
+            e.payloadSize = size;
+            e.outcome = success ? "OK" : "FAILED";
+            e.commit();
+        }
+    }
+
+    private static CryptoConditionEvent newEvent(int kind) {
+        switch (kind) {
+            case FlightRecorderEvents.DECODE:
+                return new CryptoConditionEvent.Decode();
+            case FlightRecorderEvents.GENERATE_CONDITION:
+                return new CryptoConditionEvent.GenerateCondition();
+            case FlightRecorderEvents.VALIDATE:
+                return new CryptoConditionEvent.Validate();
+            case FlightRecorderEvents.HASH:
+                return new CryptoConditionEvent.Hash();
+            case FlightRecorderEvents.SIGNATURE:
+                return new CryptoConditionEvent.Signature();
+            default:
+                throw new IllegalArgumentException("Unknown event kind " + kind);
+        }
+    }
+}
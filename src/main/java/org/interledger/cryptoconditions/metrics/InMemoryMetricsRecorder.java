@@ -0,0 +1,62 @@
+package org.interledger.cryptoconditions.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.interledger.cryptoconditions.ConditionType;
+
+/**
+ * MetricsRecorder keeping one OperationStats per (ConditionType, Operation)
+ * in memory. All stats are allocated up front, recording never allocates
+ * nor locks.
+ */
+public final class InMemoryMetricsRecorder implements MetricsRecorder {
+
+    private static final ConditionType[] TYPES = ConditionType.values();
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    /* Indexed by [type ordinal, TYPES.length for an unknown type][operation ordinal] */
+    private final OperationStats[][] stats;
+
+    public InMemoryMetricsRecorder() {
+        stats = new OperationStats[TYPES.length + 1][OPERATIONS.length];
+        for (int t = 0; t <= TYPES.length; t++) {
+            for (Operation operation : OPERATIONS) {
+                stats[t][operation.ordinal()] = new OperationStats(t < TYPES.length ? TYPES[t] : null, operation);
+            }
+        }
+    }
+
+    @Override
+    public void record(ConditionType type, Operation operation, long nanos, int bytes, boolean success) {
+        get(type, operation).record(nanos, bytes, success);
+    }
+
+    /**
+     * @param type condition type, null for operations that failed before the
+     *        type was known
+     */
+    public OperationStats get(ConditionType type, Operation operation) {
+        return stats[type == null ? TYPES.length : type.ordinal()][operation.ordinal()];
+    }
+
+    /**
+     * @return every OperationStats, unknown type last
+     */
+    public List<OperationStats> getAll() {
+        List<OperationStats> result = new ArrayList<OperationStats>(stats.length * OPERATIONS.length);
+        for (OperationStats[] row : stats) {
+            Collections.addAll(result, row);
+        }
+        return result;
+    }
+
+    public void reset() {
+        for (OperationStats[] row : stats) {
+            for (OperationStats s : row) {
+                s.reset();
+            }
+        }
+    }
+}
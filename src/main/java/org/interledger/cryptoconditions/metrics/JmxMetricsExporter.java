@@ -0,0 +1,79 @@
+package org.interledger.cryptoconditions.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registers the OperationStats of an InMemoryMetricsRecorder as MXBeans named
+ *
+ * <pre>
+ * org.interledger.cryptoconditions:type=Metrics,conditionType=ED25519,operation=VALIDATE
+ * </pre>
+ *
+ * Operations that failed before their type was known use
+ * conditionType=UNKNOWN.
+ */
+public final class JmxMetricsExporter {
+
+    public static final String DOMAIN = "org.interledger.cryptoconditions";
+
+    private final MBeanServer server;
+    private final List<ObjectName> registered = new ArrayList<ObjectName>();
+
+    public JmxMetricsExporter() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public JmxMetricsExporter(MBeanServer server) {
+        if (server == null) {
+            throw new IllegalArgumentException("server cannot be null.");
+        }
+        this.server = server;
+    }
+
+    /**
+     * Register every stats of recorder. Names already registered are
+     * replaced.
+     */
+    public synchronized void register(InMemoryMetricsRecorder recorder) {
+        try {
+            for (OperationStats stats : recorder.getAll()) {
+                ObjectName name = objectName(stats);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(stats, name);
+                registered.add(name);
+            }
+        } catch (JMException e) {
+            throw new RuntimeException(e.toString(), e);
+        }
+    }
+
+    /**
+     * Unregister everything registered by this exporter.
+     */
+    public synchronized void unregister() {
+        for (ObjectName name : registered) {
+            try {
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (JMException e) {
+                System.out.println("WARN: could not unregister " + name + ": " + e.toString());
+            }
+        }
+        registered.clear();
+    }
+
+    static ObjectName objectName(OperationStats stats) throws JMException {
+        String type = stats.getType() == null ? "UNKNOWN" : stats.getType().toString();
+        return new ObjectName(DOMAIN + ":type=Metrics,conditionType=" + type
+                + ",operation=" + stats.getOperation());
+    }
+}
@@ -0,0 +1,120 @@
+package org.interledger.cryptoconditions.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear histogram of non-negative long values (nanoseconds).
+ *
+ * Values are bucketed as in HdrHistogram: every power of two range is split
+ * in SUB_BUCKETS linear buckets, so any recorded value is reported with a
+ * relative error below 1 / SUB_BUCKETS (about 6%). Values below 2 *
+ * SUB_BUCKETS are exact. Values above MAX_VALUE are clamped.
+ *
+ * Recording is one atomic increment plus a few atomic updates for count,
+ * total and max; readers see a consistent enough, not atomic, snapshot.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    /** Linear buckets per power of two */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Largest distinct value, about 18 minutes in nanoseconds */
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    private static final int EXACT = 2 * SUB_BUCKETS;
+    private static final int MAX_SHIFT = (63 - Long.numberOfLeadingZeros(MAX_VALUE)) - SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = EXACT + MAX_SHIFT * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > MAX_VALUE) {
+            value = MAX_VALUE;
+        }
+        buckets.incrementAndGet(indexOf(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0.0 : (double) total.get() / n;
+    }
+
+    /**
+     * @param percentile in the range [0, 100]
+     * @return the highest value equivalent to the value at percentile, 0 if
+     *         nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0.0 || percentile > 100.0) {
+            throw new IllegalArgumentException("percentile must be in [0, 100]: " + percentile);
+        }
+        long[] snapshot = new long[BUCKET_COUNT];
+        long n = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return EXACT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long highestValueOf(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+        int shift = (index - EXACT) / SUB_BUCKETS + 1;
+        long subBucket = (index - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
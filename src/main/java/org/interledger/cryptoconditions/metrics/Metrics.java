@@ -0,0 +1,73 @@
+package org.interledger.cryptoconditions.metrics;
+
+import org.interledger.cryptoconditions.ConditionType;
+
+/**
+ * Global hook between the library and a MetricsRecorder.
+ *
+ * No recorder is installed by default. In that case start() is a single
+ * volatile read and stop() returns immediately, no clock is read.
+ *
+ * Usage at an instrumented site:
+ *
+ * <pre>
+ * long start = Metrics.start();
+ * boolean success = false;
+ * try {
+ *     ...
+ *     success = true;
+ * } finally {
+ *     Metrics.stop(start, type, Operation.VALIDATE, bytes, success);
+ * }
+ * </pre>
+ */
+public final class Metrics {
+
+    /** Returned by start() when no recorder is installed */
+    public static final long DISABLED = Long.MIN_VALUE;
+
+    private static volatile MetricsRecorder recorder;
+
+    private Metrics() {
+    }
+
+    /**
+     * Install a recorder, or disable metrics by passing null.
+     */
+    public static void setRecorder(MetricsRecorder recorder) {
+        Metrics.recorder = recorder;
+    }
+
+    /**
+     * @return the installed recorder, null if metrics are disabled
+     */
+    public static MetricsRecorder getRecorder() {
+        return recorder;
+    }
+
+    public static boolean isEnabled() {
+        return recorder != null;
+    }
+
+    /**
+     * @return the start timestamp of an operation, DISABLED if no recorder is
+     *         installed
+     */
+    public static long start() {
+        return recorder == null ? DISABLED : System.nanoTime();
+    }
+
+    /**
+     * Record an operation started with start(). Does nothing if it was
+     * started while metrics were disabled.
+     */
+    public static void stop(long start, ConditionType type, Operation operation, int bytes, boolean success) {
+        if (start == DISABLED) {
+            return;
+        }
+        MetricsRecorder current = recorder;
+        if (current != null) {
+            current.record(type, operation, System.nanoTime() - start, bytes, success);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.interledger.cryptoconditions.metrics;
+
+import org.interledger.cryptoconditions.ConditionType;
+
+/**
+ * Receives one call per timed operation. Install an implementation with
+ * Metrics.setRecorder.
+ *
+ * Implementations are called on the hot path from any thread and must be
+ * thread-safe, must not block and must not throw.
+ */
+public interface MetricsRecorder {
+
+    /**
+     * @param type condition type of the operation, null if it failed before
+     *        the type was known
+     * @param operation the timed operation
+     * @param nanos elapsed time in nanoseconds
+     * @param bytes size of the processed input (payload, message or URI)
+     * @param success false if the operation threw or validation failed
+     */
+    void record(ConditionType type, Operation operation, long nanos, int bytes, boolean success);
+}
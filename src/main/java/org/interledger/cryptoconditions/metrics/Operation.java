@@ -0,0 +1,18 @@
+package org.interledger.cryptoconditions.metrics;
+
+/**
+ * Library operations timed by the metrics hooks.
+ */
+public enum Operation {
+
+    /** FulfillmentInputStream.readFulfillment, nested fulfillments included */
+    DECODE_FULFILLMENT,
+    /** Fulfillment.getCondition when the condition is not cached yet */
+    GENERATE_CONDITION,
+    /** Fulfillment.validate. A false result counts as a failure */
+    VALIDATE,
+    /** new ConditionImpl(String) */
+    PARSE_CONDITION_URI,
+    /** FulfillmentFactory.getFulfillmentFromURI */
+    PARSE_FULFILLMENT_URI
+}
@@ -0,0 +1,102 @@
+package org.interledger.cryptoconditions.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.interledger.cryptoconditions.ConditionType;
+
+/**
+ * Counters and latency histogram of one (ConditionType, Operation) pair.
+ */
+public final class OperationStats implements OperationStatsMXBean {
+
+    private final ConditionType type;
+    private final Operation operation;
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    OperationStats(ConditionType type, Operation operation) {
+        this.type = type;
+        this.operation = operation;
+    }
+
+    void record(long nanos, int bytes, boolean success) {
+        latency.record(nanos);
+        if (bytes > 0) {
+            this.bytes.addAndGet(bytes);
+        }
+        if (!success) {
+            failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the condition type, null for operations that failed before the
+     *         type was known
+     */
+    public ConditionType getType() {
+        return type;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.get();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    @Override
+    public double getMeanNanos() {
+        return latency.getMean();
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return latency.getMax();
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return latency.getValueAtPercentile(50.0);
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return latency.getValueAtPercentile(99.0);
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return latency.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        failures.set(0);
+        bytes.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return (type == null ? "UNKNOWN" : type.toString()) + "/" + operation
+                + " count=" + getCount() + " failures=" + getFailures() + " bytes=" + getBytes()
+                + " p50=" + getP50Nanos() + "ns p99=" + getP99Nanos() + "ns max=" + getMaxNanos() + "ns";
+    }
+}
@@ -0,0 +1,25 @@
+package org.interledger.cryptoconditions.metrics;
+
+/**
+ * JMX view of an OperationStats. Latencies are in nanoseconds.
+ */
+public interface OperationStatsMXBean {
+
+    long getCount();
+
+    long getFailures();
+
+    long getBytes();
+
+    double getMeanNanos();
+
+    long getMaxNanos();
+
+    long getP50Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+    void reset();
+}
@@ -0,0 +1,84 @@
+package org.interledger.cryptoconditions.spi;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Security;
+import java.security.Signature;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.spec.RSAPrivateCrtKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+/**
+ * SHA-256 and RSA-PSS from the Bouncy Castle provider, the default for
+ * RSA-PSS.
+ */
+public class BouncyCastleBackend implements CryptoBackend {
+
+    public static final String NAME = "bc";
+    private static final BigInteger RSA_PUBLIC_EXPONENT = BigInteger.valueOf(65537);
+
+    /* Registering the provider is slow, wait for the first engine. */
+    private static final class ProviderHolder {
+        static final Provider PROVIDER;
+
+        static {
+            Provider provider = Security.getProvider("BC");
+            if (provider == null) {
+                provider = new BouncyCastleProvider();
+                Security.addProvider(provider);
+            }
+            PROVIDER = provider;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean supports(Primitive primitive) {
+        return primitive != Primitive.ED25519;
+    }
+
+    @Override
+    public MessageDigest newSha256() throws GeneralSecurityException {
+        return MessageDigest.getInstance("SHA-256", ProviderHolder.PROVIDER);
+    }
+
+    @Override
+    public Signature newRsaPssVerifier(BigInteger modulus) throws GeneralSecurityException {
+        Signature engine = Signature.getInstance("SHA256withRSA/PSS", ProviderHolder.PROVIDER);
+        engine.initVerify(KeyFactory.getInstance("RSA", ProviderHolder.PROVIDER).generatePublic(
+                new RSAPublicKeySpec(modulus, RSA_PUBLIC_EXPONENT)));
+        return engine;
+    }
+
+    @Override
+    public Signature newRsaPssSigner(RSAPrivateCrtKey key) throws GeneralSecurityException {
+        Signature engine = Signature.getInstance("SHA256withRSA/PSS", ProviderHolder.PROVIDER);
+        engine.initSign(KeyFactory.getInstance("RSA", ProviderHolder.PROVIDER).generatePrivate(new RSAPrivateCrtKeySpec(
+                key.getModulus(), key.getPublicExponent(), key.getPrivateExponent(),
+                key.getPrimeP(), key.getPrimeQ(), key.getPrimeExponentP(), key.getPrimeExponentQ(),
+                key.getCrtCoefficient())));
+        return engine;
+    }
+
+    @Override
+    public Signature newEd25519Verifier(PublicKey key) throws GeneralSecurityException {
+        throw new NoSuchAlgorithmException("Ed25519 is not supported by " + NAME);
+    }
+
+    @Override
+    public Signature newEd25519Signer(PrivateKey key) throws GeneralSecurityException {
+        throw new NoSuchAlgorithmException("Ed25519 is not supported by " + NAME);
+    }
+}
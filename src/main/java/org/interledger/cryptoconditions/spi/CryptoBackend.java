@@ -0,0 +1,60 @@
+package org.interledger.cryptoconditions.spi;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.RSAPrivateCrtKey;
+
+/**
+ * Source of the digests and signature engines used by fulfillments.
+ *
+ * Implementations are found with {@link java.util.ServiceLoader}, listed in
+ * META-INF/services/org.interledger.cryptoconditions.spi.CryptoBackend, and
+ * need a public no-argument constructor. {@link CryptoBackends} picks one
+ * backend per {@link Primitive}.
+ *
+ * Methods for unsupported primitives throw
+ * {@link java.security.NoSuchAlgorithmException}. Returned objects are not
+ * thread-safe, callers keep one per thread.
+ */
+public interface CryptoBackend {
+
+    /**
+     * @return short unique name, used to select the backend
+     */
+    String getName();
+
+    boolean supports(Primitive primitive);
+
+    MessageDigest newSha256() throws GeneralSecurityException;
+
+    /**
+     * @return an engine initialized to verify RSA-PSS signatures for the
+     *         modulus, with public exponent 65537
+     */
+    Signature newRsaPssVerifier(BigInteger modulus) throws GeneralSecurityException;
+
+    /**
+     * @return an engine initialized to sign with the key
+     */
+    Signature newRsaPssSigner(RSAPrivateCrtKey key) throws GeneralSecurityException;
+
+    /**
+     * @param key an Ed25519 public key of any provider; keys of other
+     *            providers are converted from their X.509 encoding
+     * @return an engine initialized to verify signatures of the key
+     */
+    Signature newEd25519Verifier(PublicKey key) throws GeneralSecurityException;
+
+    /**
+     * @param key an Ed25519 private key of any provider; keys of other
+     *            providers are converted from their PKCS#8 encoding. Callers
+     *            creating several engines pass the same key, so backends can
+     *            reuse its expanded form.
+     * @return an engine initialized to sign with the key
+     */
+    Signature newEd25519Signer(PrivateKey key) throws GeneralSecurityException;
+}
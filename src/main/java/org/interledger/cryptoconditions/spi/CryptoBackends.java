@@ -0,0 +1,170 @@
+package org.interledger.cryptoconditions.spi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Registry of the {@link CryptoBackend}s on the class path and of the one
+ * selected for each {@link Primitive}.
+ *
+ * The defaults are the providers this library always used: the JDK for
+ * SHA-256, Bouncy Castle for RSA-PSS and ed25519-java for Ed25519. They can
+ * be changed with system properties read when the class is loaded:
+ * <ul>
+ * <li>{@value #PROPERTY}.&lt;PRIMITIVE&gt;=&lt;name&gt;, e.g.
+ * {@value #PROPERTY}.ED25519=jdk, selects a backend by name</li>
+ * <li>{@value #PROPERTY}={@value #BENCHMARK} runs {@link #selectFastest}
+ * first</li>
+ * </ul>
+ * A property naming an unknown or unsuitable backend is ignored with a
+ * warning. Backends can also be selected at runtime with {@link #select} and
+ * {@link #selectFastest}. Fulfillments and signers keep their engines per
+ * thread, a new selection applies to the engines created after it: select at
+ * startup.
+ */
+public final class CryptoBackends {
+
+    public static final String PROPERTY = "org.interledger.cryptoconditions.backend";
+    public static final String BENCHMARK = "benchmark";
+    /** Time spent measuring each backend by the startup benchmark. */
+    public static final long DEFAULT_BENCHMARK_NANOS = 50L * 1000 * 1000;
+
+    private static final List<CryptoBackend> BACKENDS = load();
+    private static final AtomicReferenceArray<CryptoBackend> SELECTED =
+            new AtomicReferenceArray<CryptoBackend>(Primitive.values().length);
+
+    static {
+        select(Primitive.SHA256, JdkBackend.NAME);
+        select(Primitive.RSA_PSS_SHA256, BouncyCastleBackend.NAME);
+        select(Primitive.ED25519, EdDSAJavaBackend.NAME);
+        if (BENCHMARK.equals(System.getProperty(PROPERTY))) {
+            selectFastest(DEFAULT_BENCHMARK_NANOS);
+        }
+        for (Primitive primitive : Primitive.values()) {
+            String name = System.getProperty(PROPERTY + "." + primitive.name());
+            if (name != null) {
+                // Failing here would make the class, and with it all crypto, unusable
+                try {
+                    select(primitive, name.trim());
+                } catch (IllegalArgumentException e) {
+                    System.out.println("WARN: ignoring " + PROPERTY + "." + primitive.name() + ", keeping "
+                            + get(primitive).getName() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private CryptoBackends() {
+    }
+
+    private static List<CryptoBackend> load() {
+        List<CryptoBackend> backends = new ArrayList<CryptoBackend>();
+        try {
+            Iterator<CryptoBackend> it = ServiceLoader.load(CryptoBackend.class,
+                    CryptoBackends.class.getClassLoader()).iterator();
+            while (it.hasNext()) {
+                add(backends, it.next());
+            }
+        } catch (ServiceConfigurationError e) {
+            throw new RuntimeException("Can't load crypto backends: " + e.getMessage(), e);
+        }
+        // Jars repackaged without META-INF/services still get the built-in backends
+        add(backends, new JdkBackend());
+        add(backends, new BouncyCastleBackend());
+        add(backends, new EdDSAJavaBackend());
+        return Collections.unmodifiableList(backends);
+    }
+
+    private static void add(List<CryptoBackend> backends, CryptoBackend backend) {
+        for (CryptoBackend existing : backends) {
+            if (existing.getName().equals(backend.getName())) {
+                return;
+            }
+        }
+        backends.add(backend);
+    }
+
+    /**
+     * @return all the backends found, in discovery order
+     */
+    public static List<CryptoBackend> getBackends() {
+        return BACKENDS;
+    }
+
+    /**
+     * @return the backend with the name, null if there is none
+     */
+    public static CryptoBackend getBackend(String name) {
+        for (CryptoBackend backend : BACKENDS) {
+            if (backend.getName().equals(name)) {
+                return backend;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the backend selected for the primitive
+     */
+    public static CryptoBackend get(Primitive primitive) {
+        return SELECTED.get(primitive.ordinal());
+    }
+
+    /**
+     * Select the backend with the name for a primitive.
+     *
+     * @throws IllegalArgumentException if there is no such backend or it
+     *             doesn't support the primitive
+     */
+    public static void select(Primitive primitive, String name) {
+        CryptoBackend backend = getBackend(name);
+        if (backend == null) {
+            throw new IllegalArgumentException("Unknown crypto backend: " + name);
+        }
+        if (!backend.supports(primitive)) {
+            throw new IllegalArgumentException("Crypto backend " + name + " doesn't support " + primitive);
+        }
+        SELECTED.set(primitive.ordinal(), backend);
+    }
+
+    /**
+     * Measure every backend on every primitive it supports and select the
+     * fastest of those giving correct results: known answers for SHA-256
+     * and Ed25519, signatures verified across backends for RSA-PSS.
+     * Primitives no backend passes keep their selection.
+     *
+     * @param nanosPerBackend time spent measuring each backend on each
+     *            primitive, as much again is spent warming it up
+     * @return the selection for each primitive
+     */
+    public static Map<Primitive, CryptoBackend> selectFastest(long nanosPerBackend) {
+        SelfBenchmark benchmark = new SelfBenchmark(BACKENDS);
+        Map<Primitive, CryptoBackend> selection = new EnumMap<Primitive, CryptoBackend>(Primitive.class);
+        for (Primitive primitive : Primitive.values()) {
+            CryptoBackend fastest = null;
+            double fastestRate = 0;
+            for (CryptoBackend backend : BACKENDS) {
+                if (!backend.supports(primitive) || !benchmark.isCorrect(backend, primitive)) {
+                    continue;
+                }
+                double rate = benchmark.measure(backend, primitive, nanosPerBackend);
+                if (fastest == null || rate > fastestRate) {
+                    fastest = backend;
+                    fastestRate = rate;
+                }
+            }
+            if (fastest != null) {
+                SELECTED.set(primitive.ordinal(), fastest);
+            }
+            selection.put(primitive, get(primitive));
+        }
+        return selection;
+    }
+}
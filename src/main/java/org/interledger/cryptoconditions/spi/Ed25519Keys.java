@@ -0,0 +1,81 @@
+package org.interledger.cryptoconditions.spi;
+
+import java.security.InvalidKeyException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+import net.i2p.crypto.eddsa.EdDSAPrivateKey;
+
+/*
+ * Conversions between raw Ed25519 keys and the DER encodings providers
+ * exchange them in.
+ */
+final class Ed25519Keys {
+
+    static final int KEY_LENGTH = 32;
+
+    /* SubjectPublicKeyInfo for id-Ed25519 (RFC 8410), followed by the raw key. */
+    private static final byte[] X509_PREFIX = {
+        0x30, 0x2a, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x03, 0x21, 0x00
+    };
+    /* PKCS#8 PrivateKeyInfo for id-Ed25519 (RFC 8410), followed by the seed. */
+    private static final byte[] PKCS8_PREFIX = {
+        0x30, 0x2e, 0x02, 0x01, 0x00, 0x30, 0x05, 0x06, 0x03, 0x2b, 0x65, 0x70, 0x04, 0x22, 0x04, 0x20
+    };
+
+    private Ed25519Keys() {
+    }
+
+    /*
+     * Every X.509 encoding of an Ed25519 key, whatever the algorithm
+     * identifier, ends with the BIT STRING holding the raw key.
+     */
+    static byte[] rawPublicKey(PublicKey key) throws InvalidKeyException {
+        byte[] encoded = key.getEncoded();
+        if (encoded == null || encoded.length < KEY_LENGTH + 2
+                || encoded[encoded.length - KEY_LENGTH - 2] != 0x21
+                || encoded[encoded.length - KEY_LENGTH - 1] != 0) {
+            throw new InvalidKeyException("Not an X.509 encoded Ed25519 key: " + key.getAlgorithm());
+        }
+        byte[] raw = new byte[KEY_LENGTH];
+        System.arraycopy(encoded, encoded.length - KEY_LENGTH, raw, 0, KEY_LENGTH);
+        return raw;
+    }
+
+    /*
+     * ed25519-java keys hold their seed, the PKCS#8 encodings of other
+     * providers end with the OCTET STRING holding it.
+     */
+    static byte[] seed(PrivateKey key) throws InvalidKeyException {
+        if (key instanceof EdDSAPrivateKey) {
+            return ((EdDSAPrivateKey) key).getSeed().clone();
+        }
+        byte[] encoded = key.getEncoded();
+        if (encoded == null || encoded.length < KEY_LENGTH + 2
+                || encoded[encoded.length - KEY_LENGTH - 2] != 0x04
+                || encoded[encoded.length - KEY_LENGTH - 1] != KEY_LENGTH) {
+            throw new InvalidKeyException("Not a PKCS#8 encoded Ed25519 key: " + key.getAlgorithm());
+        }
+        byte[] seed = new byte[KEY_LENGTH];
+        System.arraycopy(encoded, encoded.length - KEY_LENGTH, seed, 0, KEY_LENGTH);
+        return seed;
+    }
+
+    static byte[] x509(byte[] rawPublicKey) {
+        return concat(X509_PREFIX, rawPublicKey);
+    }
+
+    static byte[] pkcs8(byte[] seed) {
+        return concat(PKCS8_PREFIX, seed);
+    }
+
+    private static byte[] concat(byte[] prefix, byte[] key) {
+        if (key.length != KEY_LENGTH) {
+            throw new IllegalArgumentException("Ed25519 keys are " + KEY_LENGTH + " bytes, not " + key.length);
+        }
+        byte[] result = new byte[prefix.length + KEY_LENGTH];
+        System.arraycopy(prefix, 0, result, 0, prefix.length);
+        System.arraycopy(key, 0, result, prefix.length, KEY_LENGTH);
+        return result;
+    }
+}
@@ -0,0 +1,78 @@
+package org.interledger.cryptoconditions.spi;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.RSAPrivateCrtKey;
+
+import net.i2p.crypto.eddsa.EdDSAEngine;
+import net.i2p.crypto.eddsa.EdDSAPrivateKey;
+import net.i2p.crypto.eddsa.EdDSAPublicKey;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+
+/**
+ * Ed25519 from the ed25519-java (net.i2p) library, the default for Ed25519.
+ */
+public class EdDSAJavaBackend implements CryptoBackend {
+
+    public static final String NAME = "eddsa";
+
+    /* Loading the curve precomputes its tables, wait for the first engine. */
+    private static final class SpecHolder {
+        static final EdDSAParameterSpec SPEC = EdDSANamedCurveTable.getByName("ed25519-sha-512");
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean supports(Primitive primitive) {
+        return primitive == Primitive.ED25519;
+    }
+
+    @Override
+    public MessageDigest newSha256() throws GeneralSecurityException {
+        throw new NoSuchAlgorithmException("SHA-256 is not supported by " + NAME);
+    }
+
+    @Override
+    public Signature newRsaPssVerifier(BigInteger modulus) throws GeneralSecurityException {
+        throw new NoSuchAlgorithmException("RSA-PSS is not supported by " + NAME);
+    }
+
+    @Override
+    public Signature newRsaPssSigner(RSAPrivateCrtKey key) throws GeneralSecurityException {
+        throw new NoSuchAlgorithmException("RSA-PSS is not supported by " + NAME);
+    }
+
+    @Override
+    public Signature newEd25519Verifier(PublicKey key) throws GeneralSecurityException {
+        if (!(key instanceof EdDSAPublicKey)) {
+            // Decoding the key is a point decompression, reuse native keys
+            key = new EdDSAPublicKey(new EdDSAPublicKeySpec(Ed25519Keys.rawPublicKey(key), SpecHolder.SPEC));
+        }
+        Signature engine = new EdDSAEngine(MessageDigest.getInstance("SHA-512"));
+        engine.initVerify(key);
+        return engine;
+    }
+
+    @Override
+    public Signature newEd25519Signer(PrivateKey key) throws GeneralSecurityException {
+        if (!(key instanceof EdDSAPrivateKey)) {
+            // Expanding the seed costs a hash and a scalar multiplication, reuse native keys
+            key = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(Ed25519Keys.seed(key), SpecHolder.SPEC));
+        }
+        Signature engine = new EdDSAEngine(MessageDigest.getInstance("SHA-512"));
+        engine.initSign(key);
+        return engine;
+    }
+}
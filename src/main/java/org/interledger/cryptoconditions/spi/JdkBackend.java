@@ -0,0 +1,107 @@
+package org.interledger.cryptoconditions.spi;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.PSSParameterSpec;
+import java.security.spec.RSAPrivateCrtKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+
+/**
+ * The providers built into the running JDK, the default for SHA-256.
+ *
+ * RSA-PSS ("RSASSA-PSS", Java 11) and Ed25519 (Java 15) are only supported
+ * when the JDK has them.
+ */
+public class JdkBackend implements CryptoBackend {
+
+    public static final String NAME = "jdk";
+    private static final BigInteger RSA_PUBLIC_EXPONENT = BigInteger.valueOf(65537);
+    private static final PSSParameterSpec PSS_SHA256 =
+            new PSSParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, 32, 1);
+
+    /* Provider lookups, done on the first supports call. Racing threads compute the same value. */
+    private volatile Boolean rsaPss;
+    private volatile Boolean ed25519;
+
+    private static boolean available(String algorithm) {
+        try {
+            Signature.getInstance(algorithm);
+            return true;
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean supports(Primitive primitive) {
+        switch (primitive) {
+            case SHA256:
+                return true;
+            case RSA_PSS_SHA256:
+                if (rsaPss == null) {
+                    rsaPss = available("RSASSA-PSS");
+                }
+                return rsaPss;
+            default:
+                if (ed25519 == null) {
+                    ed25519 = available("Ed25519");
+                }
+                return ed25519;
+        }
+    }
+
+    @Override
+    public MessageDigest newSha256() throws GeneralSecurityException {
+        return MessageDigest.getInstance("SHA-256");
+    }
+
+    @Override
+    public Signature newRsaPssVerifier(BigInteger modulus) throws GeneralSecurityException {
+        Signature engine = Signature.getInstance("RSASSA-PSS");
+        engine.setParameter(PSS_SHA256);
+        engine.initVerify(KeyFactory.getInstance("RSA").generatePublic(
+                new RSAPublicKeySpec(modulus, RSA_PUBLIC_EXPONENT)));
+        return engine;
+    }
+
+    @Override
+    public Signature newRsaPssSigner(RSAPrivateCrtKey key) throws GeneralSecurityException {
+        Signature engine = Signature.getInstance("RSASSA-PSS");
+        engine.setParameter(PSS_SHA256);
+        engine.initSign(KeyFactory.getInstance("RSA").generatePrivate(new RSAPrivateCrtKeySpec(
+                key.getModulus(), key.getPublicExponent(), key.getPrivateExponent(),
+                key.getPrimeP(), key.getPrimeQ(), key.getPrimeExponentP(), key.getPrimeExponentQ(),
+                key.getCrtCoefficient())));
+        return engine;
+    }
+
+    @Override
+    public Signature newEd25519Verifier(PublicKey key) throws GeneralSecurityException {
+        Signature engine = Signature.getInstance("Ed25519");
+        engine.initVerify(KeyFactory.getInstance("Ed25519").generatePublic(
+                new X509EncodedKeySpec(Ed25519Keys.x509(Ed25519Keys.rawPublicKey(key)))));
+        return engine;
+    }
+
+    @Override
+    public Signature newEd25519Signer(PrivateKey key) throws GeneralSecurityException {
+        Signature engine = Signature.getInstance("Ed25519");
+        engine.initSign(KeyFactory.getInstance("Ed25519").generatePrivate(
+                new PKCS8EncodedKeySpec(Ed25519Keys.pkcs8(Ed25519Keys.seed(key)))));
+        return engine;
+    }
+}
@@ -0,0 +1,11 @@
+package org.interledger.cryptoconditions.spi;
+
+/**
+ * Cryptographic primitives a {@link CryptoBackend} can provide.
+ */
+public enum Primitive {
+    SHA256,
+    /** RSASSA-PSS with SHA-256, MGF1 with SHA-256 and a 32 byte salt. */
+    RSA_PSS_SHA256,
+    ED25519
+}
@@ -0,0 +1,222 @@
+package org.interledger.cryptoconditions.spi;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.util.List;
+
+/*
+ * Known answer checks and throughput measurement behind
+ * CryptoBackends.selectFastest.
+ */
+final class SelfBenchmark {
+
+    private static final byte[] SHA256_ABC = hex("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+
+    /* RFC 8032 section 7.1, test 1: empty message. */
+    private static final byte[] ED25519_SEED = hex("9d61b19deffd5a60ba844af492ec2cc44449c5697b326919703bac031cae7f60");
+    private static final byte[] ED25519_PUBLIC_KEY =
+            hex("d75a980182b10ab7d54bfed3c964073a0ee172f3daa62325af021a68f707511a");
+    private static final byte[] ED25519_SIGNATURE = hex("e5564300c360ac729086e2cc806e828a84877f1eb8e5d974d873e065"
+            + "224901555fb8821590a33bacc61e39701cf9b46bd25bf5f0595bbe24655141438e7a100b");
+
+    private static final int RSA_BITS = 1024;
+    private static final byte[] MESSAGE = new byte[1024];
+
+    private final List<CryptoBackend> backends;
+    private RSAPrivateCrtKey rsaKey;
+
+    SelfBenchmark(List<CryptoBackend> backends) {
+        this.backends = backends;
+    }
+
+    boolean isCorrect(CryptoBackend backend, Primitive primitive) {
+        try {
+            switch (primitive) {
+                case SHA256:
+                    return MessageDigest.isEqual(SHA256_ABC, backend.newSha256().digest(new byte[]{'a', 'b', 'c'}));
+                case RSA_PSS_SHA256:
+                    return isRsaCorrect(backend);
+                default:
+                    return isEd25519Correct(backend);
+            }
+        } catch (GeneralSecurityException e) {
+            return false;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private boolean isEd25519Correct(CryptoBackend backend) throws GeneralSecurityException {
+        Signature signer = backend.newEd25519Signer(ed25519PrivateKey());
+        if (!MessageDigest.isEqual(ED25519_SIGNATURE, signer.sign())) {
+            return false;
+        }
+        Signature verifier = backend.newEd25519Verifier(ed25519PublicKey());
+        if (!verifier.verify(ED25519_SIGNATURE)) {
+            return false;
+        }
+        verifier.update((byte) 0);
+        return !verifier.verify(ED25519_SIGNATURE);
+    }
+
+    /*
+     * PSS signatures are randomized: check every signature of the backend
+     * verifies with every other backend, and the other way round.
+     */
+    private boolean isRsaCorrect(CryptoBackend backend) throws GeneralSecurityException {
+        RSAPrivateCrtKey key = rsaKey();
+        BigInteger modulus = key.getModulus();
+        for (CryptoBackend other : backends) {
+            if (!other.supports(Primitive.RSA_PSS_SHA256)) {
+                continue;
+            }
+            if (!verifies(other.newRsaPssVerifier(modulus), sign(backend.newRsaPssSigner(key)))
+                    || !verifies(backend.newRsaPssVerifier(modulus), sign(other.newRsaPssSigner(key)))) {
+                return false;
+            }
+        }
+        Signature verifier = backend.newRsaPssVerifier(modulus);
+        byte[] signature = sign(backend.newRsaPssSigner(key));
+        verifier.update((byte) 1);
+        verifier.update(MESSAGE);
+        return !verifier.verify(signature);
+    }
+
+    private static byte[] sign(Signature signer) throws GeneralSecurityException {
+        signer.update(MESSAGE);
+        return signer.sign();
+    }
+
+    private static boolean verifies(Signature verifier, byte[] signature) throws GeneralSecurityException {
+        verifier.update(MESSAGE);
+        return verifier.verify(signature);
+    }
+
+    /**
+     * @return operations per second: hashes of 1 KB, or verifications of
+     *         signatures of 1 KB, 0 if the backend failed
+     */
+    double measure(CryptoBackend backend, Primitive primitive, long nanos) {
+        try {
+            Operation operation = operation(backend, primitive);
+            run(operation, nanos);
+            long start = System.nanoTime();
+            long count = run(operation, nanos);
+            return count * 1e9 / (System.nanoTime() - start);
+        } catch (GeneralSecurityException e) {
+            return 0;
+        }
+    }
+
+    private static long run(Operation operation, long nanos) throws GeneralSecurityException {
+        long deadline = System.nanoTime() + nanos;
+        long count = 0;
+        do {
+            operation.run();
+            count++;
+        } while (System.nanoTime() - deadline < 0);
+        return count;
+    }
+
+    private interface Operation {
+        void run() throws GeneralSecurityException;
+    }
+
+    private Operation operation(CryptoBackend backend, Primitive primitive) throws GeneralSecurityException {
+        switch (primitive) {
+            case SHA256:
+                final MessageDigest digest = backend.newSha256();
+                return new Operation() {
+                    @Override
+                    public void run() {
+                        digest.digest(MESSAGE);
+                    }
+                };
+            case RSA_PSS_SHA256:
+                return verification(backend.newRsaPssVerifier(rsaKey().getModulus()),
+                        sign(backend.newRsaPssSigner(rsaKey())));
+            default:
+                Signature signer = backend.newEd25519Signer(ed25519PrivateKey());
+                return verification(backend.newEd25519Verifier(ed25519PublicKey()), sign(signer));
+        }
+    }
+
+    private static Operation verification(final Signature verifier, final byte[] signature) {
+        return new Operation() {
+            @Override
+            public void run() throws GeneralSecurityException {
+                verifier.update(MESSAGE);
+                if (!verifier.verify(signature)) {
+                    throw new GeneralSecurityException("Signature not verified");
+                }
+            }
+        };
+    }
+
+    private RSAPrivateCrtKey rsaKey() throws GeneralSecurityException {
+        if (rsaKey == null) {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(RSA_BITS);
+            rsaKey = (RSAPrivateCrtKey) generator.generateKeyPair().getPrivate();
+        }
+        return rsaKey;
+    }
+
+    /* A key no backend owns, so each converts it from the X.509 encoding. */
+    private static PublicKey ed25519PublicKey() {
+        return new PublicKey() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public String getAlgorithm() {
+                return "Ed25519";
+            }
+
+            @Override
+            public String getFormat() {
+                return "X.509";
+            }
+
+            @Override
+            public byte[] getEncoded() {
+                return Ed25519Keys.x509(ED25519_PUBLIC_KEY);
+            }
+        };
+    }
+
+    /* Likewise, converted from the PKCS#8 encoding. */
+    private static PrivateKey ed25519PrivateKey() {
+        return new PrivateKey() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public String getAlgorithm() {
+                return "Ed25519";
+            }
+
+            @Override
+            public String getFormat() {
+                return "PKCS#8";
+            }
+
+            @Override
+            public byte[] getEncoded() {
+                return Ed25519Keys.pkcs8(ED25519_SEED);
+            }
+        };
+    }
+
+    private static byte[] hex(String hex) {
+        byte[] result = new byte[hex.length() / 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,355 @@
+package org.interledger.cryptoconditions.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.SecureRandom;
+
+/**
+ * On-disk open addressing hash table mapping the full binary encoding of a
+ * condition to the location of its records in the segment files.
+ *
+ * The table is a memory-mapped file made of a fixed header followed by
+ * {@code capacity} slots. Slot layout (all INT32):
+ *
+ * { hash, state, conditionSegment, conditionOffset, conditionLength,
+ * fulfillmentSegment, fulfillmentOffset, fulfillmentLength }
+ *
+ * Keys are compared against the condition record stored in the segment, so
+ * two conditions with the same fingerprint but a different type, feature
+ * bitmask or max fulfillment length are different keys.
+ *
+ * The hash is seeded with a random value stored in the header, so inputs can
+ * not be crafted to collide.
+ *
+ * Not thread-safe. Access is serialized by {@link ConditionStore}.
+ */
+final class ConditionIndex {
+
+    static final String FILE_NAME = "index.dat";
+    private static final String TMP_FILE_NAME = "index.tmp";
+
+    private static final int MAGIC = 0x43434958; // "CCIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 32;
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_CAPACITY = 8;
+    private static final int OFFSET_SIZE = 12;
+    private static final int OFFSET_USED = 16;
+    private static final int OFFSET_SEED = 20;
+
+    static final int SLOT_LENGTH = 32;
+    private static final int SLOT_HASH = 0;
+    private static final int SLOT_STATE = 4;
+    private static final int SLOT_COND_SEGMENT = 8;
+    private static final int SLOT_COND_OFFSET = 12;
+    private static final int SLOT_COND_LENGTH = 16;
+    private static final int SLOT_FF_SEGMENT = 20;
+    private static final int SLOT_FF_OFFSET = 24;
+    private static final int SLOT_FF_LENGTH = 28;
+
+    static final int STATE_EMPTY = 0;
+    static final int STATE_LIVE = 1;
+    static final int STATE_DELETED = 2;
+
+    static final int NO_SEGMENT = -1;
+
+    static final int MIN_CAPACITY = 1024;
+    /* Keeps the mapped table below the 2GB limit of a MappedByteBuffer. */
+    static final int MAX_CAPACITY = 1 << 25;
+    /* Grow once live entries plus tombstones exceed 3/4 of the slots. */
+    private static final int LOAD_FACTOR_NUMERATOR = 3;
+    private static final int LOAD_FACTOR_DENOMINATOR = 4;
+
+    private final File directory;
+    private RandomAccessFile raf;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int mask;
+    private int size;
+    private int used;
+    private final int seed;
+
+    private ConditionIndex(File directory, RandomAccessFile raf, MappedByteBuffer buffer) {
+        this.directory = directory;
+        this.raf = raf;
+        this.buffer = buffer;
+        this.capacity = buffer.getInt(OFFSET_CAPACITY);
+        this.mask = capacity - 1;
+        this.size = buffer.getInt(OFFSET_SIZE);
+        this.used = buffer.getInt(OFFSET_USED);
+        this.seed = buffer.getInt(OFFSET_SEED);
+    }
+
+    /**
+     * Map the index of the given directory, creating an empty one if none
+     * exists yet.
+     */
+    static ConditionIndex open(File directory) throws IOException {
+        File file = new File(directory, FILE_NAME);
+        if (!file.exists()) {
+            return create(directory, MIN_CAPACITY, new SecureRandom().nextInt());
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+            if (buffer.capacity() < HEADER_LENGTH || buffer.getInt(OFFSET_MAGIC) != MAGIC) {
+                throw new IOException(file + " is not a condition store index");
+            }
+            if (buffer.getInt(OFFSET_VERSION) != VERSION) {
+                throw new IOException(file + " has unsupported version " + buffer.getInt(OFFSET_VERSION));
+            }
+            int capacity = buffer.getInt(OFFSET_CAPACITY);
+            if (Integer.bitCount(capacity) != 1 || capacity > MAX_CAPACITY
+                    || (long) HEADER_LENGTH + (long) capacity * SLOT_LENGTH != buffer.capacity()) {
+                throw new IOException(file + " has a corrupt header");
+            }
+            return new ConditionIndex(directory, raf, buffer);
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    private static ConditionIndex create(File directory, int capacity, int seed) throws IOException {
+        File file = new File(directory, FILE_NAME);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            MappedByteBuffer buffer = createTable(raf, capacity, seed);
+            return new ConditionIndex(directory, raf, buffer);
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    private static MappedByteBuffer createTable(RandomAccessFile raf, int capacity, int seed) throws IOException {
+        long length = HEADER_LENGTH + (long) capacity * SLOT_LENGTH;
+        raf.setLength(0);
+        raf.setLength(length); // zero filled, i.e. every slot is STATE_EMPTY
+        MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+        buffer.putInt(OFFSET_MAGIC, MAGIC);
+        buffer.putInt(OFFSET_VERSION, VERSION);
+        buffer.putInt(OFFSET_CAPACITY, capacity);
+        buffer.putInt(OFFSET_SIZE, 0);
+        buffer.putInt(OFFSET_USED, 0);
+        buffer.putInt(OFFSET_SEED, seed);
+        return buffer;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Seeded FNV-1a followed by a murmur3 finalizer.
+     */
+    int hash(byte[] key) {
+        int h = 0x811c9dc5 ^ seed;
+        for (int idx = 0; idx < key.length; idx++) {
+            h ^= key[idx] & 0xff;
+            h *= 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Find the slot holding the given key.
+     *
+     * @param segments resolves the segment ids stored in the slots
+     * @return the slot number, or -1 if absent
+     */
+    int find(byte[] key, int hash, SegmentResolver segments) {
+        for (int slot = hash & mask, probes = 0; probes < capacity; slot = (slot + 1) & mask, probes++) {
+            int base = slotBase(slot);
+            int state = buffer.getInt(base + SLOT_STATE);
+            if (state == STATE_EMPTY) {
+                return -1;
+            }
+            if (state == STATE_LIVE
+                    && buffer.getInt(base + SLOT_HASH) == hash
+                    && buffer.getInt(base + SLOT_COND_LENGTH) == key.length
+                    && segments.segment(buffer.getInt(base + SLOT_COND_SEGMENT))
+                            .matches(buffer.getInt(base + SLOT_COND_OFFSET), key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Insert a new key. The caller must have checked that the key is absent
+     * and called {@link #ensureCapacity} beforehand.
+     */
+    int insert(int hash, int segment, int offset, int length) {
+        int slot = hash & mask;
+        while (buffer.getInt(slotBase(slot) + SLOT_STATE) == STATE_LIVE) {
+            slot = (slot + 1) & mask;
+        }
+        int base = slotBase(slot);
+        boolean reusesTombstone = buffer.getInt(base + SLOT_STATE) == STATE_DELETED;
+        buffer.putInt(base + SLOT_HASH, hash);
+        buffer.putInt(base + SLOT_COND_SEGMENT, segment);
+        buffer.putInt(base + SLOT_COND_OFFSET, offset);
+        buffer.putInt(base + SLOT_COND_LENGTH, length);
+        buffer.putInt(base + SLOT_FF_SEGMENT, NO_SEGMENT);
+        buffer.putInt(base + SLOT_FF_OFFSET, 0);
+        buffer.putInt(base + SLOT_FF_LENGTH, 0);
+        // Write the state last so a torn write leaves an empty or deleted slot behind.
+        buffer.putInt(base + SLOT_STATE, STATE_LIVE);
+        size++;
+        if (!reusesTombstone) {
+            used++;
+        }
+        writeCounters();
+        return slot;
+    }
+
+    void remove(int slot) {
+        buffer.putInt(slotBase(slot) + SLOT_STATE, STATE_DELETED);
+        size--;
+        writeCounters();
+    }
+
+    boolean isLive(int slot) {
+        return buffer.getInt(slotBase(slot) + SLOT_STATE) == STATE_LIVE;
+    }
+
+    int conditionSegment(int slot) {
+        return buffer.getInt(slotBase(slot) + SLOT_COND_SEGMENT);
+    }
+
+    int conditionOffset(int slot) {
+        return buffer.getInt(slotBase(slot) + SLOT_COND_OFFSET);
+    }
+
+    int conditionLength(int slot) {
+        return buffer.getInt(slotBase(slot) + SLOT_COND_LENGTH);
+    }
+
+    int fulfillmentSegment(int slot) {
+        return buffer.getInt(slotBase(slot) + SLOT_FF_SEGMENT);
+    }
+
+    int fulfillmentOffset(int slot) {
+        return buffer.getInt(slotBase(slot) + SLOT_FF_OFFSET);
+    }
+
+    int fulfillmentLength(int slot) {
+        return buffer.getInt(slotBase(slot) + SLOT_FF_LENGTH);
+    }
+
+    void setCondition(int slot, int segment, int offset) {
+        int base = slotBase(slot);
+        buffer.putInt(base + SLOT_COND_OFFSET, offset);
+        buffer.putInt(base + SLOT_COND_SEGMENT, segment);
+    }
+
+    void setFulfillment(int slot, int segment, int offset, int length) {
+        int base = slotBase(slot);
+        buffer.putInt(base + SLOT_FF_OFFSET, offset);
+        buffer.putInt(base + SLOT_FF_LENGTH, length);
+        // The segment id is written last: it is what marks a condition as fulfilled.
+        buffer.putInt(base + SLOT_FF_SEGMENT, segment);
+    }
+
+    /**
+     * Grow (and purge tombstones from) the table if one more insertion would
+     * exceed the load factor.
+     */
+    void ensureCapacity() throws IOException {
+        if ((long) (used + 1) * LOAD_FACTOR_DENOMINATOR <= (long) capacity * LOAD_FACTOR_NUMERATOR) {
+            return;
+        }
+        int newCapacity = capacity;
+        if ((long) (size + 1) * LOAD_FACTOR_DENOMINATOR * 2 > (long) capacity * LOAD_FACTOR_NUMERATOR) {
+            if (capacity >= MAX_CAPACITY) {
+                throw new IOException("Condition store index is full");
+            }
+            newCapacity = capacity << 1;
+        }
+        rebuild(newCapacity);
+    }
+
+    /*
+     * Rehash every live slot into a fresh file and atomically rename it over
+     * the current index.
+     */
+    private void rebuild(int newCapacity) throws IOException {
+        File tmpFile = new File(directory, TMP_FILE_NAME);
+        RandomAccessFile tmpRaf = new RandomAccessFile(tmpFile, "rw");
+        MappedByteBuffer target;
+        try {
+            target = createTable(tmpRaf, newCapacity, seed);
+            int newMask = newCapacity - 1;
+            for (int slot = 0; slot < capacity; slot++) {
+                int base = slotBase(slot);
+                if (buffer.getInt(base + SLOT_STATE) != STATE_LIVE) {
+                    continue;
+                }
+                int newSlot = buffer.getInt(base + SLOT_HASH) & newMask;
+                while (target.getInt(HEADER_LENGTH + newSlot * SLOT_LENGTH + SLOT_STATE) != STATE_EMPTY) {
+                    newSlot = (newSlot + 1) & newMask;
+                }
+                int newBase = HEADER_LENGTH + newSlot * SLOT_LENGTH;
+                for (int field = 0; field < SLOT_LENGTH; field += 4) {
+                    target.putInt(newBase + field, buffer.getInt(base + field));
+                }
+            }
+            target.putInt(OFFSET_SIZE, size);
+            target.putInt(OFFSET_USED, size);
+            target.force();
+        } catch (IOException e) {
+            tmpRaf.close();
+            tmpFile.delete();
+            throw e;
+        }
+        raf.close();
+        if (!tmpFile.renameTo(new File(directory, FILE_NAME))) {
+            tmpRaf.close();
+            throw new IOException("Couldn't replace " + FILE_NAME + " with the rebuilt index");
+        }
+        this.raf = tmpRaf;
+        this.buffer = target;
+        this.capacity = newCapacity;
+        this.mask = newCapacity - 1;
+        this.used = size;
+    }
+
+    private void writeCounters() {
+        buffer.putInt(OFFSET_SIZE, size);
+        buffer.putInt(OFFSET_USED, used);
+    }
+
+    private static int slotBase(int slot) {
+        return HEADER_LENGTH + slot * SLOT_LENGTH;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        buffer.force();
+        raf.close();
+    }
+
+    /**
+     * Resolves a segment id stored in a slot to the mapped segment.
+     */
+    interface SegmentResolver {
+        Segment segment(int id);
+    }
+}
@@ -0,0 +1,472 @@
+package org.interledger.cryptoconditions.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.interledger.cryptoconditions.Condition;
+import org.interledger.cryptoconditions.Fulfillment;
+import org.interledger.cryptoconditions.encoding.FulfillmentInputStream;
+
+/**
+ * Embedded, persistent store of pending conditions and their fulfillments.
+ *
+ * Conditions and fulfillments are OER encoded (see
+ * {@link Condition#serializeBinary()}) and appended to memory-mapped
+ * segment files. A memory-mapped hash index keyed by the full binary encoding
+ * of the condition (see {@link Condition#getFingerprint()} for why the
+ * fingerprint alone is not enough) locates them. Opening a store maps the
+ * index and the segments, it never scans the records.
+ *
+ * Removed conditions leave dead records behind. A background task moves the
+ * live records of mostly dead segments to the active segment and deletes the
+ * old segment files.
+ *
+ * Instances are thread-safe. Lookups run concurrently, writes are serialized.
+ * A store directory must only be opened by one instance at a time.
+ */
+public final class ConditionStore {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    public static final long DEFAULT_COMPACTION_INTERVAL_MILLIS = 60 * 1000;
+    private static final int MIN_SEGMENT_SIZE = 4096;
+    /* Segments with less live data than this fraction are compacted. */
+    private static final double COMPACTION_LIVE_RATIO = 0.5;
+
+    private final File directory;
+    private final int segmentSize;
+    private final ConditionIndex index;
+    private final Map<Integer, Segment> segments = new HashMap<Integer, Segment>();
+    private Segment active;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ScheduledExecutorService compactor;
+    private boolean closed = false;
+
+    private final ConditionIndex.SegmentResolver resolver = new ConditionIndex.SegmentResolver() {
+        @Override
+        public Segment segment(int id) {
+            return segments.get(id);
+        }
+    };
+
+    private ConditionStore(File directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        new File(directory, "index.tmp").delete(); // leftover of an interrupted index rebuild
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Couldn't list " + directory);
+        }
+        ConditionIndex openedIndex = null;
+        try {
+            for (File file : files) {
+                int id = Segment.parseId(file.getName());
+                if (id < 0) {
+                    continue;
+                }
+                Segment segment = Segment.open(file, id);
+                segments.put(id, segment);
+                if (active == null || id > active.id) {
+                    active = segment;
+                }
+            }
+            if (active == null) {
+                active = Segment.create(directory, 1, segmentSize);
+                segments.put(active.id, active);
+            }
+            openedIndex = ConditionIndex.open(directory);
+            computeLiveBytes(openedIndex);
+        } catch (IOException e) {
+            if (openedIndex != null) {
+                openedIndex.close();
+            }
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+            throw e;
+        }
+        this.index = openedIndex;
+    }
+
+    /**
+     * Open (or create) a store with the default segment size and background
+     * compaction interval.
+     *
+     * @param directory directory holding the store files. Created if missing.
+     * @return the opened store
+     * @throws IOException if the store files can't be mapped or are corrupt
+     */
+    public static ConditionStore open(File directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_COMPACTION_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Open (or create) a store.
+     *
+     * @param directory directory holding the store files. Created if missing.
+     * @param segmentSize size in bytes of newly created segment files. It also
+     *            bounds the size of a single encoded fulfillment.
+     * @param compactionIntervalMillis delay between background compactions.
+     *            Zero or negative disables them, {@link #compact()} can still be
+     *            called explicitly.
+     * @return the opened store
+     * @throws IOException if the store files can't be mapped or are corrupt
+     */
+    public static ConditionStore open(File directory, int segmentSize, long compactionIntervalMillis)
+            throws IOException {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("segmentSize must be at least " + MIN_SEGMENT_SIZE + " bytes.");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Couldn't create directory " + directory);
+        }
+        ConditionStore store = new ConditionStore(directory, segmentSize);
+        if (compactionIntervalMillis > 0) {
+            store.startCompactor(compactionIntervalMillis);
+        }
+        return store;
+    }
+
+    /**
+     * Store a condition unless an equal one is already stored.
+     *
+     * @return true if the condition was added, false if it was already present
+     */
+    public boolean putIfAbsent(Condition condition) throws IOException {
+        byte[] key = condition.serializeBinary();
+        int hash = index.hash(key);
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            if (index.find(key, hash, resolver) >= 0) {
+                return false;
+            }
+            index.ensureCapacity();
+            Segment segment = segmentFor(key.length);
+            int offset = segment.append(Segment.KIND_CONDITION, key);
+            index.insert(hash, segment.id, offset, key.length);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Attach the fulfillment of a stored condition.
+     *
+     * @return true if the fulfillment was attached, false if the condition
+     *         already had one
+     * @throws IllegalArgumentException if the condition is not stored or the
+     *             fulfillment doesn't generate it
+     */
+    public boolean attachFulfillment(Condition condition, Fulfillment fulfillment) throws IOException {
+        byte[] key = condition.serializeBinary();
+        if (!Arrays.equals(key, fulfillment.getCondition().serializeBinary())) {
+            throw new IllegalArgumentException("Fulfillment " + fulfillment + " doesn't fulfill " + condition);
+        }
+        byte[] value = fulfillment.serializeBinary();
+        int hash = index.hash(key);
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            int slot = index.find(key, hash, resolver);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Condition " + condition + " is not stored");
+            }
+            if (index.fulfillmentSegment(slot) != ConditionIndex.NO_SEGMENT) {
+                return false;
+            }
+            Segment segment = segmentFor(value.length);
+            int offset = segment.append(Segment.KIND_FULFILLMENT, value);
+            index.setFulfillment(slot, segment.id, offset, value.length);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(Condition condition) {
+        byte[] key = condition.serializeBinary();
+        int hash = index.hash(key);
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            return index.find(key, hash, resolver) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isFulfilled(Condition condition) {
+        byte[] key = condition.serializeBinary();
+        int hash = index.hash(key);
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            int slot = index.find(key, hash, resolver);
+            return slot >= 0 && index.fulfillmentSegment(slot) != ConditionIndex.NO_SEGMENT;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Look up the fulfillment attached to a condition.
+     *
+     * @return the decoded fulfillment, or null if the condition is not stored
+     *         or not fulfilled yet
+     */
+    public Fulfillment getFulfillment(Condition condition) {
+        byte[] key = condition.serializeBinary();
+        int hash = index.hash(key);
+        byte[] value;
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            int slot = index.find(key, hash, resolver);
+            if (slot < 0) {
+                return null;
+            }
+            int segment = index.fulfillmentSegment(slot);
+            if (segment == ConditionIndex.NO_SEGMENT) {
+                return null;
+            }
+            value = segments.get(segment).read(index.fulfillmentOffset(slot), index.fulfillmentLength(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return decodeFulfillment(value);
+    }
+
+    /**
+     * Remove a condition and its fulfillment, if any. The space is reclaimed by
+     * the next compaction.
+     *
+     * @return true if the condition was stored
+     */
+    public boolean remove(Condition condition) {
+        byte[] key = condition.serializeBinary();
+        int hash = index.hash(key);
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            int slot = index.find(key, hash, resolver);
+            if (slot < 0) {
+                return false;
+            }
+            segments.get(index.conditionSegment(slot)).release(index.conditionLength(slot));
+            int ffSegment = index.fulfillmentSegment(slot);
+            if (ffSegment != ConditionIndex.NO_SEGMENT) {
+                segments.get(ffSegment).release(index.fulfillmentLength(slot));
+            }
+            index.remove(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of stored conditions
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Move the live records out of every mostly dead segment and delete it.
+     *
+     * The write lock is released between segments, so lookups are only
+     * blocked for the time needed to compact a single segment.
+     *
+     * @return number of segment files deleted
+     */
+    public int compact() throws IOException {
+        int deleted = 0;
+        while (true) {
+            lock.writeLock().lock();
+            try {
+                ensureOpen();
+                Segment candidate = null;
+                for (Segment segment : segments.values()) {
+                    if (segment != active && segment.liveBytes < segment.usedBytes() * COMPACTION_LIVE_RATIO) {
+                        candidate = segment;
+                        break;
+                    }
+                }
+                if (candidate == null) {
+                    return deleted;
+                }
+                relocate(candidate);
+                deleted++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Flush the mapped index and segments to the storage device.
+     */
+    public void sync() {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            for (Segment segment : segments.values()) {
+                segment.force();
+            }
+            index.force();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void close() throws IOException {
+        ScheduledExecutorService toStop;
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toStop = compactor;
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+            index.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (toStop != null) {
+            toStop.shutdownNow();
+        }
+    }
+
+    private void startCompactor(long intervalMillis) {
+        compactor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "condition-store-compactor " + directory);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        compactor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    compact();
+                } catch (IllegalStateException e) {
+                    // Store closed meanwhile.
+                } catch (Exception e) {
+                    // TODO: Improvement. Inject Logger.
+                    System.out.println("WARN: Condition store compaction failed due to " + e.toString());
+                }
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+     * Copy every live record of the given segment to the active segment,
+     * repoint the index and delete the segment file. Called with the write
+     * lock held.
+     */
+    private void relocate(Segment source) throws IOException {
+        for (int slot = 0; slot < index.capacity(); slot++) {
+            if (!index.isLive(slot)) {
+                continue;
+            }
+            if (index.conditionSegment(slot) == source.id) {
+                byte[] data = source.read(index.conditionOffset(slot), index.conditionLength(slot));
+                Segment target = segmentFor(data.length);
+                index.setCondition(slot, target.id, target.append(Segment.KIND_CONDITION, data));
+            }
+            if (index.fulfillmentSegment(slot) == source.id) {
+                byte[] data = source.read(index.fulfillmentOffset(slot), index.fulfillmentLength(slot));
+                Segment target = segmentFor(data.length);
+                index.setFulfillment(slot, target.id, target.append(Segment.KIND_FULFILLMENT, data), data.length);
+            }
+        }
+        // The segment must not be deleted before the new locations are durable.
+        for (Segment segment : segments.values()) {
+            if (segment != source) {
+                segment.force();
+            }
+        }
+        index.force();
+        segments.remove(source.id);
+        source.delete();
+    }
+
+    /*
+     * Return the active segment, rolling over to a new one if the record
+     * doesn't fit. Called with the write lock held.
+     */
+    private Segment segmentFor(int dataLength) throws IOException {
+        if (dataLength > Segment.maxDataLength(segmentSize)) {
+            throw new IllegalArgumentException("Record of " + dataLength
+                    + " bytes doesn't fit in a segment of " + segmentSize + " bytes.");
+        }
+        if (!active.hasRoomFor(dataLength)) {
+            active.force();
+            Segment next = Segment.create(directory, active.id + 1, segmentSize);
+            segments.put(next.id, next);
+            active = next;
+        }
+        return active;
+    }
+
+    private void computeLiveBytes(ConditionIndex index) throws IOException {
+        for (int slot = 0; slot < index.capacity(); slot++) {
+            if (!index.isLive(slot)) {
+                continue;
+            }
+            liveSegment(index.conditionSegment(slot)).liveBytes
+                    += Segment.RECORD_HEADER_LENGTH + index.conditionLength(slot);
+            int ffSegment = index.fulfillmentSegment(slot);
+            if (ffSegment != ConditionIndex.NO_SEGMENT) {
+                liveSegment(ffSegment).liveBytes += Segment.RECORD_HEADER_LENGTH + index.fulfillmentLength(slot);
+            }
+        }
+    }
+
+    private Segment liveSegment(int id) throws IOException {
+        Segment segment = segments.get(id);
+        if (segment == null) {
+            throw new IOException("Index references missing segment " + Segment.fileName(id));
+        }
+        return segment;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Condition store " + directory + " is closed");
+        }
+    }
+
+    private static Fulfillment decodeFulfillment(byte[] value) {
+        FulfillmentInputStream stream = new FulfillmentInputStream(new ByteArrayInputStream(value));
+        try {
+            return stream.readFulfillment();
+        } catch (Exception e) {
+            // Records are written by this class only. Reaching this means the files are corrupt.
+            throw new RuntimeException(e.toString(), e);
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package org.interledger.cryptoconditions.store;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.EnumSet;
+
+import org.interledger.cryptoconditions.Condition;
+import org.interledger.cryptoconditions.ConditionImpl;
+import org.interledger.cryptoconditions.ConditionType;
+import org.interledger.cryptoconditions.FeatureSuite;
+import org.interledger.cryptoconditions.UnsupportedConditionException;
+import org.interledger.cryptoconditions.encoding.ConditionInputStream;
+import org.interledger.cryptoconditions.encoding.OerDecodingException;
+
+/**
+ * Compact in-memory set of conditions, for holding tens of millions of
+ * pending conditions without the per object overhead of
+ * {@link ConditionImpl} (headers, the fingerprint array, the cached
+ * encodings).
+ *
+ * Conditions are stored column-wise in rows of parallel primitive arrays:
+ * the type code (short), the feature bitmask (byte), the max fulfillment
+ * length (int) and the 32 byte fingerprint, packed in a single byte array.
+ * An open addressing hash table of ints maps conditions to rows. A
+ * condition costs about 44 bytes, whatever the number of conditions, and
+ * the garbage collector only sees a handful of arrays.
+ *
+ * Every condition type produces 32 byte fingerprints (SHA-256 hashes or
+ * Ed25519 public keys), other lengths are rejected. As in
+ * {@link ConditionStore}, keys are the whole condition: equal fingerprints
+ * with different types, features or max fulfillment lengths are different
+ * conditions.
+ *
+ * The capacity is fixed at construction so that a full table never needs
+ * twice its memory to grow. It is at most {@link #MAX_CAPACITY}, the
+ * fingerprints of that many rows fill a Java array.
+ *
+ * Not thread-safe. Once populated and safely published, a table can be read
+ * by any number of threads as long as none modifies it.
+ */
+public final class ConditionTable {
+
+    public static final int FINGERPRINT_LENGTH = 32;
+    public static final int MAX_CAPACITY = Integer.MAX_VALUE / FINGERPRINT_LENGTH;
+
+    /*
+     * Slots hold row + 1 in the low bits (0 is an empty slot) and the top
+     * bits of the hash above them, which rule out most mismatches without
+     * reading the rows.
+     */
+    private static final int ROW_BITS = 26;
+    private static final int ROW_MASK = (1 << ROW_BITS) - 1;
+    private static final int TAG_MASK = ~ROW_MASK;
+    /* At most 3/4 of the slots are used. */
+    private static final int LOAD_FACTOR_NUMERATOR = 3;
+    private static final int LOAD_FACTOR_DENOMINATOR = 4;
+
+    private final short[] types;
+    private final byte[] features;
+    private final int[] maxFulfillmentLengths;
+    private final byte[] fingerprints;
+    private final ByteBuffer fingerprintWords;
+    private final int[] slots;
+    private final int mask;
+    private final long seed;
+    private int size;
+
+    /**
+     * @param capacity maximum number of conditions, between 1 and
+     *            {@link #MAX_CAPACITY}
+     */
+    public ConditionTable(int capacity) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity must be between 1 and " + MAX_CAPACITY + ".");
+        }
+        this.types = new short[capacity];
+        this.features = new byte[capacity];
+        this.maxFulfillmentLengths = new int[capacity];
+        this.fingerprints = new byte[capacity * FINGERPRINT_LENGTH];
+        this.fingerprintWords = ByteBuffer.wrap(fingerprints);
+        long minSlots = ((long) capacity * LOAD_FACTOR_DENOMINATOR + LOAD_FACTOR_NUMERATOR - 1)
+                / LOAD_FACTOR_NUMERATOR;
+        int slotCount = Integer.highestOneBit((int) Math.max(minSlots - 1, 1)) << 1;
+        this.slots = new int[slotCount];
+        this.mask = slotCount - 1;
+        this.seed = new SecureRandom().nextLong();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return types.length;
+    }
+
+    /**
+     * Add a condition unless an equal one is already present.
+     *
+     * @return true if the condition was added, false if it was already present
+     * @throws IllegalArgumentException if the fingerprint isn't 32 bytes long
+     * @throws IllegalStateException if the table is full
+     */
+    public boolean putIfAbsent(Condition condition) {
+        byte[] fingerprint = condition.getFingerprint();
+        if (fingerprint.length != FINGERPRINT_LENGTH) {
+            throw new IllegalArgumentException("Fingerprints of " + fingerprint.length
+                    + " bytes can't be stored, only " + FINGERPRINT_LENGTH);
+        }
+        ensureNotFull();
+        setRow(size, condition.getType().getTypeCode(), condition.getFeatureBitmask(),
+                condition.getMaxFulfillmentLength());
+        System.arraycopy(fingerprint, 0, fingerprints, size * FINGERPRINT_LENGTH, FINGERPRINT_LENGTH);
+        return insertLastRow();
+    }
+
+    /**
+     * @return the row of the condition, or -1 if absent
+     */
+    public int indexOf(Condition condition) {
+        byte[] fingerprint = condition.getFingerprint();
+        if (fingerprint.length != FINGERPRINT_LENGTH) {
+            return -1;
+        }
+        int type = condition.getType().getTypeCode();
+        int featureBitmask = condition.getFeatureBitmask();
+        int maxFulfillmentLength = condition.getMaxFulfillmentLength();
+        int hash = hash(ByteBuffer.wrap(fingerprint).getLong(0), type, featureBitmask, maxFulfillmentLength);
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            int row = (entry & ROW_MASK) - 1;
+            if ((entry & TAG_MASK) == (hash & TAG_MASK)
+                    && types[row] == (short) type
+                    && features[row] == (byte) featureBitmask
+                    && maxFulfillmentLengths[row] == maxFulfillmentLength
+                    && fingerprintEquals(row, fingerprint)) {
+                return row;
+            }
+        }
+    }
+
+    public boolean contains(Condition condition) {
+        return indexOf(condition) >= 0;
+    }
+
+    /**
+     * Flyweight view of a row. It reads the table on every call and
+     * allocates nothing until the fingerprint or an encoding is requested.
+     *
+     * Views are positional: {@link #remove(Condition)} moves the last row
+     * into the removed one.
+     *
+     * @param row between 0 and size() - 1
+     */
+    public Condition get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of a table of " + size + " conditions");
+        }
+        return new Row(row);
+    }
+
+    /**
+     * Remove a condition. The last row moves into its place.
+     *
+     * @return true if the condition was present
+     */
+    public boolean remove(Condition condition) {
+        int row = indexOf(condition);
+        if (row < 0) {
+            return false;
+        }
+        deleteSlot(slotOf(row));
+        int last = size - 1;
+        if (row != last) {
+            int slot = slotOf(last);
+            slots[slot] = (slots[slot] & TAG_MASK) | (row + 1);
+            setRow(row, types[last], features[last], maxFulfillmentLengths[last]);
+            System.arraycopy(fingerprints, last * FINGERPRINT_LENGTH, fingerprints, row * FINGERPRINT_LENGTH,
+                    FINGERPRINT_LENGTH);
+        }
+        size = last;
+        return true;
+    }
+
+    /**
+     * Add the OER encoded conditions (see {@link Condition#serializeBinary()})
+     * read from the stream until its end, decoding them straight into the
+     * table: no condition object is created.
+     *
+     * Conditions read before a malformed one stay in the table.
+     *
+     * @return number of conditions added, duplicates excluded
+     * @throws IOException if the stream can't be read or holds a malformed,
+     *             truncated or unsupported condition
+     * @throws IllegalArgumentException if a fingerprint isn't 32 bytes long
+     *             or a type is unknown
+     * @throws IllegalStateException if the table fills up
+     */
+    public int load(InputStream in) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in);
+        RowReader reader = new RowReader(pushback);
+        int added = 0;
+        for (int next = pushback.read(), record = 0; next >= 0; next = pushback.read(), record++) {
+            pushback.unread(next);
+            ensureNotFull();
+            try {
+                reader.readRow(size);
+            } catch (UnsupportedConditionException e) {
+                throw new IOException("Condition " + record + " is not supported: " + e.getMessage(), e);
+            } catch (OerDecodingException e) {
+                throw new IOException("Condition " + record + " is malformed: " + e.getMessage(), e);
+            }
+            if (insertLastRow()) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private void ensureNotFull() {
+        if (size == types.length) {
+            throw new IllegalStateException("Condition table is full (" + size + " conditions)");
+        }
+    }
+
+    private void setRow(int row, int type, int featureBitmask, int maxFulfillmentLength) {
+        types[row] = (short) type;
+        features[row] = (byte) featureBitmask;
+        maxFulfillmentLengths[row] = maxFulfillmentLength;
+    }
+
+    /*
+     * Index the row written at position size, unless an equal row is already
+     * indexed, in which case it is left to be overwritten.
+     */
+    private boolean insertLastRow() {
+        int row = size;
+        int hash = rowHash(row);
+        int slot = hash & mask;
+        for (int entry = slots[slot]; entry != 0; entry = slots[slot]) {
+            int other = (entry & ROW_MASK) - 1;
+            if ((entry & TAG_MASK) == (hash & TAG_MASK) && rowEquals(row, other)) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = (hash & TAG_MASK) | (row + 1);
+        size++;
+        return true;
+    }
+
+    private int slotOf(int row) {
+        int slot = rowHash(row) & mask;
+        while ((slots[slot] & ROW_MASK) != row + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /*
+     * Backward shift deletion: move later entries of the probe sequence into
+     * the hole when their home slot allows it, so no tombstones are needed.
+     */
+    private void deleteSlot(int hole) {
+        for (int slot = (hole + 1) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int home = rowHash((slots[slot] & ROW_MASK) - 1) & mask;
+            // Movable unless home lies cyclically in (hole, slot]
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                slots[hole] = slots[slot];
+                hole = slot;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    private int rowHash(int row) {
+        return hash(fingerprintWords.getLong(row * FINGERPRINT_LENGTH), types[row], features[row] & 0xff,
+                maxFulfillmentLengths[row]);
+    }
+
+    /*
+     * Fingerprints are hashes or keys, their first 8 bytes are enough once
+     * mixed with the random seed (murmur3 finalizer), so inputs can not be
+     * crafted to collide.
+     */
+    private int hash(long fingerprintPrefix, int type, int featureBitmask, int maxFulfillmentLength) {
+        long h = fingerprintPrefix ^ seed
+                ^ (((long) type << 48) | ((long) featureBitmask << 40) | (maxFulfillmentLength & 0xffffffffL));
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private boolean rowEquals(int row, int other) {
+        if (types[row] != types[other] || features[row] != features[other]
+                || maxFulfillmentLengths[row] != maxFulfillmentLengths[other]) {
+            return false;
+        }
+        int a = row * FINGERPRINT_LENGTH;
+        int b = other * FINGERPRINT_LENGTH;
+        for (int idx = 0; idx < FINGERPRINT_LENGTH; idx += 8) {
+            if (fingerprintWords.getLong(a + idx) != fingerprintWords.getLong(b + idx)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fingerprintEquals(int row, byte[] fingerprint) {
+        int base = row * FINGERPRINT_LENGTH;
+        for (int idx = 0; idx < FINGERPRINT_LENGTH; idx++) {
+            if (fingerprints[base + idx] != fingerprint[idx]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes conditions into rows of the table.
+     */
+    private final class RowReader extends ConditionInputStream {
+
+        RowReader(InputStream stream) {
+            super(stream);
+        }
+
+        void readRow(int row) throws IOException, UnsupportedConditionException, OerDecodingException {
+            int type = readConditiontype().getTypeCode();
+            int featureBitmask = readFeatures();
+            int length = readLengthIndicator();
+            if (length != FINGERPRINT_LENGTH) {
+                throw new IllegalArgumentException("Fingerprints of " + length
+                        + " bytes can't be stored, only " + FINGERPRINT_LENGTH);
+            }
+            int offset = row * FINGERPRINT_LENGTH;
+            for (int read = 0; read < FINGERPRINT_LENGTH; ) {
+                int count = stream.read(fingerprints, offset + read, FINGERPRINT_LENGTH - read);
+                if (count < 0) {
+                    throw new EOFException("Unexpected EOF when trying to decode OER data.");
+                }
+                read += count;
+            }
+            setRow(row, type, featureBitmask, readVarUInt());
+        }
+    }
+
+    private final class Row implements Condition {
+        private final int row;
+
+        Row(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public ConditionType getType() {
+            return ConditionType.valueOf(types[row]);
+        }
+
+        @Override
+        public int getFeatureBitmask() {
+            return features[row] & 0xff;
+        }
+
+        @Override
+        public EnumSet<FeatureSuite> getFeatures() {
+            return FeatureSuite.bitMask2EnumSet(getFeatureBitmask());
+        }
+
+        @Override
+        public byte[] getFingerprint() {
+            byte[] fingerprint = new byte[FINGERPRINT_LENGTH];
+            System.arraycopy(fingerprints, row * FINGERPRINT_LENGTH, fingerprint, 0, FINGERPRINT_LENGTH);
+            return fingerprint;
+        }
+
+        @Override
+        public int getMaxFulfillmentLength() {
+            return maxFulfillmentLengths[row];
+        }
+
+        @Override
+        public byte[] serializeBinary() {
+            return toCondition().serializeBinary();
+        }
+
+        @Override
+        public ByteBuffer toByteBuffer() {
+            return toCondition().toByteBuffer();
+        }
+
+        @Override
+        public String toURI() {
+            return toCondition().toURI();
+        }
+
+        @Override
+        public String toString() {
+            return toURI();
+        }
+
+        private Condition toCondition() {
+            return new ConditionImpl(getType(), getFeatureBitmask(), getFingerprint(), getMaxFulfillmentLength());
+        }
+    }
+}
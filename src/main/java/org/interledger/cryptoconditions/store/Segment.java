@@ -0,0 +1,189 @@
+package org.interledger.cryptoconditions.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Append-only, memory-mapped segment file holding OER encoded records.
+ *
+ * Layout: a fixed header followed by records of the form
+ * { kind UINT8, length UINT32, data OCTETS }. The index keeps the offset and
+ * length of the data part, so records are never parsed sequentially except
+ * by tooling.
+ *
+ * Not thread-safe. Access is serialized by {@link ConditionStore}.
+ */
+final class Segment {
+
+    static final int MAGIC = 0x43435347; // "CCSG"
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 16;
+    static final int RECORD_HEADER_LENGTH = 5;
+
+    static final byte KIND_CONDITION = 1;
+    static final byte KIND_FULFILLMENT = 2;
+
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_WRITE_POSITION = 8;
+
+    final int id;
+    final File file;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private int writePosition;
+    /* Bytes (record headers included) still referenced by the index. */
+    long liveBytes;
+
+    private Segment(int id, File file, RandomAccessFile raf, MappedByteBuffer buffer) {
+        this.id = id;
+        this.file = file;
+        this.raf = raf;
+        this.buffer = buffer;
+        this.capacity = buffer.capacity();
+        this.writePosition = buffer.getInt(OFFSET_WRITE_POSITION);
+    }
+
+    static Segment create(File directory, int id, int size) throws IOException {
+        File file = new File(directory, fileName(id));
+        if (file.exists()) {
+            throw new IOException("Segment " + file + " already exists");
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(size);
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(OFFSET_MAGIC, MAGIC);
+            buffer.putInt(OFFSET_VERSION, VERSION);
+            buffer.putInt(OFFSET_WRITE_POSITION, HEADER_LENGTH);
+            return new Segment(id, file, raf, buffer);
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    static Segment open(File file, int id) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+            if (buffer.capacity() < HEADER_LENGTH || buffer.getInt(OFFSET_MAGIC) != MAGIC) {
+                throw new IOException(file + " is not a condition store segment");
+            }
+            if (buffer.getInt(OFFSET_VERSION) != VERSION) {
+                throw new IOException(file + " has unsupported version " + buffer.getInt(OFFSET_VERSION));
+            }
+            int writePosition = buffer.getInt(OFFSET_WRITE_POSITION);
+            if (writePosition < HEADER_LENGTH || writePosition > buffer.capacity()) {
+                throw new IOException(file + " has a corrupt write position " + writePosition);
+            }
+            return new Segment(id, file, raf, buffer);
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    static String fileName(int id) {
+        return String.format("segment-%08d.dat", id);
+    }
+
+    /**
+     * Parse the id out of a segment file name.
+     *
+     * @return the id, or -1 if name is not a segment file name
+     */
+    static int parseId(String name) {
+        if (!name.startsWith("segment-") || !name.endsWith(".dat") || name.length() != 20) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name.substring(8, 16));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    boolean hasRoomFor(int dataLength) {
+        return (long) writePosition + RECORD_HEADER_LENGTH + dataLength <= capacity;
+    }
+
+    static int maxDataLength(int segmentSize) {
+        return segmentSize - HEADER_LENGTH - RECORD_HEADER_LENGTH;
+    }
+
+    /**
+     * Append a record. The caller must have checked {@link #hasRoomFor(int)}.
+     *
+     * @return the offset of the record data (not of the record header)
+     */
+    int append(byte kind, byte[] data) {
+        int recordOffset = writePosition;
+        buffer.put(recordOffset, kind);
+        buffer.putInt(recordOffset + 1, data.length);
+        ByteBuffer view = buffer.duplicate();
+        view.position(recordOffset + RECORD_HEADER_LENGTH);
+        view.put(data);
+        writePosition = recordOffset + RECORD_HEADER_LENGTH + data.length;
+        // Publish the new end of segment only once the record is complete.
+        buffer.putInt(OFFSET_WRITE_POSITION, writePosition);
+        liveBytes += RECORD_HEADER_LENGTH + data.length;
+        return recordOffset + RECORD_HEADER_LENGTH;
+    }
+
+    byte[] read(int dataOffset, int length) {
+        byte[] result = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(dataOffset);
+        view.get(result);
+        return result;
+    }
+
+    boolean matches(int dataOffset, byte[] expected) {
+        for (int idx = 0; idx < expected.length; idx++) {
+            if (buffer.get(dataOffset + idx) != expected[idx]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    byte kindAt(int dataOffset) {
+        return buffer.get(dataOffset - RECORD_HEADER_LENGTH);
+    }
+
+    long usedBytes() {
+        return writePosition - HEADER_LENGTH;
+    }
+
+    void release(int dataLength) {
+        liveBytes -= RECORD_HEADER_LENGTH + dataLength;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        buffer.force();
+        raf.close();
+    }
+
+    /**
+     * Close and remove the segment file.
+     *
+     * The mapping itself is only released once the buffer is garbage
+     * collected. That is harmless on POSIX file systems.
+     */
+    void delete() throws IOException {
+        raf.close();
+        if (!file.delete()) {
+            throw new IOException("Couldn't delete segment " + file);
+        }
+    }
+}
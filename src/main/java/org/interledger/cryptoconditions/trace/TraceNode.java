@@ -0,0 +1,227 @@
+package org.interledger.cryptoconditions.trace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.interledger.cryptoconditions.ConditionType;
+
+/**
+ * One traced validate or getCondition call. Children are the calls made on
+ * sub-fulfillments, in order.
+ *
+ * Counters only cover the work done by this node itself; use the getTotal*
+ * methods to include the children.
+ */
+public final class TraceNode {
+
+    public enum Kind {
+        VALIDATE, GET_CONDITION
+    }
+
+    private final Kind kind;
+    private final ConditionType type;
+    private final int bytes;
+    final TraceNode parent;
+    private final List<TraceNode> children = new ArrayList<TraceNode>(2);
+
+    private final long startNanos;
+    private long wallNanos;
+    private boolean success;
+    private String error;
+
+    int hashes;
+    int rsaVerifies;
+    int ed25519Verifies;
+
+    TraceNode(Kind kind, ConditionType type, int bytes, TraceNode parent) {
+        this.kind = kind;
+        this.type = type;
+        this.bytes = bytes;
+        this.parent = parent;
+        this.startNanos = System.nanoTime();
+        if (parent != null) {
+            parent.children.add(this);
+        }
+    }
+
+    void finish(boolean success) {
+        this.wallNanos = System.nanoTime() - startNanos;
+        this.success = success;
+    }
+
+    void setError(String error) {
+        this.error = error;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public ConditionType getType() {
+        return type;
+    }
+
+    /**
+     * @return size of the validated message or of the fulfillment payload
+     */
+    public int getBytes() {
+        return bytes;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * @return true if the call returned normally, and for validate if it
+     *         returned true
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * @return the exception message if the traced call threw, null otherwise
+     */
+    public String getError() {
+        return error;
+    }
+
+    public int getHashes() {
+        return hashes;
+    }
+
+    public int getRsaVerifies() {
+        return rsaVerifies;
+    }
+
+    public int getEd25519Verifies() {
+        return ed25519Verifies;
+    }
+
+    public int getTotalHashes() {
+        int total = hashes;
+        for (TraceNode child : children) {
+            total += child.getTotalHashes();
+        }
+        return total;
+    }
+
+    public int getTotalRsaVerifies() {
+        int total = rsaVerifies;
+        for (TraceNode child : children) {
+            total += child.getTotalRsaVerifies();
+        }
+        return total;
+    }
+
+    public int getTotalEd25519Verifies() {
+        int total = ed25519Verifies;
+        for (TraceNode child : children) {
+            total += child.getTotalEd25519Verifies();
+        }
+        return total;
+    }
+
+    public List<TraceNode> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Render the tree, one node per line, children indented by two spaces.
+     */
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        appendText(sb, 0);
+        return sb.toString();
+    }
+
+    private void appendText(StringBuilder sb, int indent) {
+        for (int i = 0; i < indent; i++) {
+            sb.append("  ");
+        }
+        sb.append(kind).append(' ').append(type)
+                .append(' ').append(success ? "OK" : "FAILED")
+                .append(' ').append(String.format("%.3f", wallNanos / 1e6)).append(" ms")
+                .append(" bytes=").append(bytes)
+                .append(" hashes=").append(hashes)
+                .append(" rsaVerifies=").append(rsaVerifies)
+                .append(" ed25519Verifies=").append(ed25519Verifies);
+        if (error != null) {
+            sb.append(" error=").append(error);
+        }
+        sb.append('\n');
+        for (TraceNode child : children) {
+            child.appendText(sb, indent + 1);
+        }
+    }
+
+    /**
+     * Render the tree as a JSON object. Times are in nanoseconds.
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        appendJson(sb);
+        return sb.toString();
+    }
+
+    private void appendJson(StringBuilder sb) {
+        sb.append("{\"kind\":\"").append(kind)
+                .append("\",\"type\":").append(type == null ? "null" : "\"" + type + "\"")
+                .append(",\"success\":").append(success)
+                .append(",\"wallNanos\":").append(wallNanos)
+                .append(",\"bytes\":").append(bytes)
+                .append(",\"hashes\":").append(hashes)
+                .append(",\"rsaVerifies\":").append(rsaVerifies)
+                .append(",\"ed25519Verifies\":").append(ed25519Verifies);
+        if (error != null) {
+            sb.append(",\"error\":");
+            appendJsonString(sb, error);
+        }
+        sb.append(",\"children\":[");
+        for (int i = 0; i < children.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            children.get(i).appendJson(sb);
+        }
+        sb.append("]}");
+    }
+
+    private static void appendJsonString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+}
@@ -0,0 +1,170 @@
+package org.interledger.cryptoconditions.trace;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.interledger.cryptoconditions.ConditionType;
+import org.interledger.cryptoconditions.Fulfillment;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+/**
+ * Opt-in per-node tracing of validate and getCondition.
+ *
+ * traceValidate and traceGetCondition run the call with tracing enabled on
+ * the current thread only and return a TraceNode tree mirroring the
+ * fulfillment structure.
+ *
+ * The hooks (enter, exit, count*) are called by the library. While no
+ * thread is tracing they return after reading one volatile field.
+ *
+ * getCondition results are cached by the fulfillments: sub-conditions
+ * already generated before the trace are not traced again.
+ */
+public final class Tracing {
+
+    /* Number of threads currently tracing */
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+
+    /* Innermost node in progress, or a marker root while tracing */
+    private static final ThreadLocal<TraceNode[]> CURRENT = new ThreadLocal<TraceNode[]>() {
+        @Override
+        protected TraceNode[] initialValue() {
+            return new TraceNode[1];
+        }
+    };
+
+    private Tracing() {
+    }
+
+    /**
+     * Validate fulfillment against message and trace it. Exceptions thrown by
+     * validate are recorded in the returned root node, not rethrown.
+     *
+     * @return the root node, its isSuccess() is the validation result
+     */
+    public static TraceNode traceValidate(Fulfillment fulfillment, MessagePayload message) {
+        TraceNode root = new TraceNode(TraceNode.Kind.VALIDATE, fulfillment.getType(),
+                message == null ? 0 : message.length, null);
+        boolean valid = false;
+        TraceNode[] current = begin(root);
+        try {
+            valid = fulfillment.validate(message);
+        } catch (RuntimeException e) {
+            root.setError(e.toString());
+        } finally {
+            end(current, root, valid);
+        }
+        return unwrap(root);
+    }
+
+    /**
+     * Generate the condition of fulfillment and trace it. Exceptions are
+     * recorded in the returned root node, not rethrown.
+     */
+    public static TraceNode traceGetCondition(Fulfillment fulfillment) {
+        TraceNode root = new TraceNode(TraceNode.Kind.GET_CONDITION, fulfillment.getType(),
+                fulfillment.getPayload().length, null);
+        boolean success = false;
+        TraceNode[] current = begin(root);
+        try {
+            fulfillment.getCondition();
+            success = true;
+        } catch (RuntimeException e) {
+            root.setError(e.toString());
+        } finally {
+            end(current, root, success);
+        }
+        return unwrap(root);
+    }
+
+    private static TraceNode[] begin(TraceNode root) {
+        TraceNode[] current = CURRENT.get();
+        if (current[0] != null) {
+            throw new IllegalStateException("Already tracing on this thread");
+        }
+        current[0] = root;
+        ACTIVE.incrementAndGet();
+        return current;
+    }
+
+    private static void end(TraceNode[] current, TraceNode root, boolean success) {
+        ACTIVE.decrementAndGet();
+        current[0] = null;
+        root.finish(success);
+    }
+
+    /*
+     * The root created by traceXxx stands for the top-level call. If the
+     * library entered exactly the same call as its only child, return that
+     * child so the tree does not show it twice; keep any error of the root.
+     */
+    private static TraceNode unwrap(TraceNode root) {
+        if (root.getChildren().size() != 1 || root.getError() != null) {
+            return root;
+        }
+        TraceNode child = root.getChildren().get(0);
+        if (child.getKind() != root.getKind() || child.getType() != root.getType()) {
+            return root;
+        }
+        child.hashes += root.hashes;
+        child.rsaVerifies += root.rsaVerifies;
+        child.ed25519Verifies += root.ed25519Verifies;
+        return child;
+    }
+
+    /**
+     * Open a node for a validate or getCondition call.
+     *
+     * @return the new node, null if this thread is not tracing
+     */
+    public static TraceNode enter(TraceNode.Kind kind, ConditionType type, int bytes) {
+        if (ACTIVE.get() == 0) {
+            return null;
+        }
+        TraceNode[] current = CURRENT.get();
+        if (current[0] == null) {
+            return null;
+        }
+        TraceNode node = new TraceNode(kind, type, bytes, current[0]);
+        current[0] = node;
+        return node;
+    }
+
+    /**
+     * Close a node opened by enter. Does nothing if node is null.
+     */
+    public static void exit(TraceNode node, boolean success) {
+        if (node == null) {
+            return;
+        }
+        node.finish(success);
+        CURRENT.get()[0] = node.parent;
+    }
+
+    public static void countHash() {
+        TraceNode node = current();
+        if (node != null) {
+            node.hashes++;
+        }
+    }
+
+    public static void countRsaVerify() {
+        TraceNode node = current();
+        if (node != null) {
+            node.rsaVerifies++;
+        }
+    }
+
+    public static void countEd25519Verify() {
+        TraceNode node = current();
+        if (node != null) {
+            node.ed25519Verifies++;
+        }
+    }
+
+    private static TraceNode current() {
+        if (ACTIVE.get() == 0) {
+            return null;
+        }
+        return CURRENT.get()[0];
+    }
+}
@@ -0,0 +1,88 @@
+package org.interledger.cryptoconditions.types;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Common base of the byte[] wrappers.
+ *
+ * A payload is a window (offset, length) over a backing array. The public
+ * constructors of the subclasses copy their source, as they always did. The
+ * static wrap(...) factories instead take ownership of a caller-owned array or
+ * heap ByteBuffer slice without copying: the caller must not modify it
+ * afterwards. copyOf(...) makes the defensive copy explicit.
+ */
+public abstract class ByteArrayPayload {
+
+    /**
+     * Backing array. Only the bytes in [offset, offset + length) belong to the
+     * payload. Must not be modified.
+     */
+    public final byte[] payload;
+    public final int offset;
+    public final int length;
+
+    protected ByteArrayPayload(byte[] array, int offset, int length) {
+        if (array == null) {
+            throw new IllegalArgumentException("Payload array cannot be null.");
+        }
+        if (offset < 0 || length < 0 || offset > array.length - length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length
+                    + " out of bounds for array of length " + array.length);
+        }
+        this.payload = array;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @return the bytes of the payload without copying if they span the whole
+     *         backing array, otherwise a copy. Callers must not modify it.
+     */
+    public byte[] asByteArray() {
+        if (offset == 0 && length == payload.length) {
+            return payload;
+        }
+        return toByteArray();
+    }
+
+    /**
+     * @return a new array holding a copy of the bytes of the payload
+     */
+    public byte[] toByteArray() {
+        byte[] result = new byte[length];
+        System.arraycopy(payload, offset, result, 0, length);
+        return result;
+    }
+
+    /**
+     * @return read-only view of the payload, positioned at its first byte
+     */
+    public ByteBuffer asReadOnlyBuffer() {
+        return ByteBuffer.wrap(payload, offset, length).slice().asReadOnlyBuffer();
+    }
+
+    /*
+     * Resolve the backing array of a ByteBuffer slice. Direct and read-only
+     * buffers give no access to their array, their content is copied.
+     */
+    protected ByteArrayPayload(ByteBuffer source) {
+        this(arrayOf(source), source.hasArray() ? source.arrayOffset() + source.position() : 0,
+                source.remaining());
+    }
+
+    private static byte[] arrayOf(ByteBuffer source) {
+        if (source.hasArray()) {
+            return source.array();
+        }
+        byte[] copy = new byte[source.remaining()];
+        source.duplicate().get(copy);
+        return copy;
+    }
+
+    protected static byte[] copy(byte[] source) {
+        if (source == null) {
+            throw new IllegalArgumentException("Payload array cannot be null.");
+        }
+        return source.clone();
+    }
+}
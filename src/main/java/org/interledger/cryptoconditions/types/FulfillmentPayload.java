@@ -1,15 +1,59 @@
 package org.interledger.cryptoconditions.types;
 
+import java.nio.ByteBuffer;
+
 /*
  * wrapper arround byte[] to provide type safety.
  * 
  * Used to genereate public/private keys.
  */
-public class FulfillmentPayload {
-
-    public final byte[] payload;
+public class FulfillmentPayload extends ByteArrayPayload {
 
+    /**
+     * Copies source. Prefer wrap(...) when the caller gives up ownership.
+     */
     public FulfillmentPayload(byte[] source) {
-        this.payload = source.clone();
+        super(copy(source), 0, source.length);
+    }
+
+    private FulfillmentPayload(byte[] array, int offset, int length) {
+        super(array, offset, length);
+    }
+
+    private FulfillmentPayload(ByteBuffer source) {
+        super(source);
+    }
+
+    /**
+     * Wrap source without copying. The caller must not modify it afterwards.
+     */
+    public static FulfillmentPayload wrap(byte[] source) {
+        return new FulfillmentPayload(source, 0, source.length);
+    }
+
+    /**
+     * Wrap a slice of source without copying. The caller must not modify it
+     * afterwards.
+     */
+    public static FulfillmentPayload wrap(byte[] source, int offset, int length) {
+        return new FulfillmentPayload(source, offset, length);
+    }
+
+    /**
+     * Wrap the remaining bytes of a heap buffer without copying. The caller
+     * must not modify them afterwards. Direct buffers are copied.
+     */
+    public static FulfillmentPayload wrap(ByteBuffer source) {
+        return new FulfillmentPayload(source);
+    }
+
+    public static FulfillmentPayload copyOf(byte[] source) {
+        return new FulfillmentPayload(source);
+    }
+
+    public static FulfillmentPayload copyOf(ByteBuffer source) {
+        byte[] copy = new byte[source.remaining()];
+        source.duplicate().get(copy);
+        return wrap(copy);
     }
 }
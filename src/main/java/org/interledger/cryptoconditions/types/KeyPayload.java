@@ -1,15 +1,59 @@
 package org.interledger.cryptoconditions.types;
 
+import java.nio.ByteBuffer;
+
 /*
  * wrapper arround byte[] to provide type safety.
  * 
  * Used to genereate public/private keys.
  */
-public class KeyPayload {
-
-    public final byte[] payload;
+public class KeyPayload extends ByteArrayPayload {
 
+    /**
+     * Copies source. Prefer wrap(...) when the caller gives up ownership.
+     */
     public KeyPayload(byte[] source) {
-        this.payload = source.clone();
+        super(copy(source), 0, source.length);
+    }
+
+    private KeyPayload(byte[] array, int offset, int length) {
+        super(array, offset, length);
+    }
+
+    private KeyPayload(ByteBuffer source) {
+        super(source);
+    }
+
+    /**
+     * Wrap source without copying. The caller must not modify it afterwards.
+     */
+    public static KeyPayload wrap(byte[] source) {
+        return new KeyPayload(source, 0, source.length);
+    }
+
+    /**
+     * Wrap a slice of source without copying. The caller must not modify it
+     * afterwards.
+     */
+    public static KeyPayload wrap(byte[] source, int offset, int length) {
+        return new KeyPayload(source, offset, length);
+    }
+
+    /**
+     * Wrap the remaining bytes of a heap buffer without copying. The caller
+     * must not modify them afterwards. Direct buffers are copied.
+     */
+    public static KeyPayload wrap(ByteBuffer source) {
+        return new KeyPayload(source);
+    }
+
+    public static KeyPayload copyOf(byte[] source) {
+        return new KeyPayload(source);
+    }
+
+    public static KeyPayload copyOf(ByteBuffer source) {
+        byte[] copy = new byte[source.remaining()];
+        source.duplicate().get(copy);
+        return wrap(copy);
     }
 }
@@ -1,15 +1,59 @@
 package org.interledger.cryptoconditions.types;
 
+import java.nio.ByteBuffer;
+
 /*
  * wrapper arround byte[] to provide type safety.
  * 
  * Used to genereate public/private keys.
  */
-public class MessagePayload {
-
-    public final byte[] payload;
+public class MessagePayload extends ByteArrayPayload {
 
+    /**
+     * Copies source. Prefer wrap(...) when the caller gives up ownership.
+     */
     public MessagePayload(byte[] source) {
-        this.payload = source.clone();
+        super(copy(source), 0, source.length);
+    }
+
+    private MessagePayload(byte[] array, int offset, int length) {
+        super(array, offset, length);
+    }
+
+    private MessagePayload(ByteBuffer source) {
+        super(source);
+    }
+
+    /**
+     * Wrap source without copying. The caller must not modify it afterwards.
+     */
+    public static MessagePayload wrap(byte[] source) {
+        return new MessagePayload(source, 0, source.length);
+    }
+
+    /**
+     * Wrap a slice of source without copying. The caller must not modify it
+     * afterwards.
+     */
+    public static MessagePayload wrap(byte[] source, int offset, int length) {
+        return new MessagePayload(source, offset, length);
+    }
+
+    /**
+     * Wrap the remaining bytes of a heap buffer without copying. The caller
+     * must not modify them afterwards. Direct buffers are copied.
+     */
+    public static MessagePayload wrap(ByteBuffer source) {
+        return new MessagePayload(source);
+    }
+
+    public static MessagePayload copyOf(byte[] source) {
+        return new MessagePayload(source);
+    }
+
+    public static MessagePayload copyOf(ByteBuffer source) {
+        byte[] copy = new byte[source.remaining()];
+        source.duplicate().get(copy);
+        return wrap(copy);
     }
 }
@@ -1,15 +1,59 @@
 package org.interledger.cryptoconditions.types;
 
+import java.nio.ByteBuffer;
+
 /*
  * wrapper arround byte[] to provide type safety.
  * 
  * Used to genereate public/private keys.
  */
-public class SignaturePayload {
-
-    public final byte[] payload;
+public class SignaturePayload extends ByteArrayPayload {
 
+    /**
+     * Copies source. Prefer wrap(...) when the caller gives up ownership.
+     */
     public SignaturePayload(byte[] source) {
-        this.payload = source.clone();
+        super(copy(source), 0, source.length);
+    }
+
+    private SignaturePayload(byte[] array, int offset, int length) {
+        super(array, offset, length);
+    }
+
+    private SignaturePayload(ByteBuffer source) {
+        super(source);
+    }
+
+    /**
+     * Wrap source without copying. The caller must not modify it afterwards.
+     */
+    public static SignaturePayload wrap(byte[] source) {
+        return new SignaturePayload(source, 0, source.length);
+    }
+
+    /**
+     * Wrap a slice of source without copying. The caller must not modify it
+     * afterwards.
+     */
+    public static SignaturePayload wrap(byte[] source, int offset, int length) {
+        return new SignaturePayload(source, offset, length);
+    }
+
+    /**
+     * Wrap the remaining bytes of a heap buffer without copying. The caller
+     * must not modify them afterwards. Direct buffers are copied.
+     */
+    public static SignaturePayload wrap(ByteBuffer source) {
+        return new SignaturePayload(source);
+    }
+
+    public static SignaturePayload copyOf(byte[] source) {
+        return new SignaturePayload(source);
+    }
+
+    public static SignaturePayload copyOf(ByteBuffer source) {
+        byte[] copy = new byte[source.remaining()];
+        source.duplicate().get(copy);
+        return wrap(copy);
     }
 }
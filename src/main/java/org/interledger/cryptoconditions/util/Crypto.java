@@ -1,7 +1,13 @@
 package org.interledger.cryptoconditions.util;
 
+import java.security.DigestException;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+
+import org.interledger.cryptoconditions.jfr.FlightRecorderEvents;
+import org.interledger.cryptoconditions.spi.CryptoBackends;
+import org.interledger.cryptoconditions.spi.Primitive;
+import org.interledger.cryptoconditions.trace.Tracing;
 
 /**
  * Convenience class for crypto functions
@@ -11,6 +17,31 @@ import java.security.NoSuchAlgorithmException;
  */
 public class Crypto {
 
+    public static final int SHA256_LENGTH = 32;
+
+    /*
+     * MessageDigest.getInstance goes through the provider lookup on every
+     * call and instances are not thread-safe, so keep one per thread, from
+     * the backend selected when the thread first hashes.
+     */
+    private static final ThreadLocal<MessageDigest> SHA256_DIGEST = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return CryptoBackends.get(Primitive.SHA256).newSha256();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+    };
+
+    private static final ThreadLocal<byte[]> SHA256_SCRATCH = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[SHA256_LENGTH];
+        }
+    };
+
     /**
      * Get the Sha256 hash of a pre-image.
      *
@@ -20,12 +51,61 @@ public class Crypto {
      * @return hash of input
      */
     public static byte[] getSha256Hash(byte[] input) {
+        Tracing.countHash();
+        Object event = FlightRecorderEvents.begin(FlightRecorderEvents.HASH);
+        byte[] result = SHA256_DIGEST.get().digest(input);
+        FlightRecorderEvents.commit(event, null, input.length, true);
+        return result;
+    }
+
+    /**
+     * Write the Sha256 hash of a slice of input to output, without allocating.
+     *
+     * @param output receives SHA256_LENGTH bytes at outputOffset
+     */
+    public static void getSha256Hash(byte[] input, int offset, int length, byte[] output, int outputOffset) {
+        Tracing.countHash();
+        Object event = FlightRecorderEvents.begin(FlightRecorderEvents.HASH);
+        MessageDigest digest = SHA256_DIGEST.get();
+        digest.update(input, offset, length);
+        try {
+            digest.digest(output, outputOffset, SHA256_LENGTH);
+        } catch (DigestException e) {
+            digest.reset();
+            FlightRecorderEvents.commit(event, null, length, false);
+            throw new IllegalArgumentException(e);
+        }
+        FlightRecorderEvents.commit(event, null, length, true);
+    }
+
+    /**
+     * Check whether the Sha256 hash of a pre-image equals the expected hash.
+     *
+     * Unlike comparing against getSha256Hash(input) this does not allocate.
+     *
+     * @param input pre-image
+     * @param expected expected hash
+     * @return true if the hash of input equals expected
+     */
+    public static boolean sha256Equals(byte[] input, byte[] expected) {
+        if (expected.length != SHA256_LENGTH) {
+            return false;
+        }
+        Tracing.countHash();
+        Object event = FlightRecorderEvents.begin(FlightRecorderEvents.HASH);
+        MessageDigest digest = SHA256_DIGEST.get();
+        byte[] scratch = SHA256_SCRATCH.get();
+        digest.update(input);
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            return digest.digest(input);
-        } catch (NoSuchAlgorithmException e) {
+            digest.digest(scratch, 0, SHA256_LENGTH);
+        } catch (DigestException e) {
+            digest.reset();
+            FlightRecorderEvents.commit(event, null, input.length, false);
             throw new IllegalArgumentException(e);
         }
+        boolean equal = MessageDigest.isEqual(scratch, expected);
+        FlightRecorderEvents.commit(event, null, input.length, equal);
+        return equal;
     }
 
 }
@@ -0,0 +1,151 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.interledger.cryptoconditions.bulk.BulkUriParser;
+import org.interledger.cryptoconditions.bulk.BulkUriParser.Handler;
+import org.interledger.cryptoconditions.bulk.BulkUriParser.ParsedLine;
+import org.interledger.cryptoconditions.encoding.DecodeError;
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+public class TestBulkUriParser {
+
+    static {
+        Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /* Every fourth line is broken, blank or padded. */
+    private File write(int count, List<String> uris) throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            Fulfillment ff = i % 3 == 0
+                    ? Ed25519Fulfillment.BuildFromSecrets(new KeyPayload(new byte[32]),
+                            new MessagePayload(new byte[]{(byte) i}))
+                    : PrefixSha256Fulfillment.BuildFromParams(new byte[]{(byte) i},
+                            PreimageSha256Fulfillment.BuildFromSecrets(new byte[i % 50]));
+            String uri = i % 2 == 0 ? ff.toURI() : ff.getCondition().toURI();
+            switch (i % 8) {
+                case 3:
+                    uri = uri.substring(0, uri.length() - 1) + "=";
+                    text.append(uri).append('\n');
+                    break;
+                case 7:
+                    text.append("  ").append(uri).append("\t\r\n\n");
+                    break;
+                default:
+                    text.append(uri).append('\n');
+            }
+            uris.add(uri);
+        }
+        text.append("cc:9:3:AAAA:1"); // no line end
+        uris.add("cc:9:3:AAAA:1");
+        File file = folder.newFile();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(text.toString().getBytes("US-ASCII"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static void assertParsed(String uri, ParsedLine line) {
+        if (uri.startsWith("cf:")) {
+            Fulfillment ff = line.isSuccess() ? line.getFulfillment() : null;
+            boolean valid;
+            try {
+                valid = FulfillmentFactory.getFulfillmentFromURI(uri) != null;
+            } catch (RuntimeException e) {
+                valid = false;
+            }
+            assertEquals(uri, valid, ff != null);
+            if (ff != null) {
+                assertEquals(uri, ff.toURI());
+            }
+        } else {
+            boolean valid;
+            try {
+                valid = new ConditionImpl(uri) != null;
+            } catch (RuntimeException e) {
+                valid = false;
+            }
+            assertEquals(uri, valid, line.isSuccess());
+            if (valid) {
+                assertEquals(uri, line.getCondition().toURI());
+            }
+        }
+    }
+
+    @Test
+    public void testOrdered() throws Exception {
+        List<String> uris = new ArrayList<String>();
+        File file = write(500, uris);
+        BulkUriParser parser = new BulkUriParser(file);
+        parser.setThreads(4);
+        parser.setChunkSize(300);
+        List<ParsedLine> lines = parser.parseAll();
+        assertEquals(uris.size(), lines.size());
+        long lineNumber = 0;
+        for (int i = 0; i < uris.size(); i++) {
+            ParsedLine line = lines.get(i);
+            assertTrue(line.getLineNumber() > lineNumber);
+            lineNumber = line.getLineNumber();
+            assertParsed(uris.get(i), line);
+        }
+        // Line 4 is the broken fulfillment, the padded URIs add a blank line
+        assertEquals(DecodeError.MALFORMED_URI, lines.get(3).getError());
+        assertEquals(4, lines.get(3).getLineNumber());
+        assertEquals(10, lines.get(8).getLineNumber());
+        ParsedLine last = lines.get(lines.size() - 1);
+        assertEquals(DecodeError.UNKNOWN_TYPE, last.getError());
+        assertEquals(3, last.getErrorOffset());
+        assertEquals(uris.size() + 500 / 8, last.getLineNumber());
+    }
+
+    @Test
+    public void testUnordered() throws Exception {
+        List<String> uris = new ArrayList<String>();
+        File file = write(300, uris);
+        BulkUriParser parser = new BulkUriParser(file);
+        parser.setChunkSize(100);
+        final List<ParsedLine> lines = Collections.synchronizedList(new ArrayList<ParsedLine>());
+        long count = parser.parseUnordered(new Handler() {
+            @Override
+            public void handle(ParsedLine line) {
+                lines.add(line);
+            }
+        });
+        assertEquals(uris.size(), count);
+        Collections.sort(lines, new Comparator<ParsedLine>() {
+            @Override
+            public int compare(ParsedLine a, ParsedLine b) {
+                return a.getLineNumber() < b.getLineNumber() ? -1 : a.getLineNumber() == b.getLineNumber() ? 0 : 1;
+            }
+        });
+        List<ParsedLine> ordered = new BulkUriParser(file).parseAll();
+        for (int i = 0; i < uris.size(); i++) {
+            assertEquals(ordered.get(i).toString(), lines.get(i).toString());
+            assertEquals(ordered.get(i).getOffset(), lines.get(i).getOffset());
+        }
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        assertTrue(new BulkUriParser(folder.newFile()).parseAll().isEmpty());
+    }
+}
@@ -0,0 +1,174 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.interledger.cryptoconditions.bulk.BulkVerifier;
+import org.interledger.cryptoconditions.encoding.Base64Url;
+import org.interledger.cryptoconditions.encoding.OerOutputStream;
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+public class TestBulkVerifier {
+
+    static {
+        Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+    }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final byte[] MESSAGE = new byte[]{'a', 'b', 'c'};
+
+    private static Fulfillment ed25519(byte seed) {
+        byte[] key = new byte[32];
+        key[0] = seed;
+        return Ed25519Fulfillment.BuildFromSecrets(new KeyPayload(key), new MessagePayload(MESSAGE));
+    }
+
+    private static String uriLine(Condition condition, Fulfillment fulfillment, byte[] message) {
+        return condition.toURI() + " " + fulfillment.toURI() + " " + Base64Url.encode(message) + "\n";
+    }
+
+    private static void write(File file, byte[] data, boolean append) throws IOException {
+        FileOutputStream out = new FileOutputStream(file, append);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static List<String> lines(File file) throws IOException {
+        List<String> result = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                result.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+
+    @Test
+    public void testUriFile() throws Exception {
+        Fulfillment preimage = PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{1, 2, 3});
+        Fulfillment signed = ed25519((byte) 1);
+        String valid1 = uriLine(preimage.getCondition(), preimage, MESSAGE);
+        String valid2 = uriLine(signed.getCondition(), signed, MESSAGE);
+        String wrongMessage = uriLine(signed.getCondition(), signed, new byte[]{'x'});
+        String wrongCondition = uriLine(ed25519((byte) 2).getCondition(), signed, MESSAGE);
+        String malformed = "cc:not-a-condition cf:0:AA\n";
+        String text = valid1 + "\n" + valid2 + wrongMessage + wrongCondition + malformed + valid1.trim();
+
+        File input = folder.newFile("records.txt");
+        write(input, text.getBytes("US-ASCII"), false);
+        File results = new File(folder.getRoot(), "results.txt");
+        BulkVerifier verifier = new BulkVerifier(input, results);
+        verifier.setThreads(2);
+        verifier.setBatchSize(2);
+        BulkVerifier.Summary summary = verifier.run();
+
+        assertEquals(6, summary.getRecords());
+        assertEquals(3, summary.getVerified());
+        assertEquals(2, summary.getFailed());
+        assertEquals(1, summary.getMalformed());
+        assertEquals(input.length(), summary.getOffset());
+        assertFalse(summary.allVerified());
+
+        int wrongMessageOffset = (valid1 + "\n" + valid2).length();
+        List<String> lines = lines(results);
+        assertEquals(3, lines.size());
+        assertEquals(wrongMessageOffset + "\tFAILED\tfulfillment doesn't validate message", lines.get(0));
+        assertEquals((wrongMessageOffset + wrongMessage.length()) + "\tFAILED\tfulfillment doesn't match condition",
+                lines.get(1));
+        assertTrue(lines.get(2), lines.get(2).startsWith(
+                (wrongMessageOffset + wrongMessage.length() + wrongCondition.length()) + "\tMALFORMED\t"));
+    }
+
+    private static byte[] oerRecord(Condition condition, Fulfillment fulfillment, byte[] message)
+            throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        OerOutputStream oer = new OerOutputStream(buffer);
+        oer.writeOctetString(condition.serializeBinary());
+        oer.writeOctetString(fulfillment.serializeBinary());
+        oer.writeOctetString(message);
+        oer.flush();
+        return buffer.toByteArray();
+    }
+
+    @Test
+    public void testOerFileResume() throws Exception {
+        Fulfillment signed = ed25519((byte) 3);
+        Fulfillment prefixed = PrefixSha256Fulfillment.BuildFromParams(new byte[]{'p'},
+                PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{4}));
+        byte[] valid = oerRecord(signed.getCondition(), signed, MESSAGE);
+        byte[] invalid = oerRecord(signed.getCondition(), signed, new byte[0]);
+        byte[] validPrefix = oerRecord(prefixed.getCondition(), prefixed, MESSAGE);
+
+        File input = folder.newFile("records.oer");
+        File results = new File(folder.getRoot(), "results.txt");
+        File checkpoint = new File(folder.getRoot(), "results.checkpoint");
+        write(input, valid, false);
+        write(input, invalid, true);
+
+        BulkVerifier verifier = new BulkVerifier(input, results);
+        verifier.setCheckpoint(checkpoint);
+        BulkVerifier.Summary first = verifier.run();
+        assertEquals(2, first.getRecords());
+        assertEquals(1, first.getFailed());
+        assertEquals(valid.length + invalid.length, first.getOffset());
+        assertTrue(checkpoint.exists());
+
+        // Records appended later are picked up from the checkpoint, earlier ones aren't verified again
+        write(input, validPrefix, true);
+        write(input, invalid, true);
+        write(input, new byte[]{5, 1}, true); // truncated record
+        BulkVerifier.Summary second = verifier.run();
+        assertEquals(5, second.getRecords());
+        assertEquals(2, second.getVerified());
+        assertEquals(2, second.getFailed());
+        assertEquals(1, second.getMalformed());
+        assertEquals(input.length(), second.getOffset());
+
+        List<String> lines = lines(results);
+        assertEquals(3, lines.size());
+        assertEquals(valid.length + "\tFAILED\tfulfillment doesn't validate message", lines.get(0));
+        int secondInvalid = valid.length + invalid.length + validPrefix.length;
+        assertEquals(secondInvalid + "\tFAILED\tfulfillment doesn't validate message", lines.get(1));
+        assertTrue(lines.get(2).startsWith((secondInvalid + invalid.length) + "\tMALFORMED\t"));
+
+        // Nothing new: a no-op
+        BulkVerifier.Summary third = verifier.run();
+        assertEquals(5, third.getRecords());
+        assertEquals(3, lines(results).size());
+
+        // The checkpoint of another input isn't resumed
+        File other = folder.newFile("other.oer");
+        write(other, valid, false);
+        BulkVerifier foreign = new BulkVerifier(other, results);
+        foreign.setCheckpoint(checkpoint);
+        try {
+            foreign.run();
+            fail("Checkpoint of another input resumed");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("checkpoint of"));
+        }
+        assertEquals(3, lines(results).size());
+    }
+}
@@ -0,0 +1,102 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.interledger.cryptoconditions.util.ByteArrayComparator;
+
+public class TestByteArrayComparator {
+
+    /* Buffer.compare, one byte at a time. */
+    private static int reference(byte[] a, byte[] b) {
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            int x = a[i] & 0xff;
+            int y = b[i] & 0xff;
+            if (x != y) {
+                return x < y ? -1 : 1;
+            }
+        }
+        return a.length == b.length ? 0 : a.length < b.length ? -1 : 1;
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+
+    @Test
+    public void testJavaScriptSemantics() {
+        ByteArrayComparator comparator = ByteArrayComparator.INSTANCE;
+        assertEquals(0, comparator.compare(new byte[0], new byte[0]));
+        assertEquals(-1, comparator.compare(new byte[0], bytes(0)));
+        assertEquals(-1, comparator.compare(bytes(1, 2), bytes(1, 2, 0)));
+        assertEquals(1, comparator.compare(bytes(2), bytes(1, 255, 255)));
+        assertEquals(1, comparator.compare(bytes(0x80), bytes(0x7f)));
+        assertEquals(-1, comparator.compare(bytes(1, 2, 3, 4, 5, 6, 7, 0x7f, 9), bytes(1, 2, 3, 4, 5, 6, 7, 0x80)));
+        assertEquals(1, comparator.compare(bytes(0xff, 0, 0, 0, 0, 0, 0, 0), bytes(0x7f, 0, 0, 0, 0, 0, 0, 0)));
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            // Long shared prefixes, around the 8 byte words and the compareUnsigned threshold
+            int length = random.nextInt(i % 2 == 0 ? 20 : 300);
+            byte[] a = new byte[length];
+            random.nextBytes(a);
+            byte[] b = Arrays.copyOf(a, Math.max(0, length + random.nextInt(5) - 2));
+            if (b.length > 0 && random.nextBoolean()) {
+                b[random.nextInt(b.length)] = (byte) random.nextInt();
+            }
+            int expected = reference(a, b);
+            assertEquals(expected, ByteArrayComparator.INSTANCE.compare(a, b));
+            assertEquals(-expected, ByteArrayComparator.INSTANCE.compare(b, a));
+            assertEquals(expected, Integer.signum(
+                    new ByteArrayComparator.Key(a).compareTo(new ByteArrayComparator.Key(b))));
+            assertEquals(expected == 0, new ByteArrayComparator.Key(a).equals(new ByteArrayComparator.Key(b)));
+        }
+    }
+
+    @Test
+    public void testRanges() {
+        byte[] a = bytes(9, 1, 2, 3, 4, 5, 6, 7, 8, 9, 9);
+        byte[] b = bytes(1, 2, 3, 4, 5, 6, 7, 8, 9);
+        assertEquals(0, ByteArrayComparator.compare(a, 1, 9, b, 0, 9));
+        assertEquals(1, ByteArrayComparator.compare(a, 1, 10, b, 0, 9));
+        assertEquals(-1, ByteArrayComparator.compare(a, 1, 8, b, 0, 9));
+        try {
+            ByteArrayComparator.compare(a, 5, 10, b, 0, 9);
+            fail("Range past the end accepted");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSortKeys() {
+        Random random = new Random(2);
+        List<byte[]> arrays = new ArrayList<byte[]>();
+        List<ByteArrayComparator.Key> keys = new ArrayList<ByteArrayComparator.Key>();
+        for (int i = 0; i < 1000; i++) {
+            byte[] array = new byte[random.nextInt(12)];
+            random.nextBytes(array);
+            arrays.add(array);
+            keys.add(new ByteArrayComparator.Key(array));
+        }
+        Collections.sort(arrays, ByteArrayComparator.INSTANCE);
+        Collections.sort(keys);
+        for (int i = 0; i < arrays.size(); i++) {
+            assertArrayEquals(arrays.get(i), keys.get(i).getBytes());
+        }
+    }
+}
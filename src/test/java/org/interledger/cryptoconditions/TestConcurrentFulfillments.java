@@ -0,0 +1,110 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+/**
+ * Threads race on the first getCondition, validate and toURI calls of
+ * freshly decoded fulfillments: each must see the same condition and a
+ * successful validation, and nested fulfillments must be left untouched.
+ */
+public class TestConcurrentFulfillments {
+
+    static {
+        Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+    }
+
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static final byte[] PREFIX = {'p', ':'};
+    private static final byte[] MESSAGE = {'a', 'b', 'c'};
+
+    private static byte[] prefixed(byte[] message) {
+        byte[] result = new byte[PREFIX.length + message.length];
+        System.arraycopy(PREFIX, 0, result, 0, PREFIX.length);
+        System.arraycopy(message, 0, result, PREFIX.length, message.length);
+        return result;
+    }
+
+    private static void race(Fulfillment original, int rounds) throws Exception {
+        final String uri = original.toURI();
+        final String conditionUri = original.getCondition().toURI();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < rounds; round++) {
+                // Published to the workers by the executor, as a pool sharing decoded fulfillments would
+                final Fulfillment shared = FulfillmentFactory.getFulfillmentFromURI(uri);
+                final CyclicBarrier start = new CyclicBarrier(THREADS);
+                List<Future<Condition>> results = new ArrayList<Future<Condition>>();
+                for (int idx = 0; idx < THREADS; idx++) {
+                    final boolean validateFirst = idx % 2 == 0;
+                    results.add(pool.submit(new Callable<Condition>() {
+                        @Override
+                        public Condition call() throws Exception {
+                            start.await(10, TimeUnit.SECONDS);
+                            if (validateFirst && !shared.validate(new MessagePayload(MESSAGE))) {
+                                throw new AssertionError("Fulfillment not validated");
+                            }
+                            Condition condition = shared.getCondition();
+                            if (!validateFirst && !shared.validate(new MessagePayload(MESSAGE))) {
+                                throw new AssertionError("Fulfillment not validated");
+                            }
+                            if (!uri.equals(shared.toURI())) {
+                                throw new AssertionError("URI changed to " + shared.toURI());
+                            }
+                            return condition;
+                        }
+                    }));
+                }
+                for (Future<Condition> result : results) {
+                    assertEquals(conditionUri, result.get(30, TimeUnit.SECONDS).toURI());
+                }
+                assertSame(shared.getCondition(), shared.getCondition());
+                assertEquals(original.getFeatureBitmask(), shared.getFeatureBitmask());
+                if (shared instanceof PrefixSha256Fulfillment) {
+                    Fulfillment child = ((PrefixSha256Fulfillment) shared).getSubFulfillment();
+                    Fulfillment originalChild = ((PrefixSha256Fulfillment) original).getSubFulfillment();
+                    assertEquals(originalChild.getCondition().toURI(), child.getCondition().toURI());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPreimageAndPrefix() throws Exception {
+        Fulfillment preimage = PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{1, 2, 3});
+        race(preimage, 500);
+        race(PrefixSha256Fulfillment.BuildFromParams(PREFIX, preimage), 500);
+    }
+
+    @Test
+    public void testEd25519() throws Exception {
+        Fulfillment ed25519 = Ed25519Fulfillment.BuildFromSecrets(new KeyPayload(new byte[32]),
+                new MessagePayload(prefixed(MESSAGE)));
+        race(PrefixSha256Fulfillment.BuildFromParams(PREFIX, ed25519), 50);
+    }
+
+    @Test
+    public void testRsa() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        RsaSha256Signer signer = new RsaSha256Signer((RSAPrivateCrtKey) generator.generateKeyPair().getPrivate());
+        race(signer.sign(new MessagePayload(MESSAGE)), 50);
+    }
+}
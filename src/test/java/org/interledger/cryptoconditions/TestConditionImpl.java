@@ -2,6 +2,9 @@ package org.interledger.cryptoconditions;
 
 import static org.junit.Assert.*;
 
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+
 import org.junit.Test;
 
 public class TestConditionImpl {
@@ -13,4 +16,34 @@ public class TestConditionImpl {
         assertTrue(URICondition.equals(cond.toURI()));
     }
 
+    @Test
+    public void testCachedEncodings() {
+        Fulfillment ff = PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{0x61, 0x62, 0x63});
+        Condition cond = ff.getCondition();
+        assertSame(cond.toURI(), cond.toURI());
+        assertSame(ff.toURI(), ff.toURI());
+
+        byte[] encoded = cond.serializeBinary();
+        encoded[0] = 0x7f; // callers own the returned copy
+        assertArrayEquals(new ConditionImpl(cond.toURI()).serializeBinary(), cond.serializeBinary());
+
+        ByteBuffer view = cond.toByteBuffer();
+        assertTrue(view.isReadOnly());
+        byte[] fromView = new byte[view.remaining()];
+        view.get(fromView);
+        assertArrayEquals(cond.serializeBinary(), fromView);
+        assertArrayEquals(ff.serializeBinary(), toArray(ff.toByteBuffer()));
+    }
+
+    @Test(expected = ReadOnlyBufferException.class)
+    public void testByteBufferViewIsReadOnly() {
+        new ConditionImpl("cc:2:1:x07W1xU1_oBcV9zUheOzspx6Beq8vgy0vYgBVifNV1Q:10").toByteBuffer().put(0, (byte) 0);
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] result = new byte[buffer.remaining()];
+        buffer.get(result);
+        return result;
+    }
+
 }
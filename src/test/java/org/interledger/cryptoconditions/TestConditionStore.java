@@ -0,0 +1,100 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.interledger.cryptoconditions.store.ConditionStore;
+
+public class TestConditionStore {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Fulfillment preimage(int idx) {
+        return PreimageSha256Fulfillment.BuildFromSecrets(("preimage-" + idx).getBytes());
+    }
+
+    @Test
+    public void testPutAttachAndLookup() throws IOException {
+        ConditionStore store = ConditionStore.open(folder.getRoot(), 4096, 0);
+        Fulfillment ff = preimage(0);
+        Condition condition = ff.getCondition();
+
+        assertTrue(store.putIfAbsent(condition));
+        assertFalse(store.putIfAbsent(new ConditionImpl(condition.toURI())));
+        assertTrue(store.contains(condition));
+        assertFalse(store.isFulfilled(condition));
+        assertNull(store.getFulfillment(condition));
+
+        assertTrue(store.attachFulfillment(condition, ff));
+        assertFalse(store.attachFulfillment(condition, ff));
+        assertTrue(store.isFulfilled(condition));
+        assertEquals(ff.toURI(), store.getFulfillment(condition).toURI());
+
+        assertFalse(store.contains(preimage(1).getCondition()));
+        store.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAttachRejectsForeignFulfillment() throws IOException {
+        ConditionStore store = ConditionStore.open(folder.getRoot(), 4096, 0);
+        Condition condition = preimage(0).getCondition();
+        store.putIfAbsent(condition);
+        try {
+            store.attachFulfillment(condition, preimage(1));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void testReopenGrowAndCompact() throws IOException {
+        File dir = folder.getRoot();
+        // Small segments and enough entries to roll segments and grow the index.
+        ConditionStore store = ConditionStore.open(dir, 4096, 0);
+        List<Fulfillment> ffs = new ArrayList<Fulfillment>();
+        for (int idx = 0; idx < 2000; idx++) {
+            Fulfillment ff = preimage(idx);
+            ffs.add(ff);
+            assertTrue(store.putIfAbsent(ff.getCondition()));
+            if (idx % 2 == 0) {
+                assertTrue(store.attachFulfillment(ff.getCondition(), ff));
+            }
+        }
+        store.close();
+
+        store = ConditionStore.open(dir, 4096, 0);
+        assertEquals(2000, store.size());
+        for (int idx = 0; idx < ffs.size(); idx++) {
+            Condition condition = ffs.get(idx).getCondition();
+            assertTrue(store.contains(condition));
+            assertEquals(idx % 2 == 0, store.isFulfilled(condition));
+        }
+        int segmentsBefore = dir.list().length;
+        for (int idx = 0; idx < 1500; idx++) {
+            assertTrue(store.remove(ffs.get(idx).getCondition()));
+        }
+        assertTrue(store.compact() > 0);
+        assertTrue(dir.list().length < segmentsBefore);
+        store.close();
+
+        store = ConditionStore.open(dir, 4096, 0);
+        assertEquals(500, store.size());
+        for (int idx = 0; idx < ffs.size(); idx++) {
+            Fulfillment ff = ffs.get(idx);
+            assertEquals(idx >= 1500, store.contains(ff.getCondition()));
+            if (idx >= 1500 && idx % 2 == 0) {
+                assertEquals(ff.toURI(), store.getFulfillment(ff.getCondition()).toURI());
+            }
+        }
+        store.close();
+    }
+}
@@ -0,0 +1,145 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import org.interledger.cryptoconditions.store.ConditionTable;
+
+public class TestConditionTable {
+
+    private static Condition condition(Random random, ConditionType type, int maxFulfillmentLength) {
+        byte[] fingerprint = new byte[32];
+        random.nextBytes(fingerprint);
+        return new ConditionImpl(type, FeatureSuite.SHA_256.toInt() | FeatureSuite.PREIMAGE.toInt(), fingerprint,
+                maxFulfillmentLength);
+    }
+
+    @Test
+    public void testPutLookupAndViews() {
+        ConditionTable table = new ConditionTable(10);
+        Condition condition = PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{1, 2, 3}).getCondition();
+        assertTrue(table.putIfAbsent(condition));
+        assertFalse(table.putIfAbsent(new ConditionImpl(condition.toURI())));
+        assertEquals(1, table.size());
+
+        Condition view = table.get(table.indexOf(condition));
+        assertEquals(condition.toURI(), view.toURI());
+        assertEquals(condition.getType(), view.getType());
+        assertEquals(condition.getFeatures(), view.getFeatures());
+        assertArrayEquals(condition.serializeBinary(), view.serializeBinary());
+
+        // Same fingerprint, other fields differ: other conditions
+        byte[] fingerprint = condition.getFingerprint();
+        Condition otherType = new ConditionImpl(ConditionType.PREFIX_SHA256, condition.getFeatureBitmask(),
+                fingerprint, condition.getMaxFulfillmentLength());
+        Condition otherLength = new ConditionImpl(condition.getType(), condition.getFeatureBitmask(),
+                fingerprint, condition.getMaxFulfillmentLength() + 1);
+        assertFalse(table.contains(otherType));
+        assertFalse(table.contains(otherLength));
+        assertTrue(table.putIfAbsent(otherType));
+        assertTrue(table.putIfAbsent(otherLength));
+        assertEquals(3, table.size());
+        assertEquals(otherType.toURI(), table.get(table.indexOf(otherType)).toURI());
+    }
+
+    @Test
+    public void testRejects() {
+        ConditionTable table = new ConditionTable(1);
+        try {
+            table.putIfAbsent(new ConditionImpl(ConditionType.PREIMAGE_SHA256, 3, new byte[20], 1));
+            fail("20 byte fingerprint stored");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        Random random = new Random(1);
+        table.putIfAbsent(condition(random, ConditionType.ED25519, 96));
+        try {
+            table.putIfAbsent(condition(random, ConditionType.ED25519, 96));
+            fail("Full table accepted a condition");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            table.get(1);
+            fail("Row outside of the table returned");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRandomPutAndRemove() {
+        Random random = new Random(42);
+        ConditionTable table = new ConditionTable(5000);
+        List<Condition> present = new ArrayList<Condition>();
+        List<Condition> removed = new ArrayList<Condition>();
+        Set<String> uris = new HashSet<String>();
+        for (int step = 0; step < 50000; step++) {
+            if (present.size() < 4000 && random.nextInt(3) > 0) {
+                Condition condition = condition(random, ConditionType.valueOf(random.nextInt(5)), random.nextInt(3));
+                assertTrue(table.putIfAbsent(condition));
+                present.add(condition);
+                uris.add(condition.toURI());
+            } else if (!present.isEmpty()) {
+                Condition condition = present.remove(random.nextInt(present.size()));
+                assertTrue(table.remove(condition));
+                assertFalse(table.remove(condition));
+                removed.add(condition);
+                uris.remove(condition.toURI());
+            }
+        }
+        assertEquals(present.size(), table.size());
+        for (Condition condition : present) {
+            assertEquals(condition.toURI(), table.get(table.indexOf(condition)).toURI());
+        }
+        for (Condition condition : removed) {
+            assertFalse(table.contains(condition));
+        }
+        Set<String> rows = new HashSet<String>();
+        for (int row = 0; row < table.size(); row++) {
+            rows.add(table.get(row).toURI());
+        }
+        assertEquals(uris, rows);
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        Random random = new Random(7);
+        List<Condition> conditions = new ArrayList<Condition>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int idx = 0; idx < 1000; idx++) {
+            // Max fulfillment lengths of 1, 2 and 3 bytes
+            Condition condition = condition(random, ConditionType.valueOf(idx % 5), idx * idx * 16);
+            conditions.add(condition);
+            out.write(condition.serializeBinary());
+        }
+        out.write(conditions.get(0).serializeBinary());
+        byte[] encoded = out.toByteArray();
+
+        ConditionTable table = new ConditionTable(2000);
+        assertEquals(1000, table.load(new ByteArrayInputStream(encoded)));
+        assertEquals(0, table.load(new ByteArrayInputStream(encoded)));
+        for (Condition condition : conditions) {
+            assertEquals(condition.toURI(), table.get(table.indexOf(condition)).toURI());
+        }
+
+        byte[] truncated = new byte[encoded.length - 1];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+        try {
+            new ConditionTable(2000).load(new ByteArrayInputStream(truncated));
+            fail("Truncated condition loaded");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateCrtKey;
+
+import org.junit.Test;
+
+import org.interledger.cryptoconditions.AdmissionFilter.Budget;
+import org.interledger.cryptoconditions.AdmissionFilter.Decision;
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+public class TestCostEstimate {
+
+    static {
+        Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+    }
+
+    private static Fulfillment wrap(Fulfillment leaf, int levels) {
+        Fulfillment ff = leaf;
+        for (int i = 0; i < levels; i++) {
+            ff = PrefixSha256Fulfillment.BuildFromParams(new byte[]{(byte) i, 0}, ff);
+        }
+        return ff;
+    }
+
+    private static void assertSameEstimates(Fulfillment ff, int messageLength) {
+        String expected = CostEstimate.of(ff, messageLength).toString();
+        assertEquals(expected, CostEstimate.ofBinary(ff.serializeBinary(), messageLength).toString());
+        assertEquals(expected, CostEstimate.ofURI(ff.toURI(), messageLength).toString());
+    }
+
+    @Test
+    public void testPreimageChain() {
+        Fulfillment ff = wrap(PreimageSha256Fulfillment.BuildFromSecrets(new byte[10]), 3);
+        CostEstimate estimate = CostEstimate.of(ff, 100);
+        assertEquals(4, estimate.getDepth());
+        assertEquals(0, estimate.getEd25519Verifies());
+        assertEquals(0, estimate.getRsaVerifies());
+        assertEquals(3 * (2 + CostEstimate.CONDITION_LENGTH) + 10, estimate.getBytesHashed());
+        assertSameEstimates(ff, 100);
+    }
+
+    @Test
+    public void testSignatureLeaves() throws Exception {
+        byte[] message = new byte[]{'m'};
+        Fulfillment ed25519 = wrap(Ed25519Fulfillment.BuildFromSecrets(new KeyPayload(new byte[32]),
+                new MessagePayload(message)), 2);
+        CostEstimate estimate = CostEstimate.of(ed25519, 1000);
+        assertEquals(3, estimate.getDepth());
+        assertEquals(1, estimate.getEd25519Verifies());
+        assertTrue(estimate.getBytesHashed() > 1000 + 4);
+        assertSameEstimates(ed25519, 1000);
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        RsaSha256Signer signer = new RsaSha256Signer((RSAPrivateCrtKey) generator.generateKeyPair().getPrivate());
+        Fulfillment rsa = wrap(signer.sign(new MessagePayload(message)), 1);
+        estimate = CostEstimate.of(rsa, 1);
+        assertEquals(1, estimate.getRsaVerifies());
+        assertEquals(1024, estimate.getMaxRsaModulusBits());
+        assertEquals(Integer.valueOf(1), estimate.getRsaVerifiesByModulusBits().get(1024));
+        assertSameEstimates(rsa, 1);
+    }
+
+    @Test
+    public void testMalformed() {
+        byte[] encoded = wrap(PreimageSha256Fulfillment.BuildFromSecrets(new byte[10]), 2).serializeBinary();
+        byte[] truncated = new byte[encoded.length - 1];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+        byte[][] malformed = {new byte[0], truncated, {0, 0, (byte) 0x80}, {0, 9, 0}};
+        for (byte[] bad : malformed) {
+            try {
+                CostEstimate.ofBinary(bad, 0);
+                fail("Malformed encoding accepted");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        try {
+            CostEstimate.ofURI("cc:0:AA", 0);
+            fail("Condition URI accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testAdmissionFilter() {
+        Budget reject = new Budget();
+        reject.setMaxDepth(5);
+        Budget deprioritize = new Budget();
+        deprioritize.setMaxBytesHashed(150);
+        AdmissionFilter filter = new AdmissionFilter(reject, deprioritize);
+
+        Fulfillment preimage = PreimageSha256Fulfillment.BuildFromSecrets(new byte[10]);
+        assertEquals(Decision.ACCEPT, filter.decide(preimage, 0));
+        assertEquals(Decision.DEPRIORITIZE, filter.decide(wrap(preimage, 4).serializeBinary(), 0));
+        assertEquals(Decision.REJECT, filter.decide(wrap(preimage, 5).serializeBinary(), 0));
+        assertEquals(Decision.REJECT, filter.decide(new byte[]{0, 1}, 0));
+        assertNotNull(reject.exceededBy(CostEstimate.of(wrap(preimage, 5), 0)));
+        assertNull(reject.exceededBy(CostEstimate.of(preimage, 0)));
+    }
+}
@@ -0,0 +1,163 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import net.i2p.crypto.eddsa.EdDSAEngine;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.After;
+import org.junit.Test;
+
+import org.interledger.cryptoconditions.encoding.Base64Url;
+import org.interledger.cryptoconditions.spi.CryptoBackend;
+import org.interledger.cryptoconditions.spi.CryptoBackends;
+import org.interledger.cryptoconditions.spi.Primitive;
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+import org.interledger.cryptoconditions.util.Crypto;
+
+public class TestCryptoBackends {
+
+    static {
+        Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+    }
+
+    private static final MessagePayload MESSAGE = new MessagePayload(new byte[]{'m'});
+
+    @After
+    public void restoreDefaults() {
+        CryptoBackends.select(Primitive.SHA256, "jdk");
+        CryptoBackends.select(Primitive.RSA_PSS_SHA256, "bc");
+        CryptoBackends.select(Primitive.ED25519, "eddsa");
+    }
+
+    private static List<String> supporting(Primitive primitive) {
+        List<String> names = new ArrayList<String>();
+        for (CryptoBackend backend : CryptoBackends.getBackends()) {
+            if (backend.supports(primitive)) {
+                names.add(backend.getName());
+            }
+        }
+        return names;
+    }
+
+    @Test
+    public void testDefaults() {
+        assertEquals("jdk", CryptoBackends.get(Primitive.SHA256).getName());
+        assertEquals("bc", CryptoBackends.get(Primitive.RSA_PSS_SHA256).getName());
+        assertEquals("eddsa", CryptoBackends.get(Primitive.ED25519).getName());
+        assertNotNull(CryptoBackends.getBackend("jdk"));
+        assertNull(CryptoBackends.getBackend("none"));
+        try {
+            CryptoBackends.select(Primitive.SHA256, "none");
+            fail("Unknown backend selected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            CryptoBackends.select(Primitive.ED25519, "bc");
+            fail("Backend selected for a primitive it doesn't support");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /* A bad property must not break class initialization: load CryptoBackends afresh to run it again. */
+    @Test
+    public void testUnknownBackendProperty() throws Exception {
+        String property = CryptoBackends.PROPERTY + "." + Primitive.ED25519.name();
+        URL[] classPath = {
+            CryptoBackends.class.getProtectionDomain().getCodeSource().getLocation(),
+            EdDSAEngine.class.getProtectionDomain().getCodeSource().getLocation(),
+            BouncyCastleProvider.class.getProtectionDomain().getCodeSource().getLocation(),
+        };
+        URLClassLoader loader = new URLClassLoader(classPath, null);
+        System.setProperty(property, "none");
+        try {
+            Class<?> backends = Class.forName(CryptoBackends.class.getName(), true, loader);
+            Class<?> primitive = Class.forName(Primitive.class.getName(), true, loader);
+            Object ed25519 = primitive.getMethod("valueOf", String.class).invoke(null, Primitive.ED25519.name());
+            Object selected = backends.getMethod("get", primitive).invoke(null, ed25519);
+            Method getName = Class.forName(CryptoBackend.class.getName(), true, loader).getMethod("getName");
+            assertEquals("eddsa", getName.invoke(selected));
+        } finally {
+            System.clearProperty(property);
+        }
+    }
+
+    @Test
+    public void testSha256() throws Exception {
+        for (String name : supporting(Primitive.SHA256)) {
+            assertEquals(name, "ungWv48Bz-pBQUDeXa4iI7ADYaOWF3qctBD_YfIAFa0",
+                    Base64Url.encode(CryptoBackends.getBackend(name).newSha256().digest(new byte[]{'a', 'b', 'c'})));
+        }
+        CryptoBackends.select(Primitive.SHA256, "bc");
+        // Threads that haven't hashed yet pick up the new selection
+        final byte[][] hash = new byte[1][];
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                hash[0] = Crypto.getSha256Hash(new byte[]{'a', 'b', 'c'});
+            }
+        };
+        thread.start();
+        thread.join();
+        assertEquals("ungWv48Bz-pBQUDeXa4iI7ADYaOWF3qctBD_YfIAFa0", Base64Url.encode(hash[0]));
+    }
+
+    /* Fulfillments signed with each backend validate with every other. */
+    @Test
+    public void testEd25519Interop() {
+        List<String> names = supporting(Primitive.ED25519);
+        assertTrue(names.contains("eddsa"));
+        for (String signer : names) {
+            CryptoBackends.select(Primitive.ED25519, signer);
+            Ed25519Fulfillment ff = new Ed25519Signer(new KeyPayload(new byte[32])).sign(MESSAGE);
+            for (String verifier : names) {
+                CryptoBackends.select(Primitive.ED25519, verifier);
+                assertTrue(signer + " -> " + verifier, ff.validate(MESSAGE));
+                assertFalse(signer + " -> " + verifier, ff.validate(new MessagePayload(new byte[]{'n'})));
+                assertTrue(VerificationProgram.compile(ff).run(ff, MESSAGE));
+            }
+        }
+    }
+
+    @Test
+    public void testRsaInterop() throws Exception {
+        List<String> names = supporting(Primitive.RSA_PSS_SHA256);
+        assertTrue(names.contains("bc"));
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        RSAPrivateCrtKey key = (RSAPrivateCrtKey) generator.generateKeyPair().getPrivate();
+        for (String signer : names) {
+            CryptoBackends.select(Primitive.RSA_PSS_SHA256, signer);
+            RsaSha256Fulfillment ff = new RsaSha256Signer(key).sign(MESSAGE);
+            for (String verifier : names) {
+                CryptoBackends.select(Primitive.RSA_PSS_SHA256, verifier);
+                assertTrue(signer + " -> " + verifier, ff.validate(MESSAGE));
+                assertFalse(signer + " -> " + verifier, ff.validate(new MessagePayload(new byte[]{'n'})));
+                assertTrue(VerificationProgram.compile(ff).run(ff, MESSAGE));
+            }
+        }
+    }
+
+    @Test
+    public void testSelectFastest() {
+        Map<Primitive, CryptoBackend> selection = CryptoBackends.selectFastest(1000 * 1000);
+        for (Primitive primitive : Primitive.values()) {
+            CryptoBackend backend = selection.get(primitive);
+            assertTrue(primitive + " " + backend.getName(), backend.supports(primitive));
+            assertSame(backend, CryptoBackends.get(primitive));
+        }
+        Ed25519Fulfillment ff = Ed25519Fulfillment.BuildFromSecrets(new KeyPayload(new byte[32]), MESSAGE);
+        assertTrue(ff.validate(MESSAGE));
+    }
+}
@@ -0,0 +1,41 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+public class TestCryptoConditions {
+
+    static {
+        Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+    }
+
+    @Test
+    public void testWarmUp() {
+        Map<ConditionType, Long> spent = CryptoConditions.warmUp(100, ConditionType.PREIMAGE_SHA256,
+                ConditionType.PREFIX_SHA256, ConditionType.ED25519, ConditionType.RSA_SHA256);
+        assertEquals(4, spent.size());
+        for (Long nanos : spent.values()) {
+            assertTrue(nanos > 0);
+        }
+        assertTrue(CryptoConditions.warmUp(1).isEmpty());
+    }
+
+    @Test
+    public void testWarmUpArguments() {
+        try {
+            CryptoConditions.warmUp(ConditionType.PREIMAGE_SHA256, ConditionType.THRESHOLD_SHA256);
+            fail("Threshold warmed up");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            CryptoConditions.warmUp(0, ConditionType.PREIMAGE_SHA256);
+            fail("No iterations accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -24,9 +24,38 @@ public class TestDecodeCondition {
         assertEquals(c.getType(), ConditionType.PREIMAGE_SHA256);
         assert (c.getFeatures().contains(FeatureSuite.SHA_256));
         assert (c.getFeatures().contains(FeatureSuite.PREIMAGE));
+        assertEquals(FeatureSuite.SHA_256.toInt() | FeatureSuite.PREIMAGE.toInt(), c.getFeatureBitmask());
         assertArrayEquals(c.getFingerprint(), new byte[]{0x00});
         assertEquals(c.getMaxFulfillmentLength(), 1);
 
     }
 
+    @Test
+    public final void testMaxFulfillmentLengthRoundTrip() throws IOException, UnsupportedConditionException, OerDecodingException {
+        for (int maxFulfillmentLength : new int[]{0, 255, 300, 65536, 16777215}) {
+            Condition condition = new ConditionImpl(ConditionType.RSA_SHA256, 3, new byte[32], maxFulfillmentLength);
+            ConditionInputStream in = new ConditionInputStream(new ByteArrayInputStream(condition.serializeBinary()));
+            assertEquals(maxFulfillmentLength, in.readCondition().getMaxFulfillmentLength());
+            in.close();
+        }
+    }
+
+    @Test
+    public final void testFeatureBitmask() {
+        int preimage = FeatureSuite.SHA_256.toInt() | FeatureSuite.PREIMAGE.toInt();
+        assertTrue(FeatureSuite.isSupported(preimage, FeatureSuite.ALL_FEATURES));
+        assertFalse(FeatureSuite.isSupported(preimage, FeatureSuite.SHA_256.toInt()));
+        assertEquals(preimage, FeatureSuite.EnumSet2bitMask(FeatureSuite.bitMask2EnumSet(preimage)));
+
+        Fulfillment prefix = PrefixSha256Fulfillment.BuildFromParams(new byte[]{1},
+                PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{2}));
+        assertEquals(preimage | FeatureSuite.PREFIX.toInt(), prefix.getFeatureBitmask());
+        assertEquals(FeatureSuite.bitMask2EnumSet(prefix.getFeatureBitmask()), prefix.getFeatures());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testUnknownFeatureBitsRejected() {
+        new ConditionImpl("cc:0:43:47DEQpj8HBSa-_TImW-5JCeuQeRkm5NMpJWZG3hSuFU:0");
+    }
+
 }
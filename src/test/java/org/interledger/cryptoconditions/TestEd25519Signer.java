@@ -0,0 +1,76 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+public class TestEd25519Signer {
+
+    static {
+        Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+    }
+
+    private final Ed25519Signer signer = new Ed25519Signer(new KeyPayload(new byte[32]));
+
+    @Test
+    public void testSign() {
+        MessagePayload message = new MessagePayload(TestEd25519Fulfillment.TEST_MSG);
+        assertArrayEquals(TestEd25519Fulfillment.TEST_PK, signer.getPublicKeyBytes());
+        assertArrayEquals(TestEd25519Fulfillment.TEST_MSG_SIG, signer.signature(message));
+
+        Ed25519Fulfillment fulfillment = signer.sign(message);
+        assertEquals(TestEd25519Fulfillment.FF_OK_URI, fulfillment.toURI());
+        assertTrue(fulfillment.validate(message));
+        assertArrayEquals(TestEd25519Fulfillment.TEST_INPUT_STREAM_FF_OK, signer.signSerialized(message));
+        // The engine is reusable after signing
+        assertArrayEquals(TestEd25519Fulfillment.TEST_INPUT_STREAM_FF_OK, signer.signSerialized(message));
+    }
+
+    @Test
+    public void testSignBatch() {
+        MessagePayload[] messages = new MessagePayload[8];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = new MessagePayload(new byte[]{'m', (byte) i});
+        }
+        byte[][] signed = signer.signBatch(messages);
+        assertEquals(messages.length, signed.length);
+        for (int i = 0; i < messages.length; i++) {
+            Fulfillment expected = Ed25519Fulfillment.BuildFromSecrets(new KeyPayload(new byte[32]), messages[i]);
+            assertArrayEquals(expected.serializeBinary(), signed[i]);
+        }
+    }
+
+    @Test
+    public void testConcurrentSigning() throws InterruptedException {
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final byte id = (byte) t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 50; i++) {
+                            MessagePayload message = new MessagePayload(new byte[]{id, (byte) i});
+                            if (!signer.sign(message).validate(message)) {
+                                throw new AssertionError("Invalid signature from thread " + id);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(String.valueOf(failure.get()), failure.get());
+    }
+}
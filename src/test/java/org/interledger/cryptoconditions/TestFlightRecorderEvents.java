@@ -0,0 +1,65 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.interledger.cryptoconditions.jfr.FlightRecorderEvents;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+public class TestFlightRecorderEvents {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testNestedEvents() throws Exception {
+        Assume.assumeTrue(FlightRecorderEvents.isAvailable());
+        assertNull("no event while not recording", FlightRecorderEvents.begin(FlightRecorderEvents.VALIDATE));
+
+        Recording recording = new Recording();
+        recording.enable("org.interledger.cryptoconditions.Decode");
+        recording.enable("org.interledger.cryptoconditions.Validate");
+        recording.enable("org.interledger.cryptoconditions.GenerateCondition");
+        recording.enable("org.interledger.cryptoconditions.Hash");
+        recording.start();
+        try {
+            Fulfillment ff = PrefixSha256Fulfillment.BuildFromParams(new byte[]{4, 5},
+                    PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{1, 2, 3}));
+            assertTrue(ff.validate(new MessagePayload(new byte[7])));
+            FulfillmentFactory.getFulfillmentFromURI(ff.toURI()).getCondition();
+        } finally {
+            recording.stop();
+        }
+        File dump = folder.newFile("recording.jfr");
+        recording.dump(dump.toPath());
+        recording.close();
+
+        Set<String> seen = new HashSet<String>();
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump.toPath());
+        for (RecordedEvent event : events) {
+            String name = event.getEventType().getName();
+            seen.add(name.substring(name.lastIndexOf('.') + 1) + " " + event.getString("conditionType")
+                    + " " + event.getInt("depth") + " " + event.getString("outcome"));
+            assertNull("stack traces are off by default", event.getStackTrace());
+        }
+        assertTrue(seen.toString(), seen.contains("Validate PREFIX_SHA256 0 OK"));
+        assertTrue(seen.toString(), seen.contains("Validate PREIMAGE_SHA256 1 OK"));
+        assertTrue(seen.toString(), seen.contains("Decode PREFIX_SHA256 0 OK"));
+        assertTrue(seen.toString(), seen.contains("Decode PREIMAGE_SHA256 1 OK"));
+        assertTrue(seen.toString(), seen.contains("GenerateCondition PREFIX_SHA256 0 OK"));
+        assertTrue(seen.toString(), seen.contains("Hash null 1 OK") || seen.contains("Hash null 2 OK"));
+    }
+}
@@ -0,0 +1,177 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+import org.interledger.cryptoconditions.encoding.Base64Url;
+import org.interledger.cryptoconditions.encoding.DecodingLimitExceededException;
+import org.interledger.cryptoconditions.encoding.DecodingLimitExceededException.Limit;
+import org.interledger.cryptoconditions.encoding.FulfillmentDecoder;
+import org.interledger.cryptoconditions.encoding.FulfillmentInputStream;
+import org.interledger.cryptoconditions.encoding.MalformedFulfillmentException;
+import org.interledger.cryptoconditions.encoding.OerDecodingException;
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+public class TestFulfillmentDecoder {
+
+    static {
+        Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+    }
+
+    private static Fulfillment chain(Fulfillment leaf, int levels) {
+        Fulfillment ff = leaf;
+        for (int i = 0; i < levels; i++) {
+            ff = PrefixSha256Fulfillment.BuildFromParams(new byte[]{(byte) i}, ff);
+        }
+        return ff;
+    }
+
+    /* Nested prefix encodings built directly, far deeper than a tree of objects could be serialized. */
+    private static byte[] deepPrefixChain(int levels) {
+        byte[] encoded = PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{1}).serializeBinary();
+        for (int i = 0; i < levels; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int length = 1 + encoded.length;
+            out.write(0);
+            out.write(ConditionType.PREFIX_SHA256.getTypeCode());
+            if (length < 128) {
+                out.write(length);
+            } else {
+                out.write(0x83);
+                out.write(length >> 16);
+                out.write(length >> 8);
+                out.write(length);
+            }
+            out.write(0); // empty prefix
+            out.write(encoded, 0, encoded.length);
+            encoded = out.toByteArray();
+        }
+        return encoded;
+    }
+
+    private static void assertLimit(FulfillmentDecoder decoder, byte[] encoded, Limit limit) throws Exception {
+        try {
+            decoder.decode(encoded);
+            fail(limit + " limit not enforced");
+        } catch (DecodingLimitExceededException e) {
+            assertEquals(limit, e.getLimit());
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        FulfillmentDecoder decoder = new FulfillmentDecoder();
+        Fulfillment ed25519 = chain(Ed25519Fulfillment.BuildFromSecrets(new KeyPayload(new byte[32]),
+                new MessagePayload(new byte[]{0, 1, 'm'})), 2);
+        Fulfillment preimage = chain(PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{1, 2, 3}), 5);
+        for (Fulfillment ff : new Fulfillment[]{ed25519, preimage}) {
+            Fulfillment decoded = decoder.decode(ff.serializeBinary());
+            assertEquals(ff.toURI(), decoded.toURI());
+            assertEquals(ff.getCondition().toURI(), decoded.getCondition().toURI());
+        }
+        assertTrue(decoder.decode(ed25519.serializeBinary()).validate(new MessagePayload(new byte[]{'m'})));
+    }
+
+    @Test
+    public void testLimits() throws Exception {
+        FulfillmentDecoder decoder = new FulfillmentDecoder();
+        byte[] deep = deepPrefixChain(5000);
+        assertLimit(decoder, deep, Limit.DEPTH);
+
+        decoder.setMaxDepth(Integer.MAX_VALUE);
+        decoder.setMaxNodes(1000);
+        assertLimit(decoder, deep, Limit.NODES);
+
+        decoder.setMaxBytes(100);
+        assertLimit(decoder, deep, Limit.BYTES);
+
+        decoder = new FulfillmentDecoder();
+        decoder.setMaxDepth(3);
+        decoder.decode(chain(PreimageSha256Fulfillment.BuildFromSecrets(new byte[1]), 2).serializeBinary());
+        assertLimit(decoder, chain(PreimageSha256Fulfillment.BuildFromSecrets(new byte[1]), 3).serializeBinary(),
+                Limit.DEPTH);
+
+        // Threshold declaring 16M children in a few bytes
+        byte[] fanOut = {0, 2, 6, 1, 1, 3, (byte) 0xff, (byte) 0xff, (byte) 0xff};
+        assertLimit(new FulfillmentDecoder(), fanOut, Limit.CHILDREN);
+
+        // 256 children as a 2 byte big-endian varuint
+        decoder = new FulfillmentDecoder();
+        decoder.setMaxChildren(255);
+        assertLimit(decoder, new byte[]{0, 2, 5, 1, 1, 2, 1, 0}, Limit.CHILDREN);
+    }
+
+    @Test
+    public void testStreamLimits() throws Exception {
+        FulfillmentDecoder decoder = new FulfillmentDecoder();
+        decoder.setMaxDepth(3);
+        byte[] deep = chain(PreimageSha256Fulfillment.BuildFromSecrets(new byte[1]), 3).serializeBinary();
+        try {
+            new FulfillmentInputStream(new ByteArrayInputStream(deep), decoder).readFulfillment();
+            fail("Stream ignored the decoder's limits");
+        } catch (DecodingLimitExceededException e) {
+            assertEquals(Limit.DEPTH, e.getLimit());
+        }
+
+        // Declares a 16M payload it doesn't have: rejected before allocating it
+        decoder.setMaxBytes(100);
+        byte[] huge = {0, 0, (byte) 0x83, (byte) 0xff, (byte) 0xff, (byte) 0xff};
+        try {
+            new FulfillmentInputStream(new ByteArrayInputStream(huge), decoder).readFulfillment();
+            fail("Payload above the byte limit read");
+        } catch (DecodingLimitExceededException e) {
+            assertEquals(Limit.BYTES, e.getLimit());
+        }
+    }
+
+    @Test
+    public void testMalformed() throws Exception {
+        FulfillmentDecoder decoder = new FulfillmentDecoder();
+        byte[] valid = chain(PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{1, 2, 3}), 2).serializeBinary();
+        byte[] truncated = new byte[valid.length - 1];
+        System.arraycopy(valid, 0, truncated, 0, truncated.length);
+        byte[] trailing = new byte[valid.length + 1];
+        System.arraycopy(valid, 0, trailing, 0, valid.length);
+        byte[] nestedLength = valid.clone();
+        nestedLength[7] = 127;
+        byte[][] malformed = {
+            new byte[0], truncated, trailing, nestedLength,
+            {0, 9, 0},                           // unknown type
+            {0, 4, 4, 1, 0, 1, 0},               // Ed25519 key of 1 byte
+            {0, 2, 5, 1, 1, 1, 1, 2},            // threshold children don't fit
+        };
+        for (byte[] bad : malformed) {
+            try {
+                decoder.decode(bad);
+                fail("Malformed encoding accepted");
+            } catch (MalformedFulfillmentException e) {
+                assertTrue(e.getOffset() >= 0 && e.getOffset() <= bad.length);
+            }
+        }
+        try {
+            decoder.decode(new byte[]{0, 0, (byte) 0x80});
+            fail("Length indicator 0x80 accepted");
+        } catch (OerDecodingException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testFromURI() {
+        Fulfillment ff = chain(PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{7}), 3);
+        assertEquals(ff.toURI(), FulfillmentFactory.getFulfillmentFromURI(ff.toURI()).toURI());
+        try {
+            byte[] deep = deepPrefixChain(1000);
+            // Skip the type and the 4 byte length of the outer encoding
+            FulfillmentFactory.getFulfillmentFromURI("cf:1:" + Base64Url.encode(deep, 6, deep.length - 6));
+            fail("Deep chain decoded");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof DecodingLimitExceededException);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+public class TestFulfillmentVerifier {
+
+    static {
+        Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+    }
+
+    private static final MessagePayload EMPTY_MESSAGE = new MessagePayload(new byte[0]);
+
+    @Test
+    public void testPreimage() {
+        Fulfillment ff = FulfillmentFactory.getFulfillmentFromURI("cf:0:YWJj");
+        Condition expected = new ConditionImpl("cc:0:3:ungWv48Bz-pBQUDeXa4iI7ADYaOWF3qctBD_YfIAFa0:3");
+        assertTrue(FulfillmentVerifier.verify(expected, ff, EMPTY_MESSAGE));
+
+        // Other preimage, other max length, other features, other type
+        assertFalse(FulfillmentVerifier.verify(
+                new ConditionImpl("cc:0:3:8ZdpKBDUV-KX_OnFZTsCWB_5mlCFI3DynX5f5H2dN-Y:3"), ff, EMPTY_MESSAGE));
+        assertFalse(FulfillmentVerifier.verify(
+                new ConditionImpl("cc:0:3:ungWv48Bz-pBQUDeXa4iI7ADYaOWF3qctBD_YfIAFa0:4"), ff, EMPTY_MESSAGE));
+        assertFalse(FulfillmentVerifier.verify(
+                new ConditionImpl("cc:0:1:ungWv48Bz-pBQUDeXa4iI7ADYaOWF3qctBD_YfIAFa0:3"), ff, EMPTY_MESSAGE));
+        assertFalse(FulfillmentVerifier.verify(
+                new ConditionImpl("cc:1:3:ungWv48Bz-pBQUDeXa4iI7ADYaOWF3qctBD_YfIAFa0:3"), ff, EMPTY_MESSAGE));
+    }
+
+    @Test
+    public void testEd25519() {
+        Fulfillment ff = FulfillmentFactory.getFulfillmentFromURI(TestEd25519Fulfillment.FF_OK_URI);
+        Condition expected = ff.getCondition();
+        Fulfillment fresh = FulfillmentFactory.getFulfillmentFromURI(TestEd25519Fulfillment.FF_OK_URI);
+        assertTrue(FulfillmentVerifier.fulfills(expected, fresh));
+        assertTrue(FulfillmentVerifier.verify(expected, fresh, new MessagePayload(TestEd25519Fulfillment.TEST_MSG)));
+        assertFalse(FulfillmentVerifier.verify(expected, fresh, new MessagePayload(TestEd25519Fulfillment.TEST_KO_MSG)));
+
+        byte[] otherKey = expected.getFingerprint().clone();
+        otherKey[otherKey.length - 1] ^= 1;
+        Condition other = new ConditionImpl(ConditionType.ED25519, expected.getFeatures(), otherKey,
+                expected.getMaxFulfillmentLength());
+        assertFalse(FulfillmentVerifier.verify(other, fresh, new MessagePayload(TestEd25519Fulfillment.TEST_MSG)));
+    }
+
+    @Test
+    public void testPrefix() {
+        Fulfillment subff = PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{1, 2, 3});
+        Fulfillment ff = PrefixSha256Fulfillment.BuildFromParams(new byte[]{4, 5}, subff);
+        Condition expected = new ConditionImpl(ff.getCondition().toURI());
+        assertTrue(FulfillmentVerifier.verify(expected, ff, EMPTY_MESSAGE));
+        assertFalse(FulfillmentVerifier.verify(subff.getCondition(), ff, EMPTY_MESSAGE));
+    }
+}
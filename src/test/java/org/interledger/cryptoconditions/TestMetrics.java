@@ -0,0 +1,110 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.interledger.cryptoconditions.metrics.InMemoryMetricsRecorder;
+import org.interledger.cryptoconditions.metrics.JmxMetricsExporter;
+import org.interledger.cryptoconditions.metrics.LatencyHistogram;
+import org.interledger.cryptoconditions.metrics.Metrics;
+import org.interledger.cryptoconditions.metrics.Operation;
+import org.interledger.cryptoconditions.metrics.OperationStats;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+public class TestMetrics {
+
+    @After
+    public void disableMetrics() {
+        Metrics.setRecorder(null);
+    }
+
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99.0));
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500500.0, histogram.getMean(), 0.001);
+
+        long p50 = histogram.getValueAtPercentile(50.0);
+        assertTrue("p50 " + p50, p50 >= 500000 && p50 <= 500000 * 17 / 16);
+        long p99 = histogram.getValueAtPercentile(99.0);
+        assertTrue("p99 " + p99, p99 >= 990000 && p99 <= 1000000);
+        assertEquals(1000000, histogram.getValueAtPercentile(100.0));
+
+        histogram.record(3);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(3, histogram.getValueAtPercentile(0.0));
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+
+    @Test
+    public void testRecording() {
+        assertFalse(Metrics.isEnabled());
+        assertEquals(Metrics.DISABLED, Metrics.start());
+
+        InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+        Metrics.setRecorder(recorder);
+
+        Fulfillment ff = FulfillmentFactory.getFulfillmentFromURI("cf:0:YWJj");
+        ff.getCondition();
+        ff.getCondition();
+        assertTrue(ff.validate(new MessagePayload(new byte[5])));
+        new ConditionImpl("cc:0:3:ungWv48Bz-pBQUDeXa4iI7ADYaOWF3qctBD_YfIAFa0:3");
+        try {
+            new ConditionImpl("cc:zz");
+            fail("invalid URI accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        ConditionType type = ConditionType.PREIMAGE_SHA256;
+        assertEquals(1, recorder.get(type, Operation.PARSE_FULFILLMENT_URI).getCount());
+        assertEquals(9, recorder.get(type, Operation.PARSE_FULFILLMENT_URI).getBytes());
+        OperationStats decode = recorder.get(type, Operation.DECODE_FULFILLMENT);
+        assertEquals(1, decode.getCount());
+        assertEquals(3, decode.getBytes());
+        assertEquals(0, decode.getFailures());
+        assertEquals(1, recorder.get(type, Operation.GENERATE_CONDITION).getCount());
+        assertEquals(1, recorder.get(type, Operation.VALIDATE).getCount());
+        assertEquals(5, recorder.get(type, Operation.VALIDATE).getBytes());
+        assertEquals(1, recorder.get(type, Operation.PARSE_CONDITION_URI).getCount());
+        assertEquals(1, recorder.get(null, Operation.PARSE_CONDITION_URI).getFailures());
+        assertEquals(0, recorder.get(ConditionType.ED25519, Operation.VALIDATE).getCount());
+    }
+
+    @Test
+    public void testJmxExport() throws Exception {
+        InMemoryMetricsRecorder recorder = new InMemoryMetricsRecorder();
+        Metrics.setRecorder(recorder);
+        FulfillmentFactory.getFulfillmentFromURI("cf:0:YWJj").validate(new MessagePayload(new byte[0]));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        JmxMetricsExporter exporter = new JmxMetricsExporter(server);
+        exporter.register(recorder);
+        try {
+            ObjectName name = new ObjectName(JmxMetricsExporter.DOMAIN
+                    + ":type=Metrics,conditionType=PREIMAGE_SHA256,operation=VALIDATE");
+            assertEquals(1L, server.getAttribute(name, "Count"));
+            assertEquals(0L, server.getAttribute(name, "Failures"));
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            assertEquals(0L, server.getAttribute(name, "Count"));
+        } finally {
+            exporter.unregister();
+        }
+        assertTrue(server.queryNames(new ObjectName(JmxMetricsExporter.DOMAIN + ":type=Metrics,*"), null).isEmpty());
+    }
+}
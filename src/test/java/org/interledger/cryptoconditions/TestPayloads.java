@@ -0,0 +1,92 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import org.interledger.cryptoconditions.types.FulfillmentPayload;
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+public class TestPayloads {
+
+    static {
+        Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+    }
+
+    @Test
+    public void testWrapAndCopy() {
+        byte[] source = new byte[]{1, 2, 3, 4, 5};
+
+        MessagePayload wrapped = MessagePayload.wrap(source);
+        assertSame(source, wrapped.payload);
+        assertSame(source, wrapped.asByteArray());
+
+        MessagePayload copied = MessagePayload.copyOf(source);
+        assertNotSame(source, copied.payload);
+        assertNotSame(source, new MessagePayload(source).payload);
+
+        MessagePayload slice = MessagePayload.wrap(source, 1, 3);
+        assertSame(source, slice.payload);
+        assertArrayEquals(new byte[]{2, 3, 4}, slice.asByteArray());
+        assertTrue(slice.asReadOnlyBuffer().isReadOnly());
+        assertEquals(3, slice.asReadOnlyBuffer().remaining());
+
+        ByteBuffer heap = ByteBuffer.wrap(source);
+        heap.position(2);
+        MessagePayload fromHeap = MessagePayload.wrap(heap);
+        assertSame(source, fromHeap.payload);
+        assertEquals(2, fromHeap.offset);
+        assertEquals(3, fromHeap.length);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(4);
+        direct.put(new byte[]{9, 8, 7, 6}).flip();
+        assertArrayEquals(new byte[]{9, 8, 7, 6}, MessagePayload.wrap(direct).asByteArray());
+        assertEquals(0, direct.position());
+
+        try {
+            MessagePayload.wrap(source, 3, 3);
+            fail("slice out of bounds accepted");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPreimageDoesNotAliasSecret() {
+        byte[] secret = new byte[]{'a', 'b', 'c'};
+        Fulfillment ff = PreimageSha256Fulfillment.BuildFromSecrets(secret);
+        String uri = ff.getCondition().toURI();
+        secret[0] = 'x';
+        assertEquals(uri, PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{'a', 'b', 'c'})
+                .getCondition().toURI());
+        assertEquals("cf:0:YWJj", ff.toURI());
+    }
+
+    @Test
+    public void testValidateMessageSlice() {
+        byte[] framed = new byte[TestEd25519Fulfillment.TEST_MSG.length + 8];
+        System.arraycopy(TestEd25519Fulfillment.TEST_MSG, 0, framed, 4, TestEd25519Fulfillment.TEST_MSG.length);
+        MessagePayload slice = MessagePayload.wrap(framed, 4, TestEd25519Fulfillment.TEST_MSG.length);
+
+        Fulfillment ed25519 = FulfillmentFactory.getFulfillmentFromURI(TestEd25519Fulfillment.FF_OK_URI);
+        assertTrue(ed25519.validate(slice));
+
+        Fulfillment signed = Ed25519Fulfillment.BuildFromSecrets(
+                KeyPayload.wrap(new byte[32]), slice);
+        assertTrue(signed.validate(new MessagePayload(TestEd25519Fulfillment.TEST_MSG)));
+
+        Fulfillment prefix = PrefixSha256Fulfillment.BuildFromParams(new byte[]{4, 5},
+                PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{1, 2, 3}));
+        assertTrue(prefix.validate(slice));
+
+        // A fulfillment built on a sliced payload encodes only the slice
+        byte[] encoded = FulfillmentFactory.getFulfillmentFromURI("cf:0:YWJj").serializeBinary();
+        Fulfillment preimage = new PreimageSha256Fulfillment(ConditionType.PREIMAGE_SHA256,
+                FulfillmentPayload.wrap(new byte[]{0, 'a', 'b', 'c', 0}, 1, 3));
+        assertEquals("cf:0:YWJj", preimage.toURI());
+        assertArrayEquals(encoded, preimage.serializeBinary());
+    }
+}
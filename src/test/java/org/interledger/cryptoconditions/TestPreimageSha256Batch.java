@@ -0,0 +1,86 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import org.interledger.cryptoconditions.types.MessagePayload;
+import org.interledger.cryptoconditions.util.Crypto;
+
+public class TestPreimageSha256Batch {
+
+    // More than one chunk, so part of the work runs on the shared pool
+    private static final int COUNT = 2500;
+
+    @Test
+    public void testGenerate() {
+        PreimageSha256Batch batch = PreimageSha256Batch.generate(COUNT);
+        assertEquals(COUNT, batch.size());
+        assertEquals(COUNT * 32, batch.getPreimages().length);
+        assertEquals(COUNT * 32, batch.getFingerprints().length);
+        for (int i = 0; i < COUNT; i += 499) {
+            byte[] preimage = batch.getPreimage(i);
+            assertArrayEquals(Crypto.getSha256Hash(preimage), batch.getFingerprint(i));
+            PreimageSha256Fulfillment fulfillment = batch.getFulfillment(i);
+            assertEquals(PreimageSha256Fulfillment.BuildFromSecrets(preimage).getCondition().toURI(),
+                    batch.getCondition(i).toURI());
+            assertTrue(FulfillmentVerifier.verify(batch.getCondition(i), fulfillment, new MessagePayload(new byte[0])));
+        }
+        assertFalse(Arrays.equals(batch.getPreimage(0), batch.getPreimage(COUNT - 1)));
+        assertEquals(0, PreimageSha256Batch.generate(0).size());
+    }
+
+    @Test
+    public void testVerifyFlat() {
+        PreimageSha256Batch batch = PreimageSha256Batch.generate(COUNT);
+        BitSet all = PreimageSha256Batch.verify(batch.getPreimages(), batch.getPreimageLength(),
+                batch.getFingerprints());
+        assertEquals(COUNT, all.cardinality());
+
+        batch.getFingerprints()[1700 * 32 + 5] ^= 1;
+        batch.getPreimages()[3] ^= 1;
+        BitSet some = PreimageSha256Batch.verify(batch.getPreimages(), batch.getPreimageLength(),
+                batch.getFingerprints());
+        assertEquals(COUNT - 2, some.cardinality());
+        assertFalse(some.get(0));
+        assertFalse(some.get(1700));
+        assertTrue(some.get(1699));
+
+        try {
+            PreimageSha256Batch.verify(new byte[64], 32, new byte[32]);
+            fail("Mismatched arrays accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testVerifyConditions() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        PreimageSha256Batch batch = PreimageSha256Batch.generate(COUNT, 16, executor);
+        executor.shutdown();
+        byte[][] preimages = new byte[COUNT][];
+        Condition[] conditions = new Condition[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            preimages[i] = batch.getPreimage(i);
+            conditions[i] = batch.getCondition(i);
+        }
+        conditions[10] = batch.getCondition(11);
+        conditions[20] = null;
+        conditions[30] = new ConditionImpl(ConditionType.PREFIX_SHA256, conditions[30].getFeatureBitmask(),
+                conditions[30].getFingerprint(), 16);
+        preimages[2000] = new byte[17];
+
+        BitSet result = PreimageSha256Batch.verify(preimages, conditions);
+        assertEquals(COUNT - 4, result.cardinality());
+        assertFalse(result.get(10));
+        assertFalse(result.get(20));
+        assertFalse(result.get(30));
+        assertFalse(result.get(2000));
+    }
+}
@@ -0,0 +1,75 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateCrtKey;
+
+import org.bouncycastle.asn1.pkcs.RSAPrivateKeyStructure;
+import org.bouncycastle.util.encoders.Base64;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.interledger.cryptoconditions.encoding.FulfillmentInputStream;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+public class TestRsaSha256Signer {
+
+    private static RSAPrivateCrtKey key;
+
+    @BeforeClass
+    public static void generateKey() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        key = (RSAPrivateCrtKey) generator.generateKeyPair().getPrivate();
+    }
+
+    private static String pem(String label, byte[] der) throws Exception {
+        return "-----BEGIN " + label + "-----\n" + new String(Base64.encode(der), "US-ASCII")
+                + "\n-----END " + label + "-----\n";
+    }
+
+    private static Fulfillment decode(byte[] encoded) throws Exception {
+        return new FulfillmentInputStream(new ByteArrayInputStream(encoded)).readFulfillment();
+    }
+
+    @Test
+    public void testFromPEM() throws Exception {
+        RSAPrivateKeyStructure pkcs1 = new RSAPrivateKeyStructure(key.getModulus(), key.getPublicExponent(),
+                key.getPrivateExponent(), key.getPrimeP(), key.getPrimeQ(), key.getPrimeExponentP(),
+                key.getPrimeExponentQ(), key.getCrtCoefficient());
+        RsaSha256Signer fromPkcs1 = RsaSha256Signer.fromPEM(pem("RSA PRIVATE KEY", pkcs1.getDEREncoded()));
+        RsaSha256Signer fromPkcs8 = RsaSha256Signer.fromPEM(pem("PRIVATE KEY", key.getEncoded()));
+        assertEquals(key.getModulus(), fromPkcs1.getModulus());
+        assertEquals(key.getModulus(), fromPkcs8.getModulus());
+
+        MessagePayload message = new MessagePayload(new byte[]{'a', 'b', 'c'});
+        assertTrue(fromPkcs1.sign(message).validate(message));
+        assertTrue(fromPkcs8.sign(message).validate(message));
+
+        try {
+            RsaSha256Signer.fromPEM("-----BEGIN PUBLIC KEY-----\nAAAA\n-----END PUBLIC KEY-----\n");
+            fail("Public key accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSignSerialized() throws Exception {
+        RsaSha256Signer signer = new RsaSha256Signer(key);
+        MessagePayload[] messages = new MessagePayload[4];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = new MessagePayload(new byte[]{'m', (byte) i});
+        }
+        byte[][] signed = signer.signBatch(messages);
+        Condition condition = signer.sign(messages[0]).getCondition();
+        for (int i = 0; i < messages.length; i++) {
+            Fulfillment fulfillment = decode(signed[i]);
+            assertEquals(ConditionType.RSA_SHA256, fulfillment.getType());
+            assertTrue(FulfillmentVerifier.verify(condition, fulfillment, messages[i]));
+            assertFalse(fulfillment.validate(messages[(i + 1) % messages.length]));
+        }
+    }
+}
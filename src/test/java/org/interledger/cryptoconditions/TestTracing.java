@@ -0,0 +1,84 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import org.interledger.cryptoconditions.trace.TraceNode;
+import org.interledger.cryptoconditions.trace.Tracing;
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+public class TestTracing {
+
+    static {
+        Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+    }
+
+    @Test
+    public void testTraceValidate() {
+        byte[] prefix = new byte[]{'p', ':'};
+        byte[] message = new byte[]{'m', 's', 'g'};
+        byte[] prefixed = new byte[]{'p', ':', 'm', 's', 'g'};
+        Fulfillment leaf = Ed25519Fulfillment.BuildFromSecrets(new KeyPayload(new byte[32]), new MessagePayload(prefixed));
+        Fulfillment ff = PrefixSha256Fulfillment.BuildFromParams(prefix, leaf);
+
+        TraceNode root = Tracing.traceValidate(ff, new MessagePayload(message));
+        assertTrue(root.toText(), root.isSuccess());
+        assertEquals(TraceNode.Kind.VALIDATE, root.getKind());
+        assertEquals(ConditionType.PREFIX_SHA256, root.getType());
+        assertEquals(3, root.getBytes());
+        assertEquals(0, root.getEd25519Verifies());
+        assertEquals(1, root.getTotalEd25519Verifies());
+        assertEquals(1, root.getChildren().size());
+
+        TraceNode child = root.getChildren().get(0);
+        assertEquals(ConditionType.ED25519, child.getType());
+        assertEquals(5, child.getBytes());
+        assertEquals(1, child.getEd25519Verifies());
+        assertTrue(child.getWallNanos() <= root.getWallNanos());
+
+        TraceNode failed = Tracing.traceValidate(ff, new MessagePayload(prefixed));
+        assertFalse(failed.isSuccess());
+        assertFalse(failed.getChildren().get(0).isSuccess());
+
+        String json = root.toJson();
+        assertTrue(json, json.startsWith("{\"kind\":\"VALIDATE\",\"type\":\"PREFIX_SHA256\",\"success\":true,"));
+        assertTrue(json, json.contains("\"children\":[{\"kind\":\"VALIDATE\",\"type\":\"ED25519\""));
+        assertTrue(json, json.contains("\"ed25519Verifies\":1,\"children\":[]"));
+
+        String[] lines = root.toText().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0], lines[0].startsWith("VALIDATE PREFIX_SHA256 OK "));
+        assertTrue(lines[1], lines[1].startsWith("  VALIDATE ED25519 OK "));
+    }
+
+    @Test
+    public void testTraceGetCondition() {
+        Fulfillment ff = PrefixSha256Fulfillment.BuildFromParams(new byte[]{1},
+                PrefixSha256Fulfillment.BuildFromParams(new byte[]{2},
+                        PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{3})));
+        ff = FulfillmentFactory.getFulfillmentFromURI(ff.toURI()); // nothing cached yet
+
+        TraceNode root = Tracing.traceGetCondition(ff);
+        assertTrue(root.isSuccess());
+        assertEquals(TraceNode.Kind.GET_CONDITION, root.getKind());
+        assertEquals(1, root.getHashes());
+        assertEquals(3, root.getTotalHashes());
+        TraceNode leaf = root.getChildren().get(0).getChildren().get(0);
+        assertEquals(ConditionType.PREIMAGE_SHA256, leaf.getType());
+        assertEquals(1, leaf.getHashes());
+
+        // Cached now: a single node without work
+        TraceNode cached = Tracing.traceGetCondition(ff);
+        assertTrue(cached.getChildren().isEmpty());
+        assertEquals(0, cached.getTotalHashes());
+    }
+
+    @Test
+    public void testOffByDefault() {
+        assertNull(Tracing.enter(TraceNode.Kind.VALIDATE, ConditionType.ED25519, 0));
+        Tracing.exit(null, true);
+        Tracing.countHash();
+    }
+}
@@ -0,0 +1,120 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import org.interledger.cryptoconditions.encoding.DecodeError;
+import org.interledger.cryptoconditions.encoding.DecodeResult;
+import org.interledger.cryptoconditions.encoding.FulfillmentDecoder;
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+public class TestTryDecode {
+
+    static {
+        Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+    }
+
+    private static final Fulfillment PREFIX = PrefixSha256Fulfillment.BuildFromParams(new byte[]{1, 2},
+            PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{3, 4, 5}));
+    private static final Fulfillment ED25519 = Ed25519Fulfillment.BuildFromSecrets(new KeyPayload(new byte[32]),
+            new MessagePayload(new byte[]{'m'}));
+
+    private static boolean parsesWithExceptions(String uri) {
+        try {
+            FulfillmentFactory.getFulfillmentFromURI(uri);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static boolean conditionParsesWithExceptions(String uri) {
+        try {
+            new ConditionImpl(uri);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    @Test
+    public void testTryDecode() {
+        FulfillmentDecoder decoder = new FulfillmentDecoder();
+        DecodeResult<Fulfillment> result = new DecodeResult<Fulfillment>();
+        for (Fulfillment ff : new Fulfillment[]{PREFIX, ED25519}) {
+            assertTrue(decoder.tryDecode(ff.serializeBinary(), result));
+            assertEquals(ff.toURI(), result.getValue().toURI());
+            assertNull(result.getError());
+        }
+
+        byte[] encoded = PREFIX.serializeBinary();
+        byte[] truncated = new byte[encoded.length - 1];
+        System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+        assertFalse(decoder.tryDecode(truncated, result));
+        assertEquals(DecodeError.TRUNCATED, result.getError());
+        assertNull(result.getValue());
+
+        assertFalse(decoder.tryDecode(new byte[]{0, 9, 0}, result));
+        assertEquals(DecodeError.UNKNOWN_TYPE, result.getError());
+        assertFalse(decoder.tryDecode(new byte[]{0, 0, (byte) 0x80}, result));
+        assertEquals(DecodeError.ILLEGAL_LENGTH_INDICATOR, result.getError());
+        assertEquals(2, result.getOffset());
+        assertFalse(decoder.tryDecode(new byte[]{0, 0, (byte) 0x84, 0, 0, 0, 0}, result));
+        assertEquals(DecodeError.UNSUPPORTED_LENGTH, result.getError());
+
+        byte[] badKey = ED25519.serializeBinary();
+        badKey[4] = 31; // key length
+        assertFalse(decoder.tryDecode(badKey, result));
+        assertNotNull(result.getError());
+
+        decoder.setMaxDepth(1);
+        assertFalse(decoder.tryDecode(encoded, result));
+        assertEquals(DecodeError.DEPTH_LIMIT, result.getError());
+
+        // The result is reusable after a failure
+        assertTrue(new FulfillmentDecoder().tryDecode(encoded, result));
+        assertTrue(result.isSuccess());
+    }
+
+    @Test
+    public void testTryParseFulfillmentURI() {
+        DecodeResult<Fulfillment> result = new DecodeResult<Fulfillment>();
+        String uri = PREFIX.toURI();
+        String[] inputs = {
+            uri, ED25519.toURI(), "cf:0:", "cf:0:YWJj", null, "", "cf:", "cf:0", "cf:00:YWJj", "cf:A:YWJj",
+            "cf:9:YWJj", "cf:0:YWJj=", "cf:0:YW:Jj", "cf:0:Y", "cf:0:YW\u00e9", uri.substring(0, uri.length() - 2),
+            "cc:0:YWJj", "cf:12345:YWJj",
+        };
+        for (String input : inputs) {
+            assertEquals(input, parsesWithExceptions(input), FulfillmentFactory.tryParseFulfillmentURI(input, result));
+            if (result.isSuccess()) {
+                assertEquals(FulfillmentFactory.getFulfillmentFromURI(input).toURI(), result.getValue().toURI());
+            }
+        }
+        assertFalse(FulfillmentFactory.tryParseFulfillmentURI("cf:9:YWJj", result));
+        assertEquals(DecodeError.UNKNOWN_TYPE, result.getError());
+        assertFalse(FulfillmentFactory.tryParseFulfillmentURI("cf:0:YW!j", result));
+        assertEquals(DecodeError.MALFORMED_URI, result.getError());
+    }
+
+    @Test
+    public void testTryParseCondition() {
+        DecodeResult<Condition> result = new DecodeResult<Condition>();
+        String uri = PREFIX.getCondition().toURI();
+        String[] inputs = {
+            uri, ED25519.getCondition().toURI(), "cc:0:3:AAAA:0", "cc:0:3::1", null, "", "cc:0:3:AAAA",
+            "cc:0:0:AAAA:1", "cc:0:3:AAAA:01", "cc:9:3:AAAA:1", "cc:0:3:AA!A:1", "cc:0:ffffffffff:AAAA:1",
+            "cc:0:3:AAAA:99999999999", "cc:0:3:AAAA:1:2", "cf:0:3:AAAA:1", "cc:0:8000000:AAAA:1",
+        };
+        for (String input : inputs) {
+            assertEquals(input, conditionParsesWithExceptions(input), ConditionImpl.tryParse(input, result));
+            if (result.isSuccess()) {
+                assertEquals(new ConditionImpl(input).toURI(), result.getValue().toURI());
+            }
+        }
+        assertFalse(ConditionImpl.tryParse("cc:0:3:AAAA:99999999999", result));
+        assertEquals(DecodeError.INVALID_VALUE, result.getError());
+    }
+}
@@ -0,0 +1,97 @@
+package org.interledger.cryptoconditions;
+
+import static org.junit.Assert.*;
+
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.interfaces.RSAPrivateCrtKey;
+
+import org.junit.Test;
+
+import org.interledger.cryptoconditions.types.KeyPayload;
+import org.interledger.cryptoconditions.types.MessagePayload;
+
+public class TestVerificationProgram {
+
+    static {
+        Ed25519Fulfillment.UserHasReadEd25519JavaDisclaimerAndIsAwareOfSecurityIssues();
+    }
+
+    private static final byte[] MESSAGE = new byte[]{'m', 's', 'g'};
+
+    private static Fulfillment ed25519Chain(byte seed, byte[] outer, byte[] inner) {
+        byte[] leafMessage = new byte[inner.length + outer.length + MESSAGE.length];
+        System.arraycopy(inner, 0, leafMessage, 0, inner.length);
+        System.arraycopy(outer, 0, leafMessage, inner.length, outer.length);
+        System.arraycopy(MESSAGE, 0, leafMessage, inner.length + outer.length, MESSAGE.length);
+        byte[] key = new byte[32];
+        key[0] = seed;
+        Fulfillment leaf = Ed25519Fulfillment.BuildFromSecrets(new KeyPayload(key), new MessagePayload(leafMessage));
+        return PrefixSha256Fulfillment.BuildFromParams(outer, PrefixSha256Fulfillment.BuildFromParams(inner, leaf));
+    }
+
+    @Test
+    public void testEd25519Chain() {
+        byte[] outer = new byte[]{'o', ':'};
+        byte[] inner = new byte[]{'i', 'n', ':'};
+        Fulfillment ff = ed25519Chain((byte) 1, outer, inner);
+        MessagePayload message = new MessagePayload(MESSAGE);
+        assertTrue(ff.validate(message));
+
+        VerificationProgram program = VerificationProgram.compile(ff);
+        assertTrue(program.run(ff, message));
+        assertFalse(program.run(ff, new MessagePayload(new byte[]{'x'})));
+        assertTrue("engine reusable after a failed verify", program.run(ff, message));
+
+        // Same structure, fulfillment decoded anew
+        Fulfillment decoded = FulfillmentFactory.getFulfillmentFromURI(ff.toURI());
+        assertTrue(program.run(decoded, message));
+
+        // Other prefix or other key: doesn't match the program
+        assertFalse(program.run(ed25519Chain((byte) 1, new byte[]{'o', '!'}, inner), message));
+        assertFalse(program.run(ed25519Chain((byte) 2, outer, inner), message));
+        assertFalse(program.run(((PrefixSha256Fulfillment) ff).getSubFulfillment(), message));
+    }
+
+    @Test
+    public void testVerifyMatchesFulfillmentVerifier() {
+        byte[] outer = new byte[]{1};
+        byte[] inner = new byte[]{2, 3};
+        Fulfillment ff = ed25519Chain((byte) 3, outer, inner);
+        Fulfillment other = ed25519Chain((byte) 4, outer, inner);
+        Condition condition = ff.getCondition();
+        MessagePayload message = new MessagePayload(MESSAGE);
+        MessagePayload wrong = new MessagePayload(new byte[0]);
+
+        Fulfillment[] candidates = {ff, other, ff, other};
+        for (Fulfillment candidate : candidates) {
+            assertEquals(FulfillmentVerifier.verify(condition, candidate, message),
+                    VerificationProgram.verify(condition, candidate, message));
+            assertEquals(FulfillmentVerifier.verify(condition, candidate, wrong),
+                    VerificationProgram.verify(condition, candidate, wrong));
+        }
+        assertTrue(VerificationProgram.verify(condition, ff, message));
+        assertFalse(VerificationProgram.verify(other.getCondition(), ff, message));
+    }
+
+    @Test
+    public void testPreimageAndRsaLeaves() throws Exception {
+        Fulfillment preimage = PrefixSha256Fulfillment.BuildFromParams(new byte[]{9},
+                PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{1, 2, 3}));
+        Fulfillment otherPreimage = PrefixSha256Fulfillment.BuildFromParams(new byte[]{9},
+                PreimageSha256Fulfillment.BuildFromSecrets(new byte[]{1, 2, 4}));
+        VerificationProgram program = VerificationProgram.compile(preimage);
+        assertTrue(program.run(preimage, new MessagePayload(MESSAGE)));
+        assertFalse(program.run(otherPreimage, new MessagePayload(MESSAGE)));
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024, new SecureRandom());
+        RsaSha256Signer signer = new RsaSha256Signer(
+                (RSAPrivateCrtKey) generator.generateKeyPair().getPrivate());
+        byte[] prefixed = new byte[]{'p', 'm', 's', 'g'};
+        Fulfillment rsa = PrefixSha256Fulfillment.BuildFromParams(new byte[]{'p'}, signer.sign(new MessagePayload(prefixed)));
+        assertTrue(rsa.validate(new MessagePayload(MESSAGE)));
+        assertTrue(VerificationProgram.compile(rsa).run(rsa, new MessagePayload(MESSAGE)));
+        assertFalse(VerificationProgram.compile(rsa).run(rsa, new MessagePayload(prefixed)));
+    }
+}